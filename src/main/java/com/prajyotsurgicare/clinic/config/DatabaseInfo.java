@@ -0,0 +1,38 @@
+package com.prajyotsurgicare.clinic.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+
+// 🗄️ Postgres-only features (pg_trgm, ON CONFLICT, tsvector) वापरण्याआधी DB type तपासा
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DatabaseInfo {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean postgres;
+
+    public boolean isPostgres() {
+        Boolean result = postgres;
+        if (result == null) {
+            result = detectPostgres();
+            postgres = result;
+        }
+        return result;
+    }
+
+    private boolean detectPostgres() {
+        try {
+            String product = jdbcTemplate.execute((Connection c) -> c.getMetaData().getDatabaseProductName());
+            return product != null && product.toLowerCase().contains("postgres");
+        } catch (Exception e) {
+            log.warn("⚠️ Could not detect database type: {}", e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.prajyotsurgicare.clinic.config;
+
+import com.prajyotsurgicare.clinic.repository.VisitRepository;
+import com.prajyotsurgicare.clinic.service.PatientSearchService;
+import com.prajyotsurgicare.clinic.service.PrescriptionSearchService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// 🔍 Search indexes: ddl-auto=update हे GIN / expression indexes बनवत नाही, म्हणून startup ला बनवतो.
+// Postgres नसेल किंवा pg_trgm extension मिळाले नाही तर जुना LIKE search चालू राहतो.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SearchIndexInitializer implements ApplicationRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabaseInfo databaseInfo;
+    private final PatientSearchService patientSearchService;
+    private final PrescriptionSearchService prescriptionSearchService;
+
+    private static final List<String> PATIENT_INDEXES = List.of(
+            // Name: GiST (KNN ORDER BY <<-> साठी), आधीचा GIN name index हा replace करतो.
+            // siglen=64: 1M patients वर typo search p99 default (12) ला 177 ms, 64 ला 33 ms
+            "DROP INDEX IF EXISTS idx_patients_name_trgm",
+            "CREATE INDEX IF NOT EXISTS idx_patients_name_trgm_gist ON patients USING gist (lower(name) gist_trgm_ops(siglen=64))",
+            "CREATE INDEX IF NOT EXISTS idx_patients_mobile_trgm ON patients USING gin (mobile gin_trgm_ops)",
+            // Name prefix: range + क्रम (ORDER BY) एकाच index मधून. text_pattern_ops क्रम देऊ शकत नव्हता
+            "DROP INDEX IF EXISTS idx_patients_name_prefix",
+            "CREATE INDEX IF NOT EXISTS idx_patients_name_sorted ON patients ((lower(name) COLLATE \"C\"), id DESC)",
+            "CREATE INDEX IF NOT EXISTS idx_patients_mobile_prefix ON patients (mobile text_pattern_ops)"
+    );
+
+    // Prescription text: expression index, त्यामुळे वेगळा tsvector column/trigger नको
+    private static final String PRESCRIPTION_FTS_INDEX =
+            "CREATE INDEX IF NOT EXISTS idx_visits_prescription_fts ON visits USING gin (" +
+                    VisitRepository.PRESCRIPTION_TSVECTOR + ")";
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!databaseInfo.isPostgres()) {
+            log.info("🔍 Non-Postgres database detected. Patient and prescription search will use LIKE queries.");
+            return;
+        }
+
+        try {
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+            PATIENT_INDEXES.forEach(jdbcTemplate::execute);
+            patientSearchService.setTrigramEnabled(true);
+            log.info("✅ Patient search trigram indexes ready");
+        } catch (Exception e) {
+            log.warn("⚠️ Could not create trigram indexes, falling back to LIKE search: {}", e.getMessage());
+        }
+
+        try {
+            jdbcTemplate.execute(PRESCRIPTION_FTS_INDEX);
+            prescriptionSearchService.setFullTextEnabled(true);
+            log.info("✅ Prescription full-text index ready");
+        } catch (Exception e) {
+            log.warn("⚠️ Could not create prescription full-text index, falling back to LIKE search: {}", e.getMessage());
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package com.prajyotsurgicare.clinic.controller;
 
 import com.prajyotsurgicare.clinic.dto.BillingRequest;
-import com.prajyotsurgicare.clinic.enums.VisitStatus;
-import com.prajyotsurgicare.clinic.repository.VisitRepository;
+import com.prajyotsurgicare.clinic.dto.QueueEventReplay;
+import com.prajyotsurgicare.clinic.dto.QueueReorderRequest;
+import com.prajyotsurgicare.clinic.dto.TodayStatsRow;
 import com.prajyotsurgicare.clinic.service.DashboardService;
+import com.prajyotsurgicare.clinic.service.QueueBroadcastDispatcher;
+import com.prajyotsurgicare.clinic.service.QueueEventService;
+import com.prajyotsurgicare.clinic.service.TodayStatsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -21,7 +25,9 @@ import java.util.Map;
 public class DashboardController {
 
     private final DashboardService dashboardService;
-    private final VisitRepository visitRepository;
+    private final TodayStatsService todayStatsService;
+    private final QueueEventService queueEventService;
+    private final QueueBroadcastDispatcher broadcastDispatcher;
 
     @GetMapping("/stats/waiting/clinic")
     public ResponseEntity<Long> getWaitingCount(
@@ -38,7 +44,29 @@ public class DashboardController {
             @RequestParam(required = false) LocalDate date,
             @RequestParam(required = false) Long doctorId
     ) {
-        return ResponseEntity.ok(dashboardService.getTodayQueue(clinicId, date, doctorId));
+        // Sequence queue वाचण्याआधी घ्या: client इथून पुढचे events apply करेल (upsert असल्याने duplicate चालतो)
+        long sequence = queueEventService.currentSequence(clinicId);
+        List<Map<String, Object>> queue = dashboardService.getTodayQueue(clinicId, date, doctorId);
+        return ResponseEntity.ok()
+                .header("X-QUEUE-SEQUENCE", String.valueOf(sequence))
+                .header("X-QUEUE-STREAM", queueEventService.getStreamId())
+                .body(queue);
+    }
+
+    // 🔁 Resync: WebSocket reconnect नंतर किंवा sequence मध्ये gap दिसल्यावर
+    @GetMapping("/queue/events")
+    public ResponseEntity<QueueEventReplay> getQueueEvents(
+            @RequestHeader("X-CLINIC-ID") Long clinicId,
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(required = false) String streamId
+    ) {
+        return ResponseEntity.ok(queueEventService.eventsSince(clinicId, since, streamId));
+    }
+
+    // 📊 WebSocket coalescing counters (events received vs frames actually sent)
+    @GetMapping("/broadcast/stats")
+    public ResponseEntity<Map<String, Object>> getBroadcastStats() {
+        return ResponseEntity.ok(broadcastDispatcher.getStats());
     }
 
     @GetMapping("/appointments/clinic")
@@ -62,8 +90,7 @@ public class DashboardController {
             @RequestHeader("X-CLINIC-ID") Long clinicId,
             @RequestParam(required = false) LocalDate date
     ) {
-        LocalDate queryDate = date != null ? date : LocalDate.now();
-        return ResponseEntity.ok(visitRepository.countByVisitDateAndClinicId(queryDate, clinicId));
+        return ResponseEntity.ok(todayStatsService.getStats(clinicId, date, null).getTotalPatients());
     }
 
     @PutMapping("/visit/{id}/arrive")
@@ -84,6 +111,13 @@ public class DashboardController {
         return ResponseEntity.ok().build();
     }
 
+    // 🔀 Batch reorder with optimistic check (409 जर queue मधेच बदलली असेल)
+    @PutMapping("/queue/reorder/batch")
+    public ResponseEntity<Void> reorderBatch(@RequestBody QueueReorderRequest request) {
+        dashboardService.reorderQueue(request);
+        return ResponseEntity.ok().build();
+    }
+
     @GetMapping("/visit/{id}")
     public ResponseEntity<Map<String, Object>> getVisitDetails(@PathVariable Long id) {
         return ResponseEntity.ok(dashboardService.getVisitDetails(id));
@@ -112,26 +146,17 @@ public class DashboardController {
             @RequestHeader("X-CLINIC-ID") Long clinicId,
             @RequestParam(required = false) Long doctorId
     ) {
-        LocalDate today = LocalDate.now();
-
         log.info("📊 Fetching Today's Stats for Clinic: {}, Doctor: {}", clinicId, doctorId);
 
         Map<String, Object> stats = new HashMap<>();
 
         try {
-            if (doctorId != null) {
-                // 🏥 Doctor-specific stats
-                stats.put("totalPatients", getDoctorTotalPatients(today, clinicId, doctorId));
-                stats.put("totalCollection", getDoctorTotalCollection(today, clinicId, doctorId));
-                stats.put("waitingCount", getDoctorWaitingCount(today, clinicId, doctorId));
-                stats.put("completedCount", getDoctorCompletedCount(today, clinicId, doctorId));
-            } else {
-                // 🏢 Clinic-wide stats (for Receptionist)
-                stats.put("totalPatients", getClinicTotalPatients(today, clinicId));
-                stats.put("totalCollection", getClinicTotalCollection(today, clinicId));
-                stats.put("waitingCount", getClinicWaitingCount(today, clinicId));
-                stats.put("completedCount", getClinicCompletedCount(today, clinicId));
-            }
+            // doctorId असेल तर त्या डॉक्टरचे, नाहीतर clinic-wide (Receptionist). एकाच snapshot मधून
+            TodayStatsRow today = todayStatsService.getStats(clinicId, null, doctorId);
+            stats.put("totalPatients", today.getTotalPatients());
+            stats.put("totalCollection", today.getTotalCollection());
+            stats.put("waitingCount", today.getWaitingCount());
+            stats.put("completedCount", today.getCompletedCount());
 
             log.info("✅ Stats Retrieved: {}", stats);
             return ResponseEntity.ok(stats);
@@ -146,62 +171,4 @@ public class DashboardController {
             return ResponseEntity.ok(stats);
         }
     }
-
-    // ==================== CLINIC-WIDE METHODS ====================
-
-    private long getClinicTotalPatients(LocalDate date, Long clinicId) {
-        // आजचे सर्व visits (सर्व statuses)
-        return visitRepository.countByVisitDateAndClinicId(date, clinicId);
-    }
-
-    private Double getClinicTotalCollection(LocalDate date, Long clinicId) {
-        // आजचे completed visits चे एकूण पैसे
-        Double collection = visitRepository.getDailyCollection(date, clinicId);
-        return collection != null ? collection : 0.0;
-    }
-
-    private long getClinicWaitingCount(LocalDate date, Long clinicId) {
-        // आजचे ARRIVED status visits
-        return visitRepository.countByVisitDateAndClinicIdAndStatus(
-                date, clinicId, VisitStatus.ARRIVED
-        );
-    }
-
-    private long getClinicCompletedCount(LocalDate date, Long clinicId) {
-        // आजचे COMPLETED status visits
-        return visitRepository.countByVisitDateAndClinicIdAndStatus(
-                date, clinicId, VisitStatus.COMPLETED
-        );
-    }
-
-    // ==================== DOCTOR-SPECIFIC METHODS ====================
-
-    private long getDoctorTotalPatients(LocalDate date, Long clinicId, Long doctorId) {
-        // या डॉक्टरचे आजचे सर्व visits
-        return visitRepository.countByVisitDateAndClinicIdAndDoctorId(
-                date, clinicId, doctorId
-        );
-    }
-
-    private Double getDoctorTotalCollection(LocalDate date, Long clinicId, Long doctorId) {
-        // या डॉक्टरचे completed visits चे पैसे
-        Double collection = visitRepository.getDailyCollectionByDoctor(
-                date, clinicId, doctorId
-        );
-        return collection != null ? collection : 0.0;
-    }
-
-    private long getDoctorWaitingCount(LocalDate date, Long clinicId, Long doctorId) {
-        // या डॉक्टरचे waiting patients
-        return visitRepository.countByVisitDateAndClinicIdAndDoctorIdAndStatus(
-                date, clinicId, doctorId, VisitStatus.ARRIVED
-        );
-    }
-
-    private long getDoctorCompletedCount(LocalDate date, Long clinicId, Long doctorId) {
-        // या डॉक्टरचे completed patients
-        return visitRepository.countByVisitDateAndClinicIdAndDoctorIdAndStatus(
-                date, clinicId, doctorId, VisitStatus.COMPLETED
-        );
-    }
-}
\ No newline at end of file
+}
@@ -3,6 +3,7 @@ package com.prajyotsurgicare.clinic.controller;
 import com.prajyotsurgicare.clinic.dto.MedicalHistoryResponse;
 import com.prajyotsurgicare.clinic.dto.MedicalInfoRequest;
 import com.prajyotsurgicare.clinic.service.DoctorDashboardService; // ✅ New Service Used
+import com.prajyotsurgicare.clinic.service.PrescriptionSearchService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -17,6 +18,7 @@ import java.util.Map;
 public class DoctorDashboardController { // ✅ Renamed Class
 
     private final DoctorDashboardService doctorService; // ✅ Using specific service
+    private final PrescriptionSearchService prescriptionSearchService;
 
     // 1. GET QUEUE
     @GetMapping("/my-queue")
@@ -61,4 +63,18 @@ public class DoctorDashboardController { // ✅ Renamed Class
     public ResponseEntity<List<MedicalHistoryResponse>> getHistory(@PathVariable Long patientId) {
         return ResponseEntity.ok(doctorService.getPatientHistory(patientId));
     }
+
+    // 🔍 Prescription text search (note + diagnosis + procedures), उदा. ?q=paracetamol&from=2025-01-01
+    // doctorId न दिल्यास (किंवा 0) clinic चे सर्व doctors
+    @GetMapping("/prescriptions/search")
+    public ResponseEntity<Map<String, Object>> searchPrescriptions(
+            @RequestHeader("X-CLINIC-ID") Long clinicId,
+            @RequestParam String q,
+            @RequestParam(required = false) Long doctorId,
+            @RequestParam(required = false) LocalDate from,
+            @RequestParam(required = false) LocalDate to,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(prescriptionSearchService.search(clinicId, doctorId, q, from, to, page, size));
+    }
 }
\ No newline at end of file
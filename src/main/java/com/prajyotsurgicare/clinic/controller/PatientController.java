@@ -4,6 +4,7 @@ import com.prajyotsurgicare.clinic.dto.*;
 import com.prajyotsurgicare.clinic.entity.Patient;
 import com.prajyotsurgicare.clinic.repository.PatientRepository;
 import com.prajyotsurgicare.clinic.repository.VisitRepository;
+import com.prajyotsurgicare.clinic.service.PatientEnrichmentService;
 import com.prajyotsurgicare.clinic.service.PatientService;
 import com.prajyotsurgicare.clinic.service.VisitService;
 import jakarta.validation.Valid;
@@ -30,6 +31,10 @@ public class PatientController {
     private final VisitService visitService;
     private final VisitRepository visitRepository;
     private final PatientRepository patientRepository;
+    private final PatientEnrichmentService patientEnrichmentService;
+
+    // 🔒 Search hard cap: mobile "98" सारख्या query ने हजारो rows येऊ नयेत
+    private static final int MAX_SEARCH_PAGE_SIZE = 50;
 
     // ⚠️ OLD / LEGACY API
     @PostMapping("/register")
@@ -40,9 +45,8 @@ public class PatientController {
 
         Patient patient = patientService.getOrCreatePatient(request);
         visitService.createVisitWithClinic(patient, request, 1L);
-        long totalVisits = visitRepository.countByPatientId(patient.getId());
 
-        return ResponseEntity.ok(mapToResponse(patient, totalVisits));
+        return ResponseEntity.ok(mapToResponse(patient));
     }
 
   /*  // ✅ NEW API
@@ -70,15 +74,22 @@ public class PatientController {
       }
       // -----------------------------------------------------------
 
-      long totalVisits = visitRepository.countByPatientId(patient.getId());
-      return ResponseEntity.ok(mapToResponse(patient, totalVisits));
+      return ResponseEntity.ok(mapToResponse(patient));
   }
     @GetMapping("/search")
-    public ResponseEntity<List<PatientResponse>> searchPatients(@RequestParam String query) {
-        List<Patient> patients = patientService.searchPatients(query);
+    public ResponseEntity<List<PatientResponse>> searchPatients(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_SEARCH_PAGE_SIZE);
+        List<Patient> patients = patientService.searchPatients(query, Math.max(page, 0), pageSize);
+
+        // 🔥 सर्व results साठी stats एकाच query मध्ये
+        Map<Long, PatientVisitStats> stats = patientEnrichmentService.getVisitStats(
+                patients.stream().map(Patient::getId).toList());
         return ResponseEntity.ok(
                 patients.stream()
-                        .map(p -> mapToResponse(p, visitRepository.countByPatientId(p.getId())))
+                        .map(p -> mapToResponse(p, stats.get(p.getId())))
                         .toList()
         );
     }
@@ -88,33 +99,31 @@ public class PatientController {
             @PathVariable Long id,
             @RequestBody UpdatePatientRequest request) {
         Patient patient = patientService.updatePatient(id, request);
-        long visits = visitRepository.countByPatientId(patient.getId());
-        return ResponseEntity.ok(mapToResponse(patient, visits));
+        return ResponseEntity.ok(mapToResponse(patient));
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<PatientResponse> getPatientById(@PathVariable Long id) {
         Patient patient = patientService.getPatientById(id);
-        long visits = visitRepository.countByPatientId(patient.getId());
-        return ResponseEntity.ok(mapToResponse(patient, visits));
+        return ResponseEntity.ok(mapToResponse(patient));
+    }
+
+    // 🔥 HELPER METHODS
+    private PatientResponse mapToResponse(Patient patient) {
+        return mapToResponse(patient, patientEnrichmentService.getVisitStats(patient.getId()));
     }
-    // 🔥 HELPER METHOD (✅ FULLY FIXED)
-    private PatientResponse mapToResponse(Patient patient, long totalVisits) {
 
-        // ✅ CHANGE: Pass 'LocalDate.now()' as the second argument!
-        // कारण आपण Repository मध्ये @Param("today") ॲड केले आहे.
-        LocalDate nextFollowUp = visitRepository
-                .findNextFollowUpDate(patient.getId(), LocalDate.now())
-                .orElse(null);
+    private PatientResponse mapToResponse(Patient patient, PatientVisitStats stats) {
+        if (stats == null) stats = PatientVisitStats.empty(patient.getId());
 
         return PatientResponse.builder()
                 .id(patient.getId())
                 .name(patient.getName())
                 .mobile(patient.getMobile())
-                .totalVisits((int) totalVisits)
+                .totalVisits(stats.getTotalVisits().intValue())
                 .gender(patient.getGender() != null ? patient.getGender().name() : null)
                 .age(patient.getAge())
-                .followUpDate(nextFollowUp)
+                .followUpDate(stats.getNextFollowUp())
                 .build();
     }
 
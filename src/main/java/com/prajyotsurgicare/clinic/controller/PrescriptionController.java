@@ -1,38 +1,100 @@
 package com.prajyotsurgicare.clinic.controller;
 
+import com.prajyotsurgicare.clinic.dto.PdfRenderJob;
 import com.prajyotsurgicare.clinic.dto.PrescriptionRequest;
 import com.prajyotsurgicare.clinic.dto.PrescriptionView;
-import com.prajyotsurgicare.clinic.entity.PrescriptionFile;
+import com.prajyotsurgicare.clinic.dto.PrescriptionFileMeta;
+import com.prajyotsurgicare.clinic.exception.BadRequestException;
+import com.prajyotsurgicare.clinic.exception.NotFoundException;
+import com.prajyotsurgicare.clinic.service.PrescriptionBundleService;
+import com.prajyotsurgicare.clinic.service.PrescriptionFileCache;
+import com.prajyotsurgicare.clinic.service.PrescriptionRenderService;
 import com.prajyotsurgicare.clinic.service.PrescriptionService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.transaction.annotation.Transactional; // ✅ Import हे ॲड केले
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
+@Slf4j
 @RestController
 @RequestMapping("/api/prescription")
 @RequiredArgsConstructor
 public class PrescriptionController {
 
     private final PrescriptionService prescriptionService;
+    private final PrescriptionRenderService renderService;
+    private final PrescriptionBundleService bundleService;
+    private final PrescriptionFileCache fileCache;
 
     // ✅ NEW: Get Recent Prescriptions for Patient (History)
+    // पुढचे page: ?beforeId=<मागच्या page चा शेवटचा fileId>
     @GetMapping("/patient/{patientId}/recent")
-    public ResponseEntity<List<PrescriptionView>> getRecentPrescriptions(@PathVariable Long patientId) {
-        return ResponseEntity.ok(prescriptionService.getRecentPrescriptions(patientId));
+    public ResponseEntity<List<PrescriptionView>> getRecentPrescriptions(@PathVariable Long patientId,
+                                                                         @RequestParam(required = false) Long beforeId,
+                                                                         @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(prescriptionService.getRecentPrescriptions(patientId, beforeId, size));
+    }
+
+    // 📦 Referral साठी सर्व prescriptions एकाच download मध्ये: ?format=pdf (merged, default) किंवा zip
+    @GetMapping("/patient/{patientId}/bundle")
+    public ResponseEntity<StreamingResponseBody> downloadBundle(@PathVariable Long patientId,
+                                                                @RequestParam(defaultValue = "pdf") String format) {
+        boolean zip = "zip".equalsIgnoreCase(format);
+        if (!zip && !"pdf".equalsIgnoreCase(format)) {
+            throw new BadRequestException("format must be pdf or zip");
+        }
+        if (!bundleService.hasFiles(patientId)) {
+            return ResponseEntity.notFound().build();
+        }
+
+        StreamingResponseBody body = out -> {
+            if (zip) {
+                bundleService.writeZip(patientId, out);
+            } else {
+                bundleService.writeMergedPdf(patientId, out);
+            }
+        };
+        String fileName = "patient_" + patientId + "_prescriptions." + (zip ? "zip" : "pdf");
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .cacheControl(CacheControl.noStore())
+                .contentType(zip ? MediaType.parseMediaType("application/zip") : MediaType.APPLICATION_PDF)
+                .body(body);
     }
 
     // 1. 👨‍⚕️ DOCTOR: Generate PDF (Stylus + Text)
+    // Render background मध्ये होतो: 202 + jobId, तयार झाल्यावर WebSocket वर PDF_READY
     @PostMapping("/{visitId}/generate")
-    public ResponseEntity<Void> generatePdf(@PathVariable Long visitId, @RequestBody PrescriptionRequest request) {
-        prescriptionService.generateAndSavePdf(visitId, request.getTextNote(), request.getImageBase64());
-        return ResponseEntity.ok().build();
+    public ResponseEntity<PdfRenderJob> generatePdf(@PathVariable Long visitId, @RequestBody PrescriptionRequest request) {
+        PdfRenderJob job = renderService.submit(visitId, request.getTextNote(), request.getImageBase64());
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/prescription/jobs/" + job.getJobId()))
+                .body(job);
+    }
+
+    // 📄 PDF job status: QUEUED / RENDERING / DONE (fileId सोबत) / FAILED
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<PdfRenderJob> getRenderJob(@PathVariable String jobId) {
+        return renderService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 
     // 2. 👩‍💼 RECEPTIONIST: Upload Photo
@@ -42,24 +104,39 @@ public class PrescriptionController {
         return ResponseEntity.ok().build();
     }
 
-    // 🔥🔥 CRITICAL FIX: Added @Transactional here
-    // हे ॲड केल्यामुळे Postgres LOB एरर येणार नाही
+    // 📥 File heap मध्ये न घेता stream होते; Range (partial download) आणि If-None-Match (304) चालतात.
+    // Legacy LOB service च्या readOnly transaction मध्येच load होतो. इथे transaction नको, कारण
+    // service मधील "not found" exception ने तो rollback-only होऊन 404 ऐवजी 500 जात होता.
+    // फक्त "नाही सापडली" = 404; storage/DB errors GlobalExceptionHandler कडे (500) जातात.
     @GetMapping("/view/{fileId}")
-    @Transactional(readOnly = true)
-    public ResponseEntity<byte[]> viewPrescription(@PathVariable Long fileId) {
+    public ResponseEntity<Resource> viewPrescription(@PathVariable Long fileId, WebRequest request) {
         try {
-            System.out.println("🔍 Attempting to fetch file ID: " + fileId);
-
-            PrescriptionFile file = prescriptionService.getFile(fileId);
+            PrescriptionFileMeta file = prescriptionService.getFileMeta(fileId);
+            // File id ची content कधीच बदलत नाही → browser/proxy कायमचे cache करू शकतात (private: patient data)
+            return serveFile(file, request, CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable());
+        } catch (NotFoundException e) {
+            log.warn("❌ Prescription file {} not available: {}", fileId, e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
 
-            System.out.println("✅ File found: " + file.getFileName());
+    // 🖼️ Tablet list view साठी लहान images. Background मध्ये तयार होतात, तोपर्यंत 404.
+    @GetMapping("/view/{fileId}/thumbnail")
+    public ResponseEntity<Resource> viewThumbnail(@PathVariable Long fileId, WebRequest request) {
+        try {
+            PrescriptionFileMeta file = prescriptionService.getFileMeta(fileId);
+            // लहान thumbnails memory मधूनच
+            return serveDerived(file.getThumbnailKey(), request, key -> prescriptionService.getThumbnail(file));
+        } catch (NotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
 
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + file.getFileName() + "\"")
-                    .contentType(MediaType.parseMediaType(file.getFileType()))
-                    .body(file.getData()); // इथेच एरर येत होता, आता @Transactional मुळे तो फिक्स होईल.
-        } catch (RuntimeException e) {
-            System.err.println("❌ File not found: " + fileId + " - " + e.getMessage());
+    @GetMapping("/view/{fileId}/preview")
+    public ResponseEntity<Resource> viewPreview(@PathVariable Long fileId, WebRequest request) {
+        try {
+            return serveDerived(prescriptionService.getFileMeta(fileId).getPreviewKey(), request, prescriptionService::getBlob);
+        } catch (NotFoundException e) {
             return ResponseEntity.notFound().build();
         }
     }
@@ -71,20 +148,68 @@ public class PrescriptionController {
     }
 
     // ⚠️ ANGULAR COMPATIBILITY (Old Endpoint)
-    // 🔥🔥 Fix here as well
     @GetMapping("/{visitId}/view")
-    @Transactional(readOnly = true)
-    public ResponseEntity<byte[]> viewPrescriptionByVisitId(@PathVariable Long visitId) {
+    public ResponseEntity<Resource> viewPrescriptionByVisitId(@PathVariable Long visitId, WebRequest request) {
         try {
             // Service मधून Visit ID नुसार लेटेस्ट फाईल आणा
-            PrescriptionFile file = prescriptionService.getLatestFileByVisitId(visitId);
+            PrescriptionFileMeta file = prescriptionService.getLatestFileByVisitId(visitId);
+            // नवीन file upload झाली तर हाच URL दुसरी file देतो, म्हणून प्रत्येक वेळी ETag ने revalidate
+            return serveFile(file, request, CacheControl.noCache().cachePrivate());
+        } catch (NotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // 📊 Storage report: dedup आणि compression ने वाचलेले bytes
+    @GetMapping("/storage/report")
+    public ResponseEntity<Map<String, Object>> getStorageReport() {
+        return ResponseEntity.ok(prescriptionService.getStorageReport());
+    }
 
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + file.getFileName() + "\"")
-                    .contentType(MediaType.parseMediaType(file.getFileType()))
-                    .body(file.getData());
-        } catch (RuntimeException e) {
+    // 📊 Metadata/thumbnail cache चे hit/miss
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(fileCache.getStats());
+    }
+
+    private ResponseEntity<Resource> serveDerived(String key, WebRequest request, Function<String, Resource> loader) {
+        if (key == null) {
             return ResponseEntity.notFound().build();
         }
+        CacheControl cacheControl = CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable();
+        String eTag = "\"" + key + "\"";
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(cacheControl)
+                .contentType(MediaType.IMAGE_JPEG)
+                .body(loader.apply(key));
+    }
+
+    private ResponseEntity<Resource> serveFile(PrescriptionFileMeta file, WebRequest request, CacheControl cacheControl) {
+        String eTag = prescriptionService.getETag(file);
+        // Client कडे आधीच हीच file असेल तर blob उघडायची गरजच नाही (ETag header checkNotModified लावतो)
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+
+        MediaType mediaType = file.getFileType() != null
+                ? MediaType.parseMediaType(file.getFileType())
+                : MediaType.APPLICATION_OCTET_STREAM;
+
+        // Range header असेल तर Spring स्वतः 206 + फक्त मागितलेला भाग पाठवतो
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.inline()
+                        .filename(file.getFileName() != null ? file.getFileName() : "prescription", StandardCharsets.UTF_8)
+                        .build().toString())
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .eTag(eTag)
+                .cacheControl(cacheControl)
+                .contentType(mediaType)
+                .body(prescriptionService.getContent(file));
     }
-}
\ No newline at end of file
+}
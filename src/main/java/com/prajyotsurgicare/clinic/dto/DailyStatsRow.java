@@ -0,0 +1,22 @@
+package com.prajyotsurgicare.clinic.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+// 📊 एका (date, clinic, doctor) ची बेरीज: rollup table किंवा visits वरच्या GROUP BY मधून
+@Getter
+@AllArgsConstructor
+public class DailyStatsRow {
+    private LocalDate date;
+    private Long clinicId;
+    private Long doctorId;
+    private String doctorName;
+    private Long visits;
+    private Double consultation;
+    private Double otherCharges;
+    private Double total;
+    private Long newPatients;
+    private Long followUps;
+}
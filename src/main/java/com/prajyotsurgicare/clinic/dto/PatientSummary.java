@@ -0,0 +1,20 @@
+package com.prajyotsurgicare.clinic.dto;
+
+import com.prajyotsurgicare.clinic.enums.Gender;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+// ✅ Patient list row: patient columns + visit count + next follow-up (एकाच query मधून)
+@Getter
+@AllArgsConstructor
+public class PatientSummary {
+    private Long id;
+    private String name;
+    private String mobile;
+    private Gender gender;
+    private Integer age;
+    private Long totalVisits;
+    private LocalDate nextFollowUp;
+}
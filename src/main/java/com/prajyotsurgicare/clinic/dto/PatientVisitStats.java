@@ -0,0 +1,19 @@
+package com.prajyotsurgicare.clinic.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+// ✅ एका पेशंटचे visit count + next follow-up (bulk enrichment साठी)
+@Getter
+@AllArgsConstructor
+public class PatientVisitStats {
+    private Long patientId;
+    private Long totalVisits;
+    private LocalDate nextFollowUp;
+
+    public static PatientVisitStats empty(Long patientId) {
+        return new PatientVisitStats(patientId, 0L, null);
+    }
+}
@@ -0,0 +1,30 @@
+package com.prajyotsurgicare.clinic.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.prajyotsurgicare.clinic.enums.PdfRenderStatus;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Instant;
+
+// 📄 PDF render job ची status (tablet poll करते किंवा WebSocket वर PDF_READY ऐकते)
+@Getter
+@Builder(toBuilder = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PdfRenderJob {
+    private String jobId;
+    private Long visitId;
+    @JsonIgnore
+    private Long clinicId;
+    private PdfRenderStatus status;
+    private Long fileId;
+    private String error;
+    private Instant createdAt;
+    private Instant updatedAt;
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return status == PdfRenderStatus.DONE || status == PdfRenderStatus.FAILED;
+    }
+}
@@ -0,0 +1,23 @@
+package com.prajyotsurgicare.clinic.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+// Prescription file ची फक्त metadata (LOB column शिवाय)
+@Getter
+@AllArgsConstructor
+public class PrescriptionFileMeta {
+    private Long id;
+    private Long visitId;
+    private String fileName;
+    private String fileType;
+    private String storageKey;
+    private Long sizeBytes;
+    private String contentHash;
+    private String contentEncoding;
+    private String previewKey;
+    private String thumbnailKey;
+    private LocalDate visitDate;
+}
@@ -0,0 +1,23 @@
+package com.prajyotsurgicare.clinic.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.awt.image.BufferedImage;
+import java.time.LocalDate;
+
+// PDF render साठी लागणारे सर्व काही (render करताना DB ला हात लावायची गरज नाही)
+@Getter
+@Builder
+public class PrescriptionPdfContent {
+    private Long visitId;
+    private Long clinicId;
+    private String clinicName;
+    private String clinicAddress;
+    private LocalDate visitDate;
+    private String doctorName;
+    private String patientName;
+    private String textNote;
+    // आधीच normalize केलेली 1-bit print image (null = drawing नाही). Queue मध्ये मूळ base64 (MBs) ठेवत नाही.
+    private BufferedImage stylusImage;
+}
@@ -11,4 +11,6 @@ public class PrescriptionView {
     private Long fileId;
     private String date;
     private String fileName;
+    private String fileType;
+    private Long sizeBytes;
 }
\ No newline at end of file
@@ -0,0 +1,73 @@
+package com.prajyotsurgicare.clinic.dto;
+
+import com.prajyotsurgicare.clinic.entity.Visit;
+import com.prajyotsurgicare.clinic.enums.VisitStatus;
+import com.prajyotsurgicare.clinic.enums.VisitType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+// ✅ Live queue मधली एक row (Visit entity चा immutable snapshot, lazy loading नाही)
+@Getter
+@Builder(toBuilder = true)
+@AllArgsConstructor
+public class QueueEntry {
+    private final Long visitId;
+    private final Long clinicId;
+    private final LocalDate visitDate;
+    private final Integer tokenNumber;
+    private final Integer queueOrder;
+    private final String patientName;
+    private final String mobile;
+    private final VisitType visitType;
+    private final VisitStatus status;
+    private final boolean emergency;
+    private final Long doctorId;
+    private final String doctorName;
+    private final LocalDateTime completionDateTime;
+
+    public static QueueEntry from(Visit v) {
+        return QueueEntry.builder()
+                .visitId(v.getId())
+                .clinicId(v.getClinic().getId())
+                .visitDate(v.getVisitDate())
+                .tokenNumber(v.getTokenNumber())
+                .queueOrder(v.getQueueOrder())
+                .patientName(v.getPatient().getName())
+                .mobile(v.getPatient().getMobile())
+                .visitType(v.getVisitType())
+                .status(v.getStatus())
+                .emergency(v.isEmergency())
+                .doctorId(v.getDoctor() != null ? v.getDoctor().getId() : null)
+                .doctorName(v.getDoctor() != null ? v.getDoctor().getName() : null)
+                .completionDateTime(v.getCompletionDateTime())
+                .build();
+    }
+
+    // Queue API चा जुना response shape (DashboardService.mapToQueueMap सारखाच)
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("visitId", visitId);
+        map.put("tokenNumber", tokenNumber);
+        map.put("patientName", patientName);
+        map.put("visitType", visitType);
+        map.put("status", status);
+        map.put("isEmergency", emergency);
+        map.put("doctorName", doctorName);
+        map.put("mobile", mobile);
+        map.put("queueOrder", queueOrder);
+
+        // Completion Time जर व्हिजिट पूर्ण झाली असेल तर
+        if (status == VisitStatus.COMPLETED && completionDateTime != null) {
+            map.put("time", completionDateTime);
+        } else {
+            map.put("time", "In Queue");
+        }
+        return map;
+    }
+}
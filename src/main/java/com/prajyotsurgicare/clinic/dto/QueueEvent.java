@@ -0,0 +1,28 @@
+package com.prajyotsurgicare.clinic.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.prajyotsurgicare.clinic.enums.QueueEventType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+// 📢 रांगेतला एक बदल (delta). Client हे local queue वर apply करतो, पूर्ण queue refetch नाही.
+@Getter
+@Builder(toBuilder = true)
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class QueueEvent {
+    private final long sequence;       // per clinic monotonically increasing
+    private final Long clinicId;
+    private final QueueEventType type;
+    private final Long visitId;
+    private final LocalDate visitDate;
+    private final Map<String, Object> row;  // VISIT_ADDED / STATUS_CHANGED साठी पूर्ण queue row
+    private final List<Long> visitIds;      // REORDERED साठी नवीन क्रम
+    private final Instant timestamp;
+}
@@ -0,0 +1,16 @@
+package com.prajyotsurgicare.clinic.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+// 🔁 Resync response: 'since' नंतरचे events, किंवा resyncRequired=true असेल तर पूर्ण queue परत आणा
+@Getter
+@AllArgsConstructor
+public class QueueEventReplay {
+    private String streamId;        // server restart झाला तर बदलतो
+    private long latestSequence;
+    private boolean resyncRequired;
+    private List<QueueEvent> events;
+}
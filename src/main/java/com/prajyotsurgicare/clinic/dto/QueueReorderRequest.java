@@ -0,0 +1,19 @@
+package com.prajyotsurgicare.clinic.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+// 🔀 Batch reorder: items नवीन क्रमाने.
+// expectedQueueOrder = client ने पाहिलेली queueOrder; दुसऱ्या receptionist ने मधेच बदलली असेल तर 409.
+@Data
+public class QueueReorderRequest {
+
+    private List<Item> items;
+
+    @Data
+    public static class Item {
+        private Long visitId;
+        private Integer expectedQueueOrder;
+    }
+}
@@ -0,0 +1,15 @@
+package com.prajyotsurgicare.clinic.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// 📊 एका दिवसाचे dashboard header आकडे (एका doctor चे, किंवा सर्व doctors ची बेरीज)
+@Getter
+@AllArgsConstructor
+public class TodayStatsRow {
+    private Long doctorId;
+    private Long totalPatients;
+    private Long waitingCount;
+    private Long completedCount;
+    private Double totalCollection;
+}
@@ -0,0 +1,20 @@
+package com.prajyotsurgicare.clinic.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// 📈 Visits वरच्या GROUP BY चा एक गट. key = VisitType / doctor name / visit date (query प्रमाणे)
+@Getter
+@AllArgsConstructor
+public class VisitAggregate {
+    private Object key;
+    private Long visits;
+    private Double consultation;
+    private Double otherCharges;
+    private Double total;
+
+    // GROUP BY शिवाय (एकूण बेरीज)
+    public VisitAggregate(Long visits, Double consultation, Double otherCharges, Double total) {
+        this(null, visits, consultation, otherCharges, total);
+    }
+}
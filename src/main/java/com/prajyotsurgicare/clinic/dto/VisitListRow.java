@@ -0,0 +1,20 @@
+package com.prajyotsurgicare.clinic.dto;
+
+import com.prajyotsurgicare.clinic.enums.VisitType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+// 📋 Analytics drill-down list ची एक row (patient/doctor नावे join मधून, entity load नाही)
+@Getter
+@AllArgsConstructor
+public class VisitListRow {
+    private Long visitId;
+    private Integer tokenNumber;
+    private String patientName;
+    private String doctorName;
+    private Double totalAmount;
+    private VisitType visitType;
+    private LocalDate visitDate;
+}
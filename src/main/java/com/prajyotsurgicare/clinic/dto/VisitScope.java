@@ -0,0 +1,16 @@
+package com.prajyotsurgicare.clinic.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+// ✅ Reorder validation साठी हलकी projection (entity load नाही)
+@Getter
+@AllArgsConstructor
+public class VisitScope {
+    private Long visitId;
+    private Long clinicId;
+    private LocalDate visitDate;
+    private Integer queueOrder;
+}
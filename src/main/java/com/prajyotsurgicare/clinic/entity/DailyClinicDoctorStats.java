@@ -0,0 +1,60 @@
+package com.prajyotsurgicare.clinic.entity;
+
+import jakarta.persistence.*;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+// 📊 Analytics rollup: प्रत्येक (date, clinic, doctor) साठी COMPLETED visits ची बेरीज.
+// Visit complete/बदलला की DailyStatsService delta लावतो, DailyStatsRollupJob visits वरून परत मोजतो.
+@Entity
+@Table(name = "daily_clinic_doctor_stats",
+        indexes = @Index(name = "idx_daily_stats_clinic_date", columnList = "clinic_id, stat_date"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class DailyClinicDoctorStats {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(name = "visit_count", nullable = false)
+    private Long visitCount = 0L;
+
+    @Column(name = "consultation_total", nullable = false)
+    private Double consultationTotal = 0.0;
+
+    @Column(name = "other_charges_total", nullable = false)
+    private Double otherChargesTotal = 0.0;
+
+    @Column(name = "total_amount", nullable = false)
+    private Double totalAmount = 0.0;
+
+    // New = OPD + ON_CALL, FollowUp = FOLLOW_UP (Analytics pie chart प्रमाणे)
+    @Column(name = "new_count", nullable = false)
+    private Long newCount = 0L;
+
+    @Column(name = "follow_up_count", nullable = false)
+    private Long followUpCount = 0L;
+
+    @Embeddable
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+
+        @Column(name = "stat_date", nullable = false)
+        private LocalDate statDate;
+
+        @Column(name = "clinic_id", nullable = false)
+        private Long clinicId;
+
+        @Column(name = "doctor_id", nullable = false)
+        private Long doctorId;
+    }
+}
@@ -17,11 +17,31 @@ public class PrescriptionFile {
     @JoinColumn(name = "visit_id", nullable = false)
     private Visit visit;
 
+    // ⚠️ LEGACY: जुन्या rows चे bytes. नवीन files BlobStore मध्ये जातात (storageKey),
+    // PrescriptionBlobMigrationJob हे column रिकामे करतो.
     @Lob
-    // ❌ OLD: @Column(columnDefinition = "LONGBLOB")  <- हे काढलं
-    // ✅ NEW: फक्त @Lob ठेवा, Postgres आपोआप हँडल करेल
     private byte[] data;
 
+    // 🗂️ BlobStore key (SHA-256)
+    @Column(name = "storage_key", length = 128)
+    private String storageKey;
+
+    private Long sizeBytes;
+
+    @Column(length = 64)
+    private String contentHash;
+
+    // null = जसेच्या तसे, "gzip" = storageKey वरचे bytes compressed (StoredBlob पहा)
+    @Column(length = 16)
+    private String contentEncoding;
+
+    // 🖼️ Background मध्ये बनणारे JPEG preview/thumbnail (BlobStore keys, फक्त images साठी)
+    @Column(length = 128)
+    private String previewKey;
+
+    @Column(length = 128)
+    private String thumbnailKey;
+
     private String fileName;
     private String fileType;
 
@@ -0,0 +1,47 @@
+package com.prajyotsurgicare.clinic.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// 🗃️ एका unique content ची एकच प्रत: content hash (मूळ bytes चा SHA-256) → BlobStore key.
+// तीच scan दोनदा upload झाली तर फक्त refCount वाढतो. Compress झाले असल्यास storageKey
+// compressed bytes चा असतो आणि contentEncoding = "gzip".
+@Entity
+@Table(name = "stored_blobs")
+@Getter
+@Setter
+@NoArgsConstructor
+public class StoredBlob {
+
+    @Id
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "storage_key", length = 128, nullable = false)
+    private String storageKey;
+
+    // null = जसेच्या तसे, "gzip" = वाचताना decompress
+    @Column(name = "content_encoding", length = 16)
+    private String contentEncoding;
+
+    @Column(name = "original_size", nullable = false)
+    private Long originalSize;
+
+    @Column(name = "stored_size", nullable = false)
+    private Long storedSize;
+
+    // किती prescription_files rows हा content वापरतात (StoredBlobSweepJob रोज DB वरून दुरुस्त करतो)
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // शेवटचा acquire/release: नुकतेच वापरलेले rows sweep grace period मध्ये सुटतात
+    @Column(name = "last_used_at", nullable = false)
+    private LocalDateTime lastUsedAt;
+}
@@ -0,0 +1,43 @@
+package com.prajyotsurgicare.clinic.entity;
+
+import jakarta.persistence.*;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+// 🔢 Token sequence: प्रत्येक (clinic, doctor, date) साठी शेवटचा दिलेला token.
+// Row lock मुळे दोन desks वरून एकाच वेळी registration झाले तरी duplicate token येत नाही.
+@Entity
+@Table(name = "token_counters")
+@Getter
+@Setter
+@NoArgsConstructor
+public class TokenCounter {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(name = "last_token", nullable = false)
+    private Integer lastToken;
+
+    @Embeddable
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+
+        @Column(name = "clinic_id", nullable = false)
+        private Long clinicId;
+
+        @Column(name = "doctor_id", nullable = false)
+        private Long doctorId;
+
+        @Column(name = "visit_date", nullable = false)
+        private LocalDate visitDate;
+    }
+}
@@ -0,0 +1,8 @@
+package com.prajyotsurgicare.clinic.enums;
+
+public enum PdfRenderStatus {
+    QUEUED,
+    RENDERING,
+    DONE,
+    FAILED
+}
@@ -0,0 +1,9 @@
+package com.prajyotsurgicare.clinic.enums;
+
+public enum QueueEventType {
+    VISIT_ADDED,     // नवीन row रांगेत आली
+    STATUS_CHANGED,  // row बदलली (status, emergency, billing...) - client ने upsert करावे
+    REORDERED,       // receptionist ने drag-drop करून क्रम बदलला
+    REMOVED,         // row रांगेतून गेली (उदा. BOOKED ला revert)
+    RESYNC           // delta ने सांगता येणार नाही असा बदल (patient rename/delete, reconcile) - client ने पूर्ण queue refetch करावी
+}
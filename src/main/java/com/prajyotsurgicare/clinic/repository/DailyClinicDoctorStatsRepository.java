@@ -0,0 +1,95 @@
+package com.prajyotsurgicare.clinic.repository;
+
+import com.prajyotsurgicare.clinic.dto.DailyStatsRow;
+import com.prajyotsurgicare.clinic.entity.DailyClinicDoctorStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailyClinicDoctorStatsRepository extends JpaRepository<DailyClinicDoctorStats, DailyClinicDoctorStats.Key> {
+
+    // 🔥 Atomic delta (Postgres). Row lock visit च्या transaction सोबत सुटतो, rollback झाला तर delta पण जातो.
+    @Modifying
+    @Query(value = """
+        INSERT INTO daily_clinic_doctor_stats (stat_date, clinic_id, doctor_id, visit_count, consultation_total,
+                                               other_charges_total, total_amount, new_count, follow_up_count)
+        VALUES (:date, :clinicId, :doctorId, :visits, :consultation, :otherCharges, :total, :newCount, :followUps)
+        ON CONFLICT (clinic_id, doctor_id, stat_date)
+        DO UPDATE SET visit_count = daily_clinic_doctor_stats.visit_count + EXCLUDED.visit_count,
+                      consultation_total = daily_clinic_doctor_stats.consultation_total + EXCLUDED.consultation_total,
+                      other_charges_total = daily_clinic_doctor_stats.other_charges_total + EXCLUDED.other_charges_total,
+                      total_amount = daily_clinic_doctor_stats.total_amount + EXCLUDED.total_amount,
+                      new_count = daily_clinic_doctor_stats.new_count + EXCLUDED.new_count,
+                      follow_up_count = daily_clinic_doctor_stats.follow_up_count + EXCLUDED.follow_up_count
+    """, nativeQuery = true)
+    void upsertDelta(@Param("date") LocalDate date,
+                     @Param("clinicId") Long clinicId,
+                     @Param("doctorId") Long doctorId,
+                     @Param("visits") long visits,
+                     @Param("consultation") double consultation,
+                     @Param("otherCharges") double otherCharges,
+                     @Param("total") double total,
+                     @Param("newCount") long newCount,
+                     @Param("followUps") long followUps);
+
+    // ⚠️ Non-Postgres fallback: आधी UPDATE, row नसेल तर service insert करतो
+    @Modifying
+    @Query("UPDATE DailyClinicDoctorStats s SET s.visitCount = s.visitCount + :visits, " +
+            "s.consultationTotal = s.consultationTotal + :consultation, " +
+            "s.otherChargesTotal = s.otherChargesTotal + :otherCharges, " +
+            "s.totalAmount = s.totalAmount + :total, " +
+            "s.newCount = s.newCount + :newCount, s.followUpCount = s.followUpCount + :followUps " +
+            "WHERE s.id.statDate = :date AND s.id.clinicId = :clinicId AND s.id.doctorId = :doctorId")
+    int addDelta(@Param("date") LocalDate date,
+                 @Param("clinicId") Long clinicId,
+                 @Param("doctorId") Long doctorId,
+                 @Param("visits") long visits,
+                 @Param("consultation") double consultation,
+                 @Param("otherCharges") double otherCharges,
+                 @Param("total") double total,
+                 @Param("newCount") long newCount,
+                 @Param("followUps") long followUps);
+
+    // =================================================================
+    // REBUILD (DailyStatsRollupJob)
+    // =================================================================
+
+    @Modifying
+    @Query("DELETE FROM DailyClinicDoctorStats s WHERE s.id.statDate BETWEEN :from AND :to")
+    int deleteRange(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Visit type buckets: DailyStatsService.snapshot / Analytics pie chart सारखेच
+    @Modifying
+    @Query(value = """
+        INSERT INTO daily_clinic_doctor_stats (stat_date, clinic_id, doctor_id, visit_count, consultation_total,
+                                               other_charges_total, total_amount, new_count, follow_up_count)
+        SELECT v.visit_date, v.clinic_id, v.doctor_id, COUNT(*),
+               COALESCE(SUM(v.consultation_fee), 0), COALESCE(SUM(v.other_charges), 0), COALESCE(SUM(v.total_amount), 0),
+               SUM(CASE WHEN v.visit_type IN ('OPD', 'ON_CALL') THEN 1 ELSE 0 END),
+               SUM(CASE WHEN v.visit_type = 'FOLLOW_UP' THEN 1 ELSE 0 END)
+        FROM visits v
+        WHERE v.status = 'COMPLETED' AND v.visit_date BETWEEN :from AND :to
+        GROUP BY v.visit_date, v.clinic_id, v.doctor_id
+    """, nativeQuery = true)
+    int insertFromVisits(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // =================================================================
+    // READ
+    // =================================================================
+
+    // doctorId 0 = सर्व doctors
+    @Query("SELECT new com.prajyotsurgicare.clinic.dto.DailyStatsRow(s.id.statDate, s.id.clinicId, s.id.doctorId, d.name, " +
+            "s.visitCount, s.consultationTotal, s.otherChargesTotal, s.totalAmount, s.newCount, s.followUpCount) " +
+            "FROM DailyClinicDoctorStats s, Doctor d " +
+            "WHERE d.id = s.id.doctorId AND s.id.clinicId = :clinicId " +
+            "AND (:doctorId = 0 OR s.id.doctorId = :doctorId) " +
+            "AND s.id.statDate BETWEEN :from AND :to AND s.visitCount > 0")
+    List<DailyStatsRow> findRows(@Param("clinicId") Long clinicId,
+                                 @Param("doctorId") Long doctorId,
+                                 @Param("from") LocalDate from,
+                                 @Param("to") LocalDate to);
+}
@@ -1,6 +1,9 @@
 package com.prajyotsurgicare.clinic.repository;
 
+import com.prajyotsurgicare.clinic.dto.PatientSummary;
 import com.prajyotsurgicare.clinic.entity.Patient;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -18,10 +21,75 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
     boolean existsByMobile(String mobile);
 
     List<Patient> findAllByOrderByCreatedAtDesc();
-    List<Patient> findByMobileContaining(String mobile);
+    // ✅ Paged search (hard cap controller मध्ये)
+    List<Patient> findByMobileContainingOrderByIdDesc(String mobile, Pageable pageable);
+    List<Patient> findByNameContainingIgnoreCaseOrderByIdDesc(String name, Pageable pageable);
 
-    List<Patient> findByNameContainingIgnoreCase(String name);
+    // 🔍 Trigram search (Postgres pg_trgm, indexes SearchIndexInitializer बनवतो)
+    // Prefix block नंतरचे typo-tolerant matches: GiST KNN (<<->) मुळे index जवळचे rows आधी देतो,
+    // म्हणजे सर्व matches rank करून मग LIMIT नाही. Prefix rows searchByNamePrefix ने आधीच दिले.
+    @Query(value = """
+        SELECT p.* FROM patients p
+        WHERE :term <% lower(p.name) AND lower(p.name) NOT LIKE :prefix
+        ORDER BY :term <<-> lower(p.name)
+        LIMIT :limit OFFSET :offset
+    """, nativeQuery = true)
+    List<Patient> searchByNameSimilar(@Param("term") String term, @Param("prefix") String prefix,
+                                      @Param("limit") int limit, @Param("offset") int offset);
+
+    // Prefix block किती rows चा (फक्त :cap पर्यंत मोजतो, पुढचे page कुठून सुरू ते ठरवायला)
+    @Query(value = """
+        SELECT count(*) FROM (
+            SELECT 1 FROM patients p WHERE lower(p.name) COLLATE "C" LIKE :prefix LIMIT :cap
+        ) matches
+    """, nativeQuery = true)
+    long countByNamePrefixUpTo(@Param("prefix") String prefix, @Param("cap") int cap);
+
+    // Name prefix: "C" collation मुळे (lower(name) COLLATE "C", id DESC) index मधूनच range आणि क्रम दोन्ही,
+    // हजारो prefix matches असले तरी फक्त page पुरते rows वाचले जातात
+    @Query(value = """
+        SELECT p.* FROM patients p
+        WHERE lower(p.name) COLLATE "C" LIKE :prefix
+        ORDER BY lower(p.name) COLLATE "C", p.id DESC
+        LIMIT :limit OFFSET :offset
+    """, nativeQuery = true)
+    List<Patient> searchByNamePrefix(@Param("prefix") String prefix,
+                                     @Param("limit") int limit, @Param("offset") int offset);
+
+    // 📱 Mobile (3+ अंक): prefix, मग suffix (शेवटचे अंक), मग कुठेही. '%x%' फक्त trigram GIN index वापरू शकतो
+    @Query(value = """
+        SELECT p.* FROM patients p
+        WHERE p.mobile LIKE '%' || :digits || '%'
+        ORDER BY CASE WHEN p.mobile LIKE :digits || '%' THEN 0
+                      WHEN p.mobile LIKE '%' || :digits THEN 1
+                      ELSE 2 END,
+                 p.id DESC
+        LIMIT :limit OFFSET :offset
+    """, nativeQuery = true)
+    List<Patient> searchByMobileRanked(@Param("digits") String digits,
+                                       @Param("limit") int limit, @Param("offset") int offset);
+
+    // 📱 Mobile (1-2 अंक): trigram ला अंक पुरेसे नाहीत, फक्त prefix (text_pattern_ops btree)
+    @Query(value = """
+        SELECT p.* FROM patients p
+        WHERE p.mobile LIKE :digits || '%'
+        ORDER BY p.mobile, p.id DESC
+        LIMIT :limit OFFSET :offset
+    """, nativeQuery = true)
+    List<Patient> searchByMobilePrefix(@Param("digits") String digits,
+                                       @Param("limit") int limit, @Param("offset") int offset);
     List<Patient> findAllByMobile(String mobile);
+
+    // 🔥 Patient list page: visits count आणि next follow-up एकाच GROUP BY मध्ये (N+1 नाही)
+    // ORDER BY id: क्रम ठरलेला नसेल तर pages मध्ये rows repeat/miss होतात (नवे patients आधी)
+    @Query(value = "SELECT new com.prajyotsurgicare.clinic.dto.PatientSummary(" +
+            "p.id, p.name, p.mobile, p.gender, p.age, COUNT(v.id), " +
+            "MIN(CASE WHEN v.followUpDate >= :today THEN v.followUpDate ELSE NULL END)) " +
+            "FROM Patient p LEFT JOIN Visit v ON v.patient = p " +
+            "GROUP BY p.id, p.name, p.mobile, p.gender, p.age " +
+            "ORDER BY p.id DESC",
+            countQuery = "SELECT COUNT(p) FROM Patient p")
+    Page<PatientSummary> findPatientSummaries(@Param("today") LocalDate today, Pageable pageable);
     @Modifying
     @Query("UPDATE Patient p SET p.followUpDate = :date WHERE p.id = :id")
     void updateFollowUpDateDirectly(@Param("id") Long id, @Param("date") LocalDate date);
@@ -1,24 +1,83 @@
 package com.prajyotsurgicare.clinic.repository;
 
+import com.prajyotsurgicare.clinic.dto.PrescriptionFileMeta;
 import com.prajyotsurgicare.clinic.entity.PrescriptionFile;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public interface PrescriptionFileRepository extends JpaRepository<PrescriptionFile, Long> {
 
+    // Listing/caching साठी projection: data (LOB) column कधीच select होत नाही
+    String META_SELECT = "SELECT new com.prajyotsurgicare.clinic.dto.PrescriptionFileMeta(" +
+            "pf.id, v.id, pf.fileName, pf.fileType, pf.storageKey, pf.sizeBytes, " +
+            "pf.contentHash, pf.contentEncoding, pf.previewKey, pf.thumbnailKey, v.visitDate) " +
+            "FROM PrescriptionFile pf JOIN pf.visit v ";
+
     // जुनी मेथड
     List<PrescriptionFile> findByVisitId(Long visitId);
     // ✅ Multiple Files साठी
     List<PrescriptionFile> findAllByVisitId(Long visitId);
 
-    // ✅ 🔥 FIXED QUERY (Changed 'patientId' to 'id')
-    @Query("SELECT pf FROM PrescriptionFile pf " +
-            "JOIN pf.visit v " +
-            "WHERE v.patient.id = :patientId " +  // 👈 HERE WAS THE ERROR
-            "ORDER BY pf.id DESC") // Or uploadedAt if available
-    List<PrescriptionFile> findRecentByPatientId(@Param("patientId") Long patientId);
+    // ✅ Recent prescriptions: फक्त metadata (blob column नाही), नवीन आधी.
+    // Keyset: पुढच्या page साठी मागच्या page चा शेवटचा id beforeId म्हणून द्या.
+    @Query(META_SELECT +
+            "WHERE v.patient.id = :patientId AND pf.id < :beforeId " +
+            "ORDER BY pf.id DESC")
+    List<PrescriptionFileMeta> findRecentMetaByPatientId(@Param("patientId") Long patientId,
+                                                         @Param("beforeId") Long beforeId,
+                                                         Pageable pageable);
+
+    @Query(META_SELECT + "WHERE pf.id = :id")
+    Optional<PrescriptionFileMeta> findMetaById(@Param("id") Long id);
+
+    // ✅ Visit च्या file ids (upload क्रमाने)
+    @Query("SELECT pf.id FROM PrescriptionFile pf WHERE pf.visit.id = :visitId ORDER BY pf.id")
+    List<Long> findIdsByVisitId(@Param("visitId") Long visitId);
+
+    // 📦 Bundle export: patient च्या files id क्रमाने batch मध्ये (keyset, blob column नाही)
+    @Query(META_SELECT +
+            "WHERE v.patient.id = :patientId AND pf.id > :afterId " +
+            "ORDER BY pf.id")
+    List<PrescriptionFileMeta> findMetaByPatientAfter(@Param("patientId") Long patientId,
+                                                      @Param("afterId") Long afterId,
+                                                      Pageable pageable);
+
+    // ⚡ hasFile साठी फक्त visit ids (blob column ला हात नाही, एका query मध्ये सर्व visits)
+    @Query("SELECT DISTINCT pf.visit.id FROM PrescriptionFile pf WHERE pf.visit.id IN :visitIds")
+    List<Long> findVisitIdsWithFiles(@Param("visitIds") Collection<Long> visitIds);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE PrescriptionFile pf SET pf.previewKey = :previewKey, pf.thumbnailKey = :thumbnailKey WHERE pf.id = :id")
+    int updatePreviewKeys(@Param("id") Long id,
+                          @Param("previewKey") String previewKey,
+                          @Param("thumbnailKey") String thumbnailKey);
+
+    // Patient delete आधी: कोणते StoredBlob refs सोडायचे
+    @Query("SELECT pf.contentHash FROM PrescriptionFile pf WHERE pf.visit.patient.id = :patientId AND pf.contentHash IS NOT NULL")
+    List<String> findContentHashesByPatientId(@Param("patientId") Long patientId);
+
+    @Query("SELECT COUNT(pf) FROM PrescriptionFile pf WHERE pf.storageKey IS NOT NULL")
+    long countStoredFiles();
+
+    // Dedup नसता तर लागली असती ती जागा
+    @Query("SELECT COALESCE(SUM(pf.sizeBytes), 0) FROM PrescriptionFile pf WHERE pf.storageKey IS NOT NULL")
+    long sumStoredFileSizes();
+
+    default Set<Long> visitIdsWithFiles(Collection<Long> visitIds) {
+        if (visitIds == null || visitIds.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(findVisitIdsWithFiles(visitIds));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,90 @@
+package com.prajyotsurgicare.clinic.repository;
+
+import com.prajyotsurgicare.clinic.entity.StoredBlob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+// Refcount बदल स्वतःच्या छोट्या transaction मध्ये (blob migration सारख्या मोठ्या transaction मध्ये
+// duplicate-key failure ने बाहेरचा transaction abort होऊ नये). चुकलेला count sweep दुरुस्त करतो.
+public interface StoredBlobRepository extends JpaRepository<StoredBlob, String> {
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query("UPDATE StoredBlob sb SET sb.refCount = sb.refCount + 1, sb.lastUsedAt = :now WHERE sb.contentHash = :hash")
+    int acquire(@Param("hash") String hash, @Param("now") LocalDateTime now);
+
+    // Primary key मुळे एकाच वेळी दोन inserts आले तर दुसरा DataIntegrityViolationException देतो
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query(value = "INSERT INTO stored_blobs (content_hash, storage_key, content_encoding, original_size, " +
+            "stored_size, ref_count, created_at, last_used_at) " +
+            "VALUES (:hash, :storageKey, :encoding, :originalSize, :storedSize, 1, :now, :now)", nativeQuery = true)
+    int insert(@Param("hash") String hash,
+               @Param("storageKey") String storageKey,
+               @Param("encoding") String encoding,
+               @Param("originalSize") long originalSize,
+               @Param("storedSize") long storedSize,
+               @Param("now") LocalDateTime now);
+
+    // afterCommit मधून call होतो, तिथे नवीन transaction च लागतो
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query("UPDATE StoredBlob sb SET sb.refCount = sb.refCount - 1, sb.lastUsedAt = :now " +
+            "WHERE sb.contentHash = :hash AND sb.refCount > 0")
+    int release(@Param("hash") String hash, @Param("now") LocalDateTime now);
+
+    // =================================================================
+    // StoredBlobSweepJob (timestamps Hibernate मधूनच bind, म्हणजे jdbc.time_zone सोबत सुसंगत)
+    // =================================================================
+
+    // StoredBlob आधीच्या files: प्रत्येक content hash साठी एक row
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO stored_blobs (content_hash, storage_key, content_encoding, original_size, stored_size, " +
+            "ref_count, created_at, last_used_at) " +
+            "SELECT pf.content_hash, MIN(pf.storage_key), NULL, MAX(pf.size_bytes), MAX(pf.size_bytes), COUNT(*), :now, :now " +
+            "FROM prescription_files pf " +
+            "WHERE pf.content_hash IS NOT NULL AND pf.storage_key IS NOT NULL AND pf.content_encoding IS NULL " +
+            "AND NOT EXISTS (SELECT 1 FROM stored_blobs sb WHERE sb.content_hash = pf.content_hash) " +
+            "GROUP BY pf.content_hash", nativeQuery = true)
+    int backfillFromFiles(@Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE stored_blobs SET ref_count = (SELECT COUNT(*) FROM prescription_files pf " +
+            "WHERE pf.content_hash = stored_blobs.content_hash) WHERE last_used_at < :cutoff", nativeQuery = true)
+    int recountReferences(@Param("cutoff") LocalDateTime cutoff);
+
+    @Query("SELECT sb FROM StoredBlob sb WHERE sb.refCount = 0 AND sb.lastUsedAt < :cutoff")
+    List<StoredBlob> findUnreferenced(@Param("cutoff") LocalDateTime cutoff);
+
+    // Row lock: blob delete करून row काढेपर्यंत त्याच hash चा acquire/insert थांबतो (नंतर तो blob परत लिहितो)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT sb FROM StoredBlob sb WHERE sb.contentHash = :hash AND sb.refCount = 0 AND sb.lastUsedAt < :cutoff")
+    Optional<StoredBlob> lockIfUnreferenced(@Param("hash") String hash, @Param("cutoff") LocalDateTime cutoff);
+
+    // मधल्या वेळात कोणी acquire केले असेल तर row राहते (0 परत येतो)
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM StoredBlob sb WHERE sb.contentHash = :hash AND sb.refCount = 0 AND sb.lastUsedAt < :cutoff")
+    int deleteIfUnreferenced(@Param("hash") String hash, @Param("cutoff") LocalDateTime cutoff);
+
+    @Query("SELECT COALESCE(SUM(sb.originalSize), 0) FROM StoredBlob sb")
+    long sumOriginalSize();
+
+    @Query("SELECT COALESCE(SUM(sb.storedSize), 0) FROM StoredBlob sb")
+    long sumStoredSize();
+
+    @Query("SELECT COUNT(sb) FROM StoredBlob sb WHERE sb.contentEncoding IS NOT NULL")
+    long countCompressed();
+}
@@ -0,0 +1,38 @@
+package com.prajyotsurgicare.clinic.repository;
+
+import com.prajyotsurgicare.clinic.entity.TokenCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+
+public interface TokenCounterRepository extends JpaRepository<TokenCounter, TokenCounter.Key> {
+
+    // 🌱 दिवसाची पहिली registration: आजच्या visits च्या MAX token वरून counter row तयार करा.
+    // Row आधीच असेल तर visits वर MAX query चालतच नाही. दोन desks एकाच वेळी आले तर ON CONFLICT एकालाच insert करू देतो.
+    @Modifying
+    @Query(value = """
+        INSERT INTO token_counters (clinic_id, doctor_id, visit_date, last_token)
+        SELECT :clinicId, :doctorId, :date,
+               (SELECT COALESCE(MAX(v.token_number), 0) FROM visits v
+                WHERE v.visit_date = :date AND v.clinic_id = :clinicId AND v.doctor_id = :doctorId)
+        WHERE NOT EXISTS (SELECT 1 FROM token_counters t
+                          WHERE t.clinic_id = :clinicId AND t.doctor_id = :doctorId AND t.visit_date = :date)
+        ON CONFLICT (clinic_id, doctor_id, visit_date) DO NOTHING
+    """, nativeQuery = true)
+    int seedIfAbsent(@Param("clinicId") Long clinicId,
+                     @Param("doctorId") Long doctorId,
+                     @Param("date") LocalDate date);
+
+    // 🔥 Atomic +1. Row lock transaction commit होईपर्यंत राहतो, म्हणून rollback झाला तर token परत मिळतो (gap नाही).
+    @Query(value = """
+        UPDATE token_counters SET last_token = last_token + 1
+        WHERE clinic_id = :clinicId AND doctor_id = :doctorId AND visit_date = :date
+        RETURNING last_token
+    """, nativeQuery = true)
+    Integer increment(@Param("clinicId") Long clinicId,
+                      @Param("doctorId") Long doctorId,
+                      @Param("date") LocalDate date);
+}
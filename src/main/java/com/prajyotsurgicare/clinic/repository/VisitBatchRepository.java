@@ -0,0 +1,51 @@
+package com.prajyotsurgicare.clinic.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// ⚡ JPA per-row save ऐवजी JDBC batch (एकाच round trip मध्ये सर्व rows)
+@Repository
+@RequiredArgsConstructor
+public class VisitBatchRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Applies new queue orders in one JDBC batch. When {@code expectedOrders[i]} is non-null the row is
+     * only updated if its current queue_order still matches (compare-and-set).
+     *
+     * @return visit ids whose compare-and-set failed
+     */
+    public List<Long> updateQueueOrders(List<Long> visitIds, List<Integer> newOrders, List<Integer> expectedOrders) {
+        List<Object[]> checked = new ArrayList<>();
+        List<Long> checkedIds = new ArrayList<>();
+        List<Object[]> unchecked = new ArrayList<>();
+
+        for (int i = 0; i < visitIds.size(); i++) {
+            Integer expected = expectedOrders.get(i);
+            if (expected != null) {
+                checked.add(new Object[]{newOrders.get(i), visitIds.get(i), expected});
+                checkedIds.add(visitIds.get(i));
+            } else {
+                unchecked.add(new Object[]{newOrders.get(i), visitIds.get(i)});
+            }
+        }
+
+        List<Long> conflicts = new ArrayList<>();
+        if (!checked.isEmpty()) {
+            int[] counts = jdbcTemplate.batchUpdate(
+                    "UPDATE visits SET queue_order = ? WHERE id = ? AND queue_order = ?", checked);
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) conflicts.add(checkedIds.get(i));
+            }
+        }
+        if (!unchecked.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE visits SET queue_order = ? WHERE id = ?", unchecked);
+        }
+        return conflicts;
+    }
+}
@@ -1,18 +1,32 @@
 package com.prajyotsurgicare.clinic.repository;
 
+import com.prajyotsurgicare.clinic.dto.DailyStatsRow;
+import com.prajyotsurgicare.clinic.dto.PatientVisitStats;
+import com.prajyotsurgicare.clinic.dto.TodayStatsRow;
+import com.prajyotsurgicare.clinic.dto.VisitAggregate;
+import com.prajyotsurgicare.clinic.dto.VisitListRow;
+import com.prajyotsurgicare.clinic.dto.VisitScope;
 import com.prajyotsurgicare.clinic.entity.Visit;
 import com.prajyotsurgicare.clinic.enums.VisitStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface VisitRepository extends JpaRepository<Visit, Long> {
 
+    // 🔍 Prescription full-text search चे expression. SearchIndexInitializer चा GIN index याच expression वर
+    // असतो, म्हणून query मध्ये अक्षरशः तेच वापरा (नाहीतर Postgres index वापरत नाही).
+    // 'simple' config: औषधांची नावे आणि मराठी शब्दांवर English stemming नको.
+    String PRESCRIPTION_TSVECTOR = "to_tsvector('simple', coalesce(prescription_note, '') || ' ' || " +
+            "coalesce(diagnosis, '') || ' ' || coalesce(procedures, ''))";
+
 // VisitRepository.java
 
     // 🔥 NEW: Doctor च्या आजच्या एकूण visits (All statuses)
@@ -37,8 +51,31 @@ public interface VisitRepository extends JpaRepository<Visit, Long> {
 
     List<Visit> findByPatientIdOrderByVisitDateDesc(Long patientId);
 
+    // 🔥 Bulk: अनेक पेशंट्सचे visit count + next follow-up एकाच GROUP BY मध्ये
+    @Query("SELECT new com.prajyotsurgicare.clinic.dto.PatientVisitStats(" +
+            "v.patient.id, COUNT(v.id), " +
+            "MIN(CASE WHEN v.followUpDate >= :today THEN v.followUpDate ELSE NULL END)) " +
+            "FROM Visit v WHERE v.patient.id IN :patientIds GROUP BY v.patient.id")
+    List<PatientVisitStats> findVisitStatsByPatientIds(@Param("patientIds") Collection<Long> patientIds,
+                                                       @Param("today") LocalDate today);
+
     void deleteByPatientId(Long patientId);
 
+    // 📊 Patient delete: त्याच्या COMPLETED visits चा analytics rollup मधील वाटा (वजा करण्यासाठी)
+    @Query("SELECT new com.prajyotsurgicare.clinic.dto.DailyStatsRow(v.visitDate, v.clinic.id, v.doctor.id, v.doctor.name, " +
+            "COUNT(v), COALESCE(SUM(v.consultationFee), 0.0), COALESCE(SUM(v.otherCharges), 0.0), COALESCE(SUM(v.totalAmount), 0.0), " +
+            "SUM(CASE WHEN v.visitType IN (com.prajyotsurgicare.clinic.enums.VisitType.OPD, com.prajyotsurgicare.clinic.enums.VisitType.ON_CALL) THEN 1L ELSE 0L END), " +
+            "SUM(CASE WHEN v.visitType = com.prajyotsurgicare.clinic.enums.VisitType.FOLLOW_UP THEN 1L ELSE 0L END)) " +
+            "FROM Visit v WHERE v.patient.id = :patientId AND v.status = 'COMPLETED' " +
+            "GROUP BY v.visitDate, v.clinic.id, v.doctor.id, v.doctor.name")
+    List<DailyStatsRow> findCompletedStatsByPatientId(@Param("patientId") Long patientId);
+
+    @Query("SELECT MIN(v.visitDate) FROM Visit v WHERE v.status = 'COMPLETED'")
+    LocalDate findFirstCompletedVisitDate();
+
+    @Query("SELECT MAX(v.visitDate) FROM Visit v WHERE v.status = 'COMPLETED'")
+    LocalDate findLastCompletedVisitDate();
+
     // 🔹 Date based
     long countByVisitDate(LocalDate visitDate);
 
@@ -77,6 +114,53 @@ public interface VisitRepository extends JpaRepository<Visit, Long> {
             List<VisitStatus> statuses
     );
 
+    // 🔥 Live queue rebuild: patient/doctor एकाच query मध्ये (row-wise lazy load नाही)
+    @Query("SELECT v FROM Visit v JOIN FETCH v.patient JOIN FETCH v.doctor JOIN FETCH v.clinic " +
+            "WHERE v.visitDate = :date AND v.clinic.id = :clinicId AND v.status IN :statuses " +
+            "ORDER BY v.emergency DESC, v.tokenNumber ASC, v.id ASC")
+    List<Visit> findQueueWithDetails(@Param("date") LocalDate date,
+                                     @Param("clinicId") Long clinicId,
+                                     @Param("statuses") Collection<VisitStatus> statuses);
+
+    // 🔍 Prescription search (Postgres FTS): फक्त ids, details नंतर एका query मध्ये. doctorId 0 = सर्व doctors
+    @Query(value = "SELECT v.id FROM visits v " +
+            "WHERE v.clinic_id = :clinicId " +
+            "AND (:doctorId = 0 OR v.doctor_id = :doctorId) " +
+            "AND v.visit_date BETWEEN :fromDate AND :toDate " +
+            "AND " + PRESCRIPTION_TSVECTOR + " @@ to_tsquery('simple', :tsQuery) " +
+            "ORDER BY v.visit_date DESC, v.id DESC " +
+            "LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<Long> searchPrescriptionText(@Param("clinicId") Long clinicId,
+                                      @Param("doctorId") Long doctorId,
+                                      @Param("fromDate") LocalDate fromDate,
+                                      @Param("toDate") LocalDate toDate,
+                                      @Param("tsQuery") String tsQuery,
+                                      @Param("limit") int limit,
+                                      @Param("offset") int offset);
+
+    // 🔍 Postgres नसेल तेव्हा LIKE fallback
+    @Query("SELECT v.id FROM Visit v " +
+            "WHERE v.clinic.id = :clinicId " +
+            "AND (:doctorId = 0 OR v.doctor.id = :doctorId) " +
+            "AND v.visitDate BETWEEN :fromDate AND :toDate " +
+            "AND (LOWER(v.prescriptionNote) LIKE :pattern OR LOWER(v.diagnosis) LIKE :pattern " +
+            "OR LOWER(v.procedures) LIKE :pattern) " +
+            "ORDER BY v.visitDate DESC, v.id DESC")
+    List<Long> searchPrescriptionTextLike(@Param("clinicId") Long clinicId,
+                                          @Param("doctorId") Long doctorId,
+                                          @Param("fromDate") LocalDate fromDate,
+                                          @Param("toDate") LocalDate toDate,
+                                          @Param("pattern") String pattern,
+                                          Pageable pageable);
+
+    @Query("SELECT v FROM Visit v JOIN FETCH v.patient LEFT JOIN FETCH v.doctor WHERE v.id IN :ids")
+    List<Visit> findWithDetailsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // 🔀 Reorder validation: सर्व ids एकाच query मध्ये (clinic + date + current order)
+    @Query("SELECT new com.prajyotsurgicare.clinic.dto.VisitScope(v.id, v.clinic.id, v.visitDate, v.queueOrder) " +
+            "FROM Visit v WHERE v.id IN :ids")
+    List<VisitScope> findScopesByIdIn(@Param("ids") Collection<Long> ids);
+
     List<Visit> findByPatientIdAndStatusOrderByVisitDateDesc(Long patientId, VisitStatus status);
 // VisitRepository.java
 
@@ -84,6 +168,14 @@ public interface VisitRepository extends JpaRepository<Visit, Long> {
     @Query("SELECT COUNT(v) FROM Visit v WHERE v.visitDate = :date AND v.clinic.id = :clinicId")
     long countAllTodayVisits(LocalDate date, Long clinicId);
 
+    // 📊 Dashboard header: एकाच query मध्ये doctor-wise total / waiting / completed / collection (सर्व statuses वर एक scan)
+    @Query("SELECT new com.prajyotsurgicare.clinic.dto.TodayStatsRow(d.id, COUNT(v), " +
+            "COALESCE(SUM(CASE WHEN v.status = 'ARRIVED' THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN v.status = 'COMPLETED' THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN v.status = 'COMPLETED' THEN v.totalAmount ELSE 0.0 END), 0.0)) " +
+            "FROM Visit v LEFT JOIN v.doctor d WHERE v.visitDate = :date AND v.clinic.id = :clinicId GROUP BY d.id")
+    List<TodayStatsRow> findDayStatsByDoctor(@Param("date") LocalDate date, @Param("clinicId") Long clinicId);
+
     // --- Clinic Level Queries ---
     @Query("SELECT COALESCE(SUM(v.totalAmount), 0) FROM Visit v WHERE v.visitDate = :date AND v.clinic.id = :clinicId AND v.status = 'COMPLETED'")
     Double getDailyCollection(LocalDate date, Long clinicId);
@@ -107,6 +199,40 @@ public interface VisitRepository extends JpaRepository<Visit, Long> {
     @Query("SELECT COUNT(v) FROM Visit v WHERE v.visitDate BETWEEN :start AND :end AND v.clinic.id = :clinicId AND v.doctor.id = :doctorId AND v.status = 'COMPLETED'")
     long getMonthlyVisitsByDoctor(LocalDate start, LocalDate end, Long clinicId, Long doctorId);
 
+    // 📈 Analytics summary (rollup नसताना): entities नाहीत, फक्त GROUP BY tuples. doctorId 0 = सर्व doctors
+    String VISIT_AGGREGATE = "COUNT(v), COALESCE(SUM(v.consultationFee), 0.0), COALESCE(SUM(v.otherCharges), 0.0), " +
+            "COALESCE(SUM(v.totalAmount), 0.0)) ";
+    String COMPLETED_IN_RANGE = "FROM Visit v WHERE v.clinic.id = :clinicId AND (:doctorId = 0 OR v.doctor.id = :doctorId) " +
+            "AND v.status = 'COMPLETED' AND v.visitDate BETWEEN :start AND :end ";
+
+    @Query("SELECT new com.prajyotsurgicare.clinic.dto.VisitAggregate(" + VISIT_AGGREGATE + COMPLETED_IN_RANGE)
+    VisitAggregate aggregateCompleted(@Param("clinicId") Long clinicId, @Param("doctorId") Long doctorId,
+                                      @Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    @Query("SELECT new com.prajyotsurgicare.clinic.dto.VisitAggregate(v.visitType, " + VISIT_AGGREGATE + COMPLETED_IN_RANGE +
+            "GROUP BY v.visitType")
+    List<VisitAggregate> aggregateCompletedByVisitType(@Param("clinicId") Long clinicId, @Param("doctorId") Long doctorId,
+                                                       @Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    @Query("SELECT new com.prajyotsurgicare.clinic.dto.VisitAggregate(v.doctor.name, " + VISIT_AGGREGATE + COMPLETED_IN_RANGE +
+            "GROUP BY v.doctor.id, v.doctor.name")
+    List<VisitAggregate> aggregateCompletedByDoctor(@Param("clinicId") Long clinicId, @Param("doctorId") Long doctorId,
+                                                    @Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    @Query("SELECT new com.prajyotsurgicare.clinic.dto.VisitAggregate(v.visitDate, " + VISIT_AGGREGATE + COMPLETED_IN_RANGE +
+            "GROUP BY v.visitDate ORDER BY v.visitDate")
+    List<VisitAggregate> aggregateCompletedByDate(@Param("clinicId") Long clinicId, @Param("doctorId") Long doctorId,
+                                                  @Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    // 📋 Analytics drill-down: keyset page (id क्रमाने), पुढचे page afterId = मागच्या page चा शेवटचा visitId
+    @Query("SELECT new com.prajyotsurgicare.clinic.dto.VisitListRow(v.id, v.tokenNumber, p.name, d.name, v.totalAmount, " +
+            "v.visitType, v.visitDate) FROM Visit v JOIN v.patient p JOIN v.doctor d " +
+            "WHERE v.clinic.id = :clinicId AND (:doctorId = 0 OR d.id = :doctorId) AND v.status = 'COMPLETED' " +
+            "AND v.visitDate BETWEEN :start AND :end AND v.id > :afterId ORDER BY v.id")
+    List<VisitListRow> findCompletedListAfter(@Param("clinicId") Long clinicId, @Param("doctorId") Long doctorId,
+                                              @Param("start") LocalDate start, @Param("end") LocalDate end,
+                                              @Param("afterId") Long afterId, Pageable pageable);
+
     // 1. Clinic Wise List (Date Range)
     List<Visit> findByVisitDateBetweenAndClinicIdAndStatus(
             LocalDate start, LocalDate end, Long clinicId, VisitStatus status);
@@ -0,0 +1,82 @@
+package com.prajyotsurgicare.clinic.scheduler;
+
+import com.prajyotsurgicare.clinic.repository.DailyClinicDoctorStatsRepository;
+import com.prajyotsurgicare.clinic.service.DailyStatsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// 📊 daily_clinic_doctor_stats backfill / दुरुस्ती:
+// - Startup: table रिकामा असेल (पहिला deploy) किंवा analytics.rollup.full-rebuild=true तर सर्व visits वरून,
+//   नाहीतर शेवटचे repair-days दिवस. त्यानंतरच summary rollup वरून दिली जाते.
+// - रात्री: शेवटचे repair-days दिवस परत मोजतो (एकाच वेळी झालेले updates, manual DB बदल इ.)
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DailyStatsRollupJob {
+
+    private final DailyStatsService dailyStatsService;
+    private final DailyClinicDoctorStatsRepository statsRepository;
+
+    @Value("${analytics.rollup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${analytics.rollup.full-rebuild:false}")
+    private boolean fullRebuild;
+
+    @Value("${analytics.rollup.repair-days:7}")
+    private int repairDays;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            if (fullRebuild || statsRepository.count() == 0) {
+                int rows = dailyStatsService.rebuildAll();
+                log.info("📊 Daily stats rollup rebuilt from visits: {} rows", rows);
+            } else {
+                repairRecentDays();
+            }
+            dailyStatsService.setReady(true);
+        } catch (Exception e) {
+            // Summary visits वरच्या queries ने चालू राहते
+            log.error("❌ Daily stats rollup backfill failed: {}", e.getMessage(), e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    @Scheduled(cron = "${analytics.rollup.cron:0 15 3 * * ?}")
+    public void repair() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            repairRecentDays();
+        } catch (Exception e) {
+            log.error("❌ Daily stats rollup repair failed: {}", e.getMessage(), e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void repairRecentDays() {
+        LocalDate today = LocalDate.now();
+        // Future appointments पण (advance billing होत असेल तर)
+        int rows = dailyStatsService.rebuild(today.minusDays(repairDays), today.plusDays(1));
+        log.info("📊 Daily stats rollup repaired for last {} days: {} rows", repairDays, rows);
+    }
+}
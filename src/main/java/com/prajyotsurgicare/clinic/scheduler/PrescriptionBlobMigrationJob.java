@@ -0,0 +1,114 @@
+package com.prajyotsurgicare.clinic.scheduler;
+
+import com.prajyotsurgicare.clinic.config.DatabaseInfo;
+import com.prajyotsurgicare.clinic.service.PrescriptionFileCache;
+import com.prajyotsurgicare.clinic.service.PrescriptionStorageService;
+import com.prajyotsurgicare.clinic.storage.BlobRef;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.sql.Blob;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// 📦 जुन्या prescription_files.data (DB LOB) मधील bytes BlobStore मध्ये हलवतो.
+// storage.migration.enabled=true असेल तरच चालतो. एका वेळी एक row, stream करून (पूर्ण फाईल memory मध्ये नाही).
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PrescriptionBlobMigrationJob {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PrescriptionStorageService storageService;
+    private final DatabaseInfo databaseInfo;
+    private final PrescriptionFileCache fileCache;
+
+    @Value("${storage.migration.enabled:false}")
+    private boolean enabled;
+
+    @Value("${storage.migration.batch-size:20}")
+    private int batchSize;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    @Scheduled(initialDelayString = "${storage.migration.initial-delay:PT1M}",
+               fixedDelayString = "${storage.migration.interval:PT10M}")
+    public void migrate() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long lastId = 0;
+            int migrated = 0;
+            int failed = 0;
+            while (true) {
+                List<Long> ids = jdbcTemplate.queryForList(
+                        "SELECT id FROM prescription_files WHERE storage_key IS NULL AND data IS NOT NULL AND id > ? ORDER BY id LIMIT ?",
+                        Long.class, lastId, batchSize);
+                if (ids.isEmpty()) break;
+
+                for (Long id : ids) {
+                    lastId = id;
+                    try {
+                        if (migrateOne(id)) {
+                            migrated++;
+                            // Cached metadata मध्ये अजून storageKey नाही
+                            fileCache.evictFile(id);
+                        }
+                    } catch (Exception e) {
+                        // एक खराब row मुळे बाकीचे थांबू नयेत, पुढच्या run ला परत प्रयत्न
+                        failed++;
+                        log.warn("⚠️ Blob migration failed for prescription file {}: {}", id, e.getMessage());
+                    }
+                }
+            }
+            if (migrated > 0 || failed > 0) {
+                log.info("📦 Prescription blob migration: {} migrated, {} failed", migrated, failed);
+            }
+        } finally {
+            running.set(false);
+        }
+    }
+
+    // Postgres LOB stream फक्त transaction मध्येच वाचता येतो
+    private boolean migrateOne(Long id) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            BlobRef ref = jdbcTemplate.query(
+                    "SELECT data, file_type FROM prescription_files WHERE id = ? AND storage_key IS NULL",
+                    rs -> {
+                        if (!rs.next()) return null;
+                        Blob blob = rs.getBlob(1);
+                        if (blob == null) return null;
+                        try (InputStream in = blob.getBinaryStream()) {
+                            return storageService.store(in, rs.getString(2));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        } finally {
+                            blob.free();
+                        }
+                    }, id);
+            if (ref == null) {
+                return false;
+            }
+
+            // Postgres मध्ये data हा oid आहे: column null केल्याने large object जात नाही, unlink करावा लागतो
+            if (databaseInfo.isPostgres()) {
+                jdbcTemplate.queryForList(
+                        "SELECT lo_unlink(data) FROM prescription_files WHERE id = ? AND data IS NOT NULL", id);
+            }
+            jdbcTemplate.update(
+                    "UPDATE prescription_files SET storage_key = ?, size_bytes = ?, content_hash = ?, content_encoding = ?, data = NULL WHERE id = ?",
+                    ref.getKey(), ref.getSizeBytes(), ref.getContentHash(), ref.getContentEncoding(), id);
+            return true;
+        }));
+    }
+}
@@ -0,0 +1,147 @@
+package com.prajyotsurgicare.clinic.scheduler;
+
+import com.prajyotsurgicare.clinic.entity.StoredBlob;
+import com.prajyotsurgicare.clinic.repository.StoredBlobRepository;
+import com.prajyotsurgicare.clinic.storage.BlobStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// 🧹 रात्रीचा storage sweep:
+// 1. जुन्या (StoredBlob आधीच्या) files साठी stored_blobs rows बनवतो
+// 2. refCount प्रत्यक्ष prescription_files वरून परत मोजतो (crash/rollback मुळे झालेला फरक)
+// 3. refCount 0 असलेले blobs grace period नंतर delete
+// 4. कोणत्याच row ने न वापरलेले BlobStore objects (orphans) grace period नंतर delete
+// Grace period: upload चालू असताना blob store मध्ये आहे पण row अजून commit झाली नाही.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StoredBlobSweepJob {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BlobStore blobStore;
+    private final StoredBlobRepository storedBlobRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${storage.gc.enabled:true}")
+    private boolean enabled;
+
+    @Value("${storage.gc.orphans.enabled:true}")
+    private boolean orphansEnabled;
+
+    @Value("${storage.gc.grace:PT24H}")
+    private Duration grace;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    @Scheduled(cron = "${storage.gc.cron:0 30 3 * * ?}")
+    public void sweep() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minus(grace);
+            int backfilled = storedBlobRepository.backfillFromFiles(LocalDateTime.now());
+            int recounted = storedBlobRepository.recountReferences(cutoff);
+            int released = deleteUnreferenced(cutoff);
+            int orphans = orphansEnabled ? deleteOrphans(Instant.now().minus(grace)) : 0;
+            log.info("🧹 Blob sweep: {} backfilled, {} recounted, {} released, {} orphan blobs deleted",
+                    backfilled, recounted, released, orphans);
+        } catch (Exception e) {
+            log.error("❌ Blob sweep failed: {}", e.getMessage(), e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private int deleteUnreferenced(LocalDateTime cutoff) {
+        int deleted = 0;
+        for (StoredBlob blob : storedBlobRepository.findUnreferenced(cutoff)) {
+            try {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> release(blob, cutoff)))) {
+                    deleted++;
+                }
+            } catch (Exception e) {
+                // Transaction rollback: row (refCount 0) राहते, पुढच्या run ला परत प्रयत्न
+                log.warn("⚠️ Could not delete blob {}: {}", blob.getStorageKey(), e.getMessage());
+            }
+        }
+        return deleted;
+    }
+
+    // Row lock धरून आधी blob, मग row. तोपर्यंत त्याच content चे upload acquire/insert वर थांबतात,
+    // आणि commit नंतर blob नसलेला पाहून तो परत लिहितात (PrescriptionStorageService.store)
+    private boolean release(StoredBlob blob, LocalDateTime cutoff) {
+        // मधल्या वेळात कोणी acquire केले असेल तर काही करू नका
+        if (storedBlobRepository.lockIfUnreferenced(blob.getContentHash(), cutoff).isEmpty()) {
+            return false;
+        }
+        try {
+            blobStore.delete(blob.getStorageKey());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return storedBlobRepository.deleteIfUnreferenced(blob.getContentHash(), cutoff) == 1;
+    }
+
+    private int deleteOrphans(Instant cutoff) throws Exception {
+        Set<String> referenced = new HashSet<>();
+        jdbcTemplate.query("SELECT storage_key FROM stored_blobs", rs -> {
+            referenced.add(rs.getString(1));
+        });
+        jdbcTemplate.query("SELECT storage_key, preview_key, thumbnail_key FROM prescription_files " +
+                "WHERE storage_key IS NOT NULL OR preview_key IS NOT NULL", rs -> {
+            for (int i = 1; i <= 3; i++) {
+                String key = rs.getString(i);
+                if (key != null) referenced.add(key);
+            }
+        });
+        if (referenced.isEmpty()) {
+            // चुकीच्या DB शी जोडलेले असेल तर संपूर्ण store पुसला जाऊ नये
+            log.warn("⚠️ No blob references found in database, skipping orphan sweep");
+            return 0;
+        }
+
+        List<String> orphans = new ArrayList<>();
+        blobStore.forEachBlob((key, lastModified) -> {
+            if (!referenced.contains(key) && lastModified.isBefore(cutoff)) {
+                orphans.add(key);
+            }
+        });
+        int deleted = 0;
+        for (String key : orphans) {
+            // List केल्यानंतर एखाद्या upload ने हीच key वापरली असेल
+            if (isReferenced(key)) continue;
+            try {
+                blobStore.delete(key);
+                deleted++;
+            } catch (Exception e) {
+                log.warn("⚠️ Could not delete orphan blob {}: {}", key, e.getMessage());
+            }
+        }
+        return deleted;
+    }
+
+    private boolean isReferenced(String key) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT (SELECT COUNT(*) FROM stored_blobs WHERE storage_key = ?) + " +
+                        "(SELECT COUNT(*) FROM prescription_files WHERE storage_key = ? OR preview_key = ? OR thumbnail_key = ?)",
+                Integer.class, key, key, key, key);
+        return count != null && count > 0;
+    }
+}
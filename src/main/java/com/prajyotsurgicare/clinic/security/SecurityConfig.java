@@ -1,6 +1,7 @@
 package com.prajyotsurgicare.clinic.config; // 👈 Package Name चेक कर
 
 import com.prajyotsurgicare.clinic.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -32,10 +33,14 @@ public class SecurityConfig {
                     config.setAllowedOriginPatterns(List.of("*"));
                     config.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
                     config.setAllowedHeaders(List.of("*"));
+                    config.setExposedHeaders(List.of("X-QUEUE-SEQUENCE", "X-QUEUE-STREAM"));
                     config.setAllowCredentials(true);
                     return config;
                 }))
                 .authorizeHttpRequests(auth -> auth
+                        // ✅ Streaming downloads (bundle) चा async dispatch: original request आधीच authorize झाली आहे
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // ✅ 1. Public Endpoints (लॉगिन न करता ॲक्सेस)
                         .requestMatchers(
                                 "/api/auth/**",  // Standard Path
@@ -0,0 +1,157 @@
+package com.prajyotsurgicare.clinic.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// 🗃️ Analytics summary चे results memory मध्ये (owners dashboard वारंवार उघडतात).
+// - Cards (आज/महिना/वर्ष): key (clinic, doctor, आजची तारीख) → दिवस बदलला की आपोआप नवी key
+// - Filter range: key (clinic, doctor, start, end)
+// Visit चा वाटा बदलला (DailyStatsService delta) की commit नंतर त्या clinic चे cards आणि ती तारीख असलेल्या ranges evict.
+// ज्या range मध्ये ती तारीख नाही (बंद झालेले जुने महिने) ते entries तसेच राहतात.
+@Service
+public class AnalyticsCache {
+
+    private final Cache<CardsKey, Map<String, Object>> cardsCache;
+    private final Cache<RangeKey, Map<String, Object>> rangeCache;
+
+    // Compute चालू असताना commit झाला तर जुना result cache मध्ये राहू नये म्हणून clinic-wise version
+    private final Map<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    public AnalyticsCache(@Value("${analytics.cache.max-entries:500}") long maxEntries,
+                          @Value("${analytics.cache.ttl:PT12H}") Duration ttl) {
+        this.cardsCache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.rangeCache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    // =================================================================
+    // READ
+    // =================================================================
+
+    public Map<String, Object> getCards(Long clinicId, Long doctorId, LocalDate today,
+                                        Supplier<Map<String, Object>> loader) {
+        return get(cardsCache, new CardsKey(clinicId, doctorId, today), clinicId, loader);
+    }
+
+    public Map<String, Object> getRange(Long clinicId, Long doctorId, LocalDate startDate, LocalDate endDate,
+                                        Supplier<Map<String, Object>> loader) {
+        return get(rangeCache, new RangeKey(clinicId, doctorId, startDate, endDate), clinicId, loader);
+    }
+
+    private <K> Map<String, Object> get(Cache<K, Map<String, Object>> cache, K key, Long clinicId,
+                                        Supplier<Map<String, Object>> loader) {
+        Map<String, Object> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        AtomicLong version = versionOf(clinicId);
+        long before = version.get();
+        Map<String, Object> value = loader.get();
+        cache.put(key, value);
+        if (version.get() != before) {
+            cache.invalidate(key);
+        }
+        return value;
+    }
+
+    private AtomicLong versionOf(Long clinicId) {
+        return versions.computeIfAbsent(clinicId, id -> new AtomicLong());
+    }
+
+    // =================================================================
+    // INVALIDATION
+    // =================================================================
+
+    // Transaction मध्ये असू तर commit नंतरच, नाहीतर दुसरी request जुनी बेरीज परत cache करेल
+    public void evictAfterCommit(Long clinicId, LocalDate date) {
+        afterCommit(() -> {
+            versionOf(clinicId).incrementAndGet();
+            cardsCache.asMap().keySet().removeIf(key -> key.getClinicId().equals(clinicId));
+            rangeCache.asMap().keySet().removeIf(key -> key.getClinicId().equals(clinicId)
+                    && !date.isBefore(key.getStartDate()) && !date.isAfter(key.getEndDate()));
+        });
+    }
+
+    public void invalidateAll() {
+        afterCommit(() -> {
+            versions.values().forEach(AtomicLong::incrementAndGet);
+            cardsCache.invalidateAll();
+            rangeCache.invalidateAll();
+        });
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // =================================================================
+    // STATS
+    // =================================================================
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cards", toMap(cardsCache.stats(), cardsCache.estimatedSize()));
+        stats.put("ranges", toMap(rangeCache.stats(), rangeCache.estimatedSize()));
+        return stats;
+    }
+
+    private Map<String, Object> toMap(CacheStats cacheStats, long size) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("size", size);
+        map.put("hits", cacheStats.hitCount());
+        map.put("misses", cacheStats.missCount());
+        map.put("hitRate", cacheStats.hitRate());
+        map.put("evictions", cacheStats.evictionCount());
+        return map;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    private static class CardsKey {
+        private final Long clinicId;
+        private final Long doctorId;
+        private final LocalDate today;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    private static class RangeKey {
+        private final Long clinicId;
+        private final Long doctorId;
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+    }
+}
@@ -0,0 +1,237 @@
+package com.prajyotsurgicare.clinic.service;
+
+import com.prajyotsurgicare.clinic.dto.VisitAggregate;
+import com.prajyotsurgicare.clinic.dto.VisitListRow;
+import com.prajyotsurgicare.clinic.enums.VisitType;
+import com.prajyotsurgicare.clinic.exception.ServiceUnavailableException;
+import com.prajyotsurgicare.clinic.repository.VisitRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// 📈 /api/analytics/summary:
+// - Rollup (DailyStatsService) तयार असेल तर त्यावरून एकाच query ने
+// - नाहीतर visits वर SQL GROUP BY (visitType / doctor / date) queries, bounded executor वर parallel.
+//   Visit entities load होत नाहीत, doctor name पण त्याच query मध्ये (lazy loading नाही).
+//   Timeout खरोखरच काम थांबवतो: queue भरली तर लगेच 503, deadline नंतर futures cancel आणि
+//   प्रत्येक query उरलेल्या वेळाच्या transaction timeout (JDBC statement timeout) मध्येच.
+// Cards आणि filter range चे results AnalyticsCache मधून (visit बदलला की commit नंतर evict).
+@Slf4j
+@Service
+public class AnalyticsService {
+
+    public static final int MAX_VISIT_LIST_PAGE_SIZE = 500;
+
+    private final VisitRepository visitRepository;
+    private final DailyStatsService dailyStatsService;
+    private final AnalyticsCache analyticsCache;
+    private final PlatformTransactionManager transactionManager;
+    private final Duration queryTimeout;
+    private final ThreadPoolExecutor executor;
+
+    public AnalyticsService(VisitRepository visitRepository,
+                            DailyStatsService dailyStatsService,
+                            AnalyticsCache analyticsCache,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${analytics.query.threads:4}") int threads,
+                            @Value("${analytics.query.queue-size:50}") int queueSize,
+                            @Value("${analytics.query.timeout:PT30S}") Duration queryTimeout) {
+        this.visitRepository = visitRepository;
+        this.dailyStatsService = dailyStatsService;
+        this.analyticsCache = analyticsCache;
+        this.transactionManager = transactionManager;
+        this.queryTimeout = queryTimeout;
+
+        // प्रत्येक query ला स्वतःचे connection लागते: threads < Hikari pool ठेवा.
+        // Queue भरली तर reject → 503 (request thread वर query चालवली तर timeout लागू होत नाही)
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                r -> {
+                    Thread t = new Thread(r, "analytics-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public Map<String, Object> getSummary(Long clinicId, Long doctorId, LocalDate startDate, LocalDate endDate) {
+        long doctor = doctorId != null ? doctorId : 0L;
+        LocalDate today = LocalDate.now();
+        Map<String, Object> stats = new HashMap<>(analyticsCache.getCards(clinicId, doctor, today, () ->
+                dailyStatsService.isReady()
+                        ? dailyStatsService.getCards(clinicId, doctor, today)
+                        : computeCards(clinicId, doctor, today)));
+        stats.putAll(analyticsCache.getRange(clinicId, doctor, startDate, endDate, () ->
+                dailyStatsService.isReady()
+                        ? dailyStatsService.getRangeStats(clinicId, doctor, startDate, endDate)
+                        : computeRange(clinicId, doctor, startDate, endDate)));
+        return stats;
+    }
+
+    private Map<String, Object> computeCards(Long clinicId, Long doctorId, LocalDate today) {
+        LocalDate monthStart = YearMonth.from(today).atDay(1);
+        LocalDate monthEnd = YearMonth.from(today).atEndOfMonth();
+        LocalDate yearStart = today.withDayOfYear(1);
+        LocalDate yearEnd = today.withDayOfYear(today.lengthOfYear());
+
+        List<VisitAggregate> results = runAll(List.of(
+                () -> visitRepository.aggregateCompleted(clinicId, doctorId, today, today),
+                () -> visitRepository.aggregateCompleted(clinicId, doctorId, monthStart, monthEnd),
+                () -> visitRepository.aggregateCompleted(clinicId, doctorId, yearStart, yearEnd)));
+        VisitAggregate daily = results.get(0);
+        VisitAggregate monthly = results.get(1);
+        VisitAggregate yearly = results.get(2);
+
+        Map<String, Object> cards = new HashMap<>();
+        cards.put("dailyIncome", daily.getTotal());
+        cards.put("dailyVisits", daily.getVisits());
+        cards.put("monthlyIncome", monthly.getTotal());
+        cards.put("monthlyVisits", monthly.getVisits());
+        cards.put("yearlyIncome", yearly.getTotal());
+        cards.put("yearlyVisits", yearly.getVisits());
+        return cards;
+    }
+
+    private Map<String, Object> computeRange(Long clinicId, Long doctorId, LocalDate startDate, LocalDate endDate) {
+        List<List<VisitAggregate>> results = runAll(List.of(
+                () -> visitRepository.aggregateCompletedByVisitType(clinicId, doctorId, startDate, endDate),
+                () -> visitRepository.aggregateCompletedByDoctor(clinicId, doctorId, startDate, endDate),
+                () -> visitRepository.aggregateCompletedByDate(clinicId, doctorId, startDate, endDate)));
+        List<VisitAggregate> byType = results.get(0);
+        List<VisitAggregate> byDoctor = results.get(1);
+        List<VisitAggregate> byDate = results.get(2);
+
+        Map<String, Object> stats = new HashMap<>();
+        // Income breakdown + patient ratio: visitType गट (New = OPD + ON_CALL, FollowUp = FOLLOW_UP)
+        double totalConsultation = 0, totalProcedures = 0;
+        long newPatients = 0, followUpPatients = 0;
+        for (VisitAggregate group : byType) {
+            totalConsultation += group.getConsultation();
+            totalProcedures += group.getOtherCharges();
+            if (group.getKey() == VisitType.OPD || group.getKey() == VisitType.ON_CALL) {
+                newPatients += group.getVisits();
+            } else if (group.getKey() == VisitType.FOLLOW_UP) {
+                followUpPatients += group.getVisits();
+            }
+        }
+        stats.put("filteredRevenue", totalConsultation + totalProcedures);
+        stats.put("incomeBreakdown", Map.of("Consultation", totalConsultation, "Procedures", totalProcedures));
+        stats.put("patientRatio", Map.of("New", newPatients, "FollowUp", followUpPatients));
+
+        // एकाच नावाचे दोन doctors असतील तर आधीसारखेच एकत्र
+        Map<String, Double> doctorPerformance = new HashMap<>();
+        byDoctor.forEach(group -> doctorPerformance.merge((String) group.getKey(), group.getTotal(), Double::sum));
+        stats.put("doctorPerformance", doctorPerformance);
+
+        List<Map<String, Object>> dailyTrend = new ArrayList<>();
+        for (VisitAggregate group : byDate) {
+            Map<String, Object> dayStat = new HashMap<>();
+            dayStat.put("date", group.getKey());
+            dayStat.put("total", group.getTotal());
+            dayStat.put("count", group.getVisits());
+            dailyTrend.add(dayStat);
+        }
+        stats.put("dailyTrend", dailyTrend);
+        return stats;
+    }
+
+    // 📋 Drill-down list: keyset page (visitId क्रमाने), आधीसारख्याच keys + visitId.
+    // एक जास्त row आणून पुढचे page आहे का ते कळते; पुढच्या page साठी ?afterId=nextAfterId
+    public Map<String, Object> getVisitList(Long clinicId, Long doctorId, LocalDate startDate, LocalDate endDate,
+                                            Long afterId, int size) {
+        int limit = Math.min(Math.max(size, 1), MAX_VISIT_LIST_PAGE_SIZE);
+        List<VisitListRow> rows = visitRepository.findCompletedListAfter(clinicId, doctorId != null ? doctorId : 0L,
+                startDate, endDate, afterId != null ? afterId : 0L, PageRequest.of(0, limit + 1));
+
+        boolean hasNext = rows.size() > limit;
+        List<VisitListRow> pageRows = hasNext ? rows.subList(0, limit) : rows;
+        List<Map<String, Object>> items = pageRows.stream()
+                .map(row -> {
+                    Map<String, Object> map = new HashMap<>();
+                    map.put("visitId", row.getVisitId());
+                    map.put("token", row.getTokenNumber());
+                    map.put("patientName", row.getPatientName());
+                    map.put("doctorName", row.getDoctorName());
+                    map.put("amount", row.getTotalAmount());
+                    map.put("visitType", row.getVisitType());
+                    map.put("date", row.getVisitDate());
+                    return map;
+                })
+                .toList();
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("items", items);
+        response.put("size", limit);
+        response.put("hasNext", hasNext);
+        response.put("nextAfterId", hasNext ? pageRows.get(pageRows.size() - 1).getVisitId() : null);
+        return response;
+    }
+
+    // सर्व queries parallel, पण एकूण queryTimeout मध्येच. कोणतीही fail/timeout झाली की बाकीच्या cancel.
+    private <T> List<T> runAll(List<Supplier<T>> queries) {
+        Instant deadline = Instant.now().plus(queryTimeout);
+        List<Future<T>> futures = new ArrayList<>();
+        try {
+            for (Supplier<T> query : queries) {
+                futures.add(executor.submit(() -> withinDeadline(query, deadline)));
+            }
+        } catch (RejectedExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new ServiceUnavailableException("Analytics is busy. Please try again in a moment.");
+        }
+
+        List<T> results = new ArrayList<>();
+        try {
+            for (Future<T> future : futures) {
+                long remainingMillis = Duration.between(Instant.now(), deadline).toMillis();
+                results.add(future.get(Math.max(remainingMillis, 0), TimeUnit.MILLISECONDS));
+            }
+            return results;
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Analytics query failed", e.getCause());
+        } catch (TimeoutException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new ServiceUnavailableException("Analytics is taking too long. Please try a shorter date range.");
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Analytics request was interrupted");
+        }
+    }
+
+    // Queue मध्ये थांबून deadline गेली असेल तर query चालवूच नका. नाहीतर उरलेला वेळ transaction timeout,
+    // Hibernate तो प्रत्येक JDBC statement ला query timeout म्हणून लावतो (DB स्वतः query थांबवतो)
+    private <T> T withinDeadline(Supplier<T> query, Instant deadline) {
+        long remainingSeconds = (long) Math.ceil(Duration.between(Instant.now(), deadline).toMillis() / 1000.0);
+        if (remainingSeconds <= 0) {
+            throw new ServiceUnavailableException("Analytics is taking too long. Please try a shorter date range.");
+        }
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        tx.setTimeout((int) Math.min(remainingSeconds, Integer.MAX_VALUE));
+        return tx.execute(status -> query.get());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
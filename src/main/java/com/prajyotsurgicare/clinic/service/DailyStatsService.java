@@ -0,0 +1,236 @@
+package com.prajyotsurgicare.clinic.service;
+
+import com.prajyotsurgicare.clinic.config.DatabaseInfo;
+import com.prajyotsurgicare.clinic.dto.DailyStatsRow;
+import com.prajyotsurgicare.clinic.entity.DailyClinicDoctorStats;
+import com.prajyotsurgicare.clinic.entity.Visit;
+import com.prajyotsurgicare.clinic.enums.VisitStatus;
+import com.prajyotsurgicare.clinic.enums.VisitType;
+import com.prajyotsurgicare.clinic.repository.DailyClinicDoctorStatsRepository;
+import com.prajyotsurgicare.clinic.repository.VisitRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.function.Function;
+
+// 📊 daily_clinic_doctor_stats rollup: visits बदलताना delta लावतो आणि Analytics summary त्यावरून देतो.
+// Visit बदलणारी method: बदलण्याआधी snapshot(visit), save नंतर recordChange(before, visit).
+// Delta visit च्याच transaction मध्ये लागतो, त्यामुळे rollback झाला तर rollup पण तसाच राहतो.
+// प्रत्येक delta commit नंतर AnalyticsCache मधील संबंधित entries evict करतो.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DailyStatsService {
+
+    private final DailyClinicDoctorStatsRepository statsRepository;
+    private final VisitRepository visitRepository;
+    private final DatabaseInfo databaseInfo;
+    private final AnalyticsCache analyticsCache;
+
+    // DailyStatsRollupJob चा startup backfill होईपर्यंत summary जुन्या (visits वरच्या) queries ने
+    private volatile boolean ready = false;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void setReady(boolean ready) {
+        this.ready = ready;
+    }
+
+    // =================================================================
+    // INCREMENTAL
+    // =================================================================
+
+    // Rollup मधील या visit चा वाटा (COMPLETED नसेल तर null). Entity नंतर बदलला तरी हे value तसेच राहते.
+    public DailyStatsRow snapshot(Visit visit) {
+        if (visit.getStatus() != VisitStatus.COMPLETED || visit.getVisitDate() == null
+                || visit.getClinic() == null || visit.getDoctor() == null) {
+            return null;
+        }
+        VisitType type = visit.getVisitType();
+        return new DailyStatsRow(visit.getVisitDate(), visit.getClinic().getId(), visit.getDoctor().getId(), null, 1L,
+                orZero(visit.getConsultationFee()), orZero(visit.getOtherCharges()), orZero(visit.getTotalAmount()),
+                (type == VisitType.OPD || type == VisitType.ON_CALL) ? 1L : 0L,
+                type == VisitType.FOLLOW_UP ? 1L : 0L);
+    }
+
+    public void recordChange(DailyStatsRow before, Visit visit) {
+        DailyStatsRow after = snapshot(visit);
+        if (before != null && after != null && sameKey(before, after)) {
+            apply(after, before);
+            return;
+        }
+        if (before != null) {
+            apply(null, before);
+        }
+        if (after != null) {
+            apply(after, null);
+        }
+    }
+
+    // Patient delete: visits DB मधून जाण्याआधी त्यांचा वाटा वजा करा (त्याच transaction मध्ये)
+    public void removePatientVisits(Long patientId) {
+        visitRepository.findCompletedStatsByPatientId(patientId).forEach(row -> apply(null, row));
+    }
+
+    // plus - minus एकाच (date, clinic, doctor) row वर
+    private void apply(DailyStatsRow plus, DailyStatsRow minus) {
+        DailyStatsRow key = (plus != null) ? plus : minus;
+        long visits = count(plus, DailyStatsRow::getVisits) - count(minus, DailyStatsRow::getVisits);
+        double consultation = amount(plus, DailyStatsRow::getConsultation) - amount(minus, DailyStatsRow::getConsultation);
+        double otherCharges = amount(plus, DailyStatsRow::getOtherCharges) - amount(minus, DailyStatsRow::getOtherCharges);
+        double total = amount(plus, DailyStatsRow::getTotal) - amount(minus, DailyStatsRow::getTotal);
+        long newCount = count(plus, DailyStatsRow::getNewPatients) - count(minus, DailyStatsRow::getNewPatients);
+        long followUps = count(plus, DailyStatsRow::getFollowUps) - count(minus, DailyStatsRow::getFollowUps);
+        if (visits == 0 && consultation == 0 && otherCharges == 0 && total == 0 && newCount == 0 && followUps == 0) {
+            return;
+        }
+        analyticsCache.evictAfterCommit(key.getClinicId(), key.getDate());
+
+        if (databaseInfo.isPostgres()) {
+            statsRepository.upsertDelta(key.getDate(), key.getClinicId(), key.getDoctorId(),
+                    visits, consultation, otherCharges, total, newCount, followUps);
+            return;
+        }
+
+        // ⚠️ Non-Postgres fallback (concurrency guarantee नाही, nightly rebuild दुरुस्त करतो)
+        int updated = statsRepository.addDelta(key.getDate(), key.getClinicId(), key.getDoctorId(),
+                visits, consultation, otherCharges, total, newCount, followUps);
+        if (updated == 0) {
+            DailyClinicDoctorStats.Key id = new DailyClinicDoctorStats.Key();
+            id.setStatDate(key.getDate());
+            id.setClinicId(key.getClinicId());
+            id.setDoctorId(key.getDoctorId());
+            DailyClinicDoctorStats stats = new DailyClinicDoctorStats();
+            stats.setId(id);
+            stats.setVisitCount(visits);
+            stats.setConsultationTotal(consultation);
+            stats.setOtherChargesTotal(otherCharges);
+            stats.setTotalAmount(total);
+            stats.setNewCount(newCount);
+            stats.setFollowUpCount(followUps);
+            statsRepository.save(stats);
+        }
+    }
+
+    private boolean sameKey(DailyStatsRow a, DailyStatsRow b) {
+        return a.getDate().equals(b.getDate()) && a.getClinicId().equals(b.getClinicId())
+                && a.getDoctorId().equals(b.getDoctorId());
+    }
+
+    private static long count(DailyStatsRow row, Function<DailyStatsRow, Long> field) {
+        return (row != null && field.apply(row) != null) ? field.apply(row) : 0L;
+    }
+
+    private static double amount(DailyStatsRow row, Function<DailyStatsRow, Double> field) {
+        return (row != null && field.apply(row) != null) ? field.apply(row) : 0.0;
+    }
+
+    private static double orZero(Double value) {
+        return value != null ? value : 0.0;
+    }
+
+    // =================================================================
+    // REBUILD
+    // =================================================================
+
+    // दिलेल्या तारखांचे rows visits वरून परत मोजा (delete + INSERT ... SELECT, एकाच transaction मध्ये)
+    @Transactional
+    public int rebuild(LocalDate from, LocalDate to) {
+        statsRepository.deleteRange(from, to);
+        analyticsCache.invalidateAll();
+        return statsRepository.insertFromVisits(from, to);
+    }
+
+    @Transactional
+    public int rebuildAll() {
+        LocalDate first = visitRepository.findFirstCompletedVisitDate();
+        LocalDate last = visitRepository.findLastCompletedVisitDate();
+        statsRepository.deleteAllInBatch();
+        analyticsCache.invalidateAll();
+        return (first != null && last != null) ? statsRepository.insertFromVisits(first, last) : 0;
+    }
+
+    // =================================================================
+    // SUMMARY (AnalyticsController /summary, त्याच keys). प्रत्येक भाग एका query ने: rows = दिवस × doctor
+    // =================================================================
+
+    // आज/महिना/वर्ष cards (today-relative, AnalyticsCache मध्ये वेगळे ठेवले जातात)
+    @Transactional(readOnly = true)
+    public Map<String, Object> getCards(Long clinicId, Long doctorId, LocalDate today) {
+        LocalDate monthStart = YearMonth.from(today).atDay(1);
+        LocalDate monthEnd = YearMonth.from(today).atEndOfMonth();
+        LocalDate yearStart = today.withDayOfYear(1);
+        LocalDate yearEnd = today.withDayOfYear(today.lengthOfYear());
+
+        double dailyIncome = 0, monthlyIncome = 0, yearlyIncome = 0;
+        long dailyVisits = 0, monthlyVisits = 0, yearlyVisits = 0;
+        for (DailyStatsRow row : statsRepository.findRows(clinicId, doctorId, yearStart, yearEnd)) {
+            LocalDate date = row.getDate();
+            double total = orZero(row.getTotal());
+            if (date.equals(today)) {
+                dailyIncome += total;
+                dailyVisits += row.getVisits();
+            }
+            if (!date.isBefore(monthStart) && !date.isAfter(monthEnd)) {
+                monthlyIncome += total;
+                monthlyVisits += row.getVisits();
+            }
+            yearlyIncome += total;
+            yearlyVisits += row.getVisits();
+        }
+
+        Map<String, Object> cards = new HashMap<>();
+        cards.put("dailyIncome", dailyIncome);
+        cards.put("dailyVisits", dailyVisits);
+        cards.put("monthlyIncome", monthlyIncome);
+        cards.put("monthlyVisits", monthlyVisits);
+        cards.put("yearlyIncome", yearlyIncome);
+        cards.put("yearlyVisits", yearlyVisits);
+        return cards;
+    }
+
+    // Filter range: breakdown, patient ratio, doctor performance, daily trend
+    @Transactional(readOnly = true)
+    public Map<String, Object> getRangeStats(Long clinicId, Long doctorId, LocalDate startDate, LocalDate endDate) {
+        double totalConsultation = 0, totalProcedures = 0;
+        long newPatients = 0, followUpPatients = 0;
+        Map<String, Double> doctorPerformance = new HashMap<>();
+        Map<LocalDate, double[]> trend = new TreeMap<>();
+
+        for (DailyStatsRow row : statsRepository.findRows(clinicId, doctorId, startDate, endDate)) {
+            double total = orZero(row.getTotal());
+            totalConsultation += orZero(row.getConsultation());
+            totalProcedures += orZero(row.getOtherCharges());
+            newPatients += row.getNewPatients();
+            followUpPatients += row.getFollowUps();
+            doctorPerformance.merge(row.getDoctorName(), total, Double::sum);
+            double[] day = trend.computeIfAbsent(row.getDate(), d -> new double[2]);
+            day[0] += total;
+            day[1] += row.getVisits();
+        }
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("filteredRevenue", totalConsultation + totalProcedures);
+        stats.put("incomeBreakdown", Map.of("Consultation", totalConsultation, "Procedures", totalProcedures));
+        stats.put("patientRatio", Map.of("New", newPatients, "FollowUp", followUpPatients));
+        stats.put("doctorPerformance", doctorPerformance);
+
+        List<Map<String, Object>> dailyTrend = new ArrayList<>();
+        trend.forEach((date, day) -> {
+            Map<String, Object> dayStat = new HashMap<>();
+            dayStat.put("date", date);
+            dayStat.put("total", day[0]);
+            dayStat.put("count", (long) day[1]);
+            dailyTrend.add(dayStat);
+        });
+        stats.put("dailyTrend", dailyTrend);
+        return stats;
+    }
+}
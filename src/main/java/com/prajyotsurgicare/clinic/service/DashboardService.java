@@ -1,11 +1,17 @@
 package com.prajyotsurgicare.clinic.service;
 
 import com.prajyotsurgicare.clinic.dto.BillingRequest;
+import com.prajyotsurgicare.clinic.dto.DailyStatsRow;
 import com.prajyotsurgicare.clinic.dto.MedicalInfoRequest;
+import com.prajyotsurgicare.clinic.dto.QueueReorderRequest;
+import com.prajyotsurgicare.clinic.dto.VisitScope;
 import com.prajyotsurgicare.clinic.dto.VitalsRequest;
 import com.prajyotsurgicare.clinic.entity.Visit;
 import com.prajyotsurgicare.clinic.enums.VisitStatus;
+import com.prajyotsurgicare.clinic.exception.BadRequestException;
+import com.prajyotsurgicare.clinic.exception.ConflictException;
 import com.prajyotsurgicare.clinic.repository.PrescriptionFileRepository;
+import com.prajyotsurgicare.clinic.repository.VisitBatchRepository;
 import com.prajyotsurgicare.clinic.repository.VisitRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -29,16 +35,17 @@ public class DashboardService {
 
     private final PrescriptionFileRepository fileRepository;
     private final VisitRepository visitRepository;
+    private final VisitBatchRepository visitBatchRepository;
     private final WebSocketService webSocketService;
     private final NotificationService notificationService;
+    private final LiveQueueService liveQueueService;
+    private final TokenService tokenService;
+    private final DailyStatsService dailyStatsService;
+    private final TodayStatsService todayStatsService;
 
     // ... (Other methods: getWaitingCount, getTodayQueue, etc. keep as is) ...
     public long getWaitingCount(Long clinicId, LocalDate date) {
-        return visitRepository.countByStatusAndVisitDateAndClinicId(
-                VisitStatus.ARRIVED,
-                date != null ? date : LocalDate.now(),
-                clinicId
-        );
+        return todayStatsService.getStats(clinicId, date, null).getWaitingCount();
     }
     // ✅ रिसेप्शनिस्टसाठी ओव्हरलोड मेथड (Missing Method)
     // ही मेथड वेब ॲप (Angular) साठी आवश्यक आहे जिथे doctorId पाठवला जात नाही.
@@ -64,6 +71,7 @@ public class DashboardService {
     }
 
     private List<Map<String, Object>> mapVisits(List<Visit> visits) {
+        Set<Long> visitsWithFiles = fileRepository.visitIdsWithFiles(visits.stream().map(Visit::getId).toList());
         return visits.stream().map(v -> {
             Map<String, Object> map = new HashMap<>();
             map.put("tokenNumber", v.getTokenNumber());
@@ -78,7 +86,7 @@ public class DashboardService {
             } else {
                 map.put("time", "Anytime");
             }
-            boolean fileExists = !fileRepository.findByVisitId(v.getId()).isEmpty();            map.put("hasFile", fileExists);
+            map.put("hasFile", visitsWithFiles.contains(v.getId()));
             map.put("doctorName", v.getDoctor().getName());
             map.put("bp", v.getBp());
             return map;
@@ -88,12 +96,18 @@ public class DashboardService {
     @Transactional
     public void markArrived(Long visitId) {
         Visit visit = visitRepository.findById(visitId).orElseThrow(() -> new RuntimeException("Visit not found"));
+        DailyStatsRow statsBefore = dailyStatsService.snapshot(visit);
         if (!visit.getVisitDate().equals(LocalDate.now())) {
             visit.setVisitDate(LocalDate.now());
+            // जुन्या तारखेचा token आजच्या tokens सोबत clash होऊ नये
+            visit.setTokenNumber(tokenService.nextToken(
+                    visit.getClinic().getId(), visit.getDoctor().getId(), visit.getVisitDate()));
         }
         visit.setStatus(VisitStatus.ARRIVED);
         visit.setQueueOrder(LocalTime.now().toSecondOfDay());
         visitRepository.save(visit);
+        dailyStatsService.recordChange(statsBefore, visit);
+        liveQueueService.trackChange(visit);
         TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
             @Override
             public void afterCommit() {
@@ -106,6 +120,7 @@ public class DashboardService {
     @Transactional
     public void markVisitAsCompleted(Long visitId, BillingRequest request) {
         Visit visit = visitRepository.findById(visitId).orElseThrow();
+        DailyStatsRow statsBefore = dailyStatsService.snapshot(visit);
 
         log.info("💰 Completing Visit ID: {}. Amount: {}", visitId, request.getAmount());
 
@@ -146,12 +161,14 @@ public class DashboardService {
 
         // 4. SAVE AND FLUSH (Immediate Commit)
         visitRepository.saveAndFlush(visit);
+        dailyStatsService.recordChange(statsBefore, visit);
 
         // 5. SAFETY NET: Direct SQL Update (To be 100% sure)
         if (request.getFollowUpDate() != null) {
             visitRepository.updateFollowUpDateDirectly(visitId, request.getFollowUpDate());
             log.info("🔒 Double Secured: Follow-up date updated via Query.");
         }
+        liveQueueService.trackChange(visit);
 
         TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
             @Override
@@ -167,24 +184,78 @@ public class DashboardService {
         });
     }
 
+    // ⚠️ OLD API: फक्त ids (concurrency check नाही)
     @Transactional
     public void updateQueueOrder(List<Long> visitIds) {
-        Long clinicId = null;
-        for (int i = 0; i < visitIds.size(); i++) {
-            Visit visit = visitRepository.findById(visitIds.get(i)).orElseThrow();
-            visit.setQueueOrder(i + 1);
-            visitRepository.save(visit);
-            if (clinicId == null) clinicId = visit.getClinic().getId();
+        QueueReorderRequest request = new QueueReorderRequest();
+        request.setItems(visitIds.stream().map(id -> {
+            QueueReorderRequest.Item item = new QueueReorderRequest.Item();
+            item.setVisitId(id);
+            return item;
+        }).toList());
+        reorderQueue(request);
+    }
+
+    // 🔀 Batch reorder: एक validation query + एक JDBC batch (per-row findById/save नाही)
+    @Transactional
+    public void reorderQueue(QueueReorderRequest request) {
+        List<QueueReorderRequest.Item> items = request.getItems();
+        if (items == null || items.isEmpty()) {
+            return;
         }
-        if (clinicId != null) {
-            Long finalClinicId = clinicId;
-            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
-                @Override
-                public void afterCommit() {
-                    webSocketService.sendQueueUpdate(finalClinicId, "REFRESH_QUEUE");
-                }
-            });
+
+        List<Long> visitIds = items.stream().map(QueueReorderRequest.Item::getVisitId).toList();
+        if (visitIds.contains(null) || new HashSet<>(visitIds).size() != visitIds.size()) {
+            throw new BadRequestException("Reorder list has missing or duplicate visit ids");
         }
+
+        // 1. सर्व visits एकाच clinic आणि एकाच दिवसाच्या आहेत का?
+        List<VisitScope> scopes = visitRepository.findScopesByIdIn(visitIds);
+        if (scopes.size() != visitIds.size()) {
+            throw new BadRequestException("Some visits in the reorder list were not found");
+        }
+        Set<Long> clinics = scopes.stream().map(VisitScope::getClinicId).collect(Collectors.toSet());
+        Set<LocalDate> dates = scopes.stream().map(VisitScope::getVisitDate).collect(Collectors.toSet());
+        if (clinics.size() != 1 || dates.size() != 1) {
+            throw new BadRequestException("All visits in a reorder must belong to the same clinic and day");
+        }
+
+        // 2. Client ने पाहिलेला क्रम आताच जुना असेल तर batch न चालवता लगेच 409
+        Map<Long, Integer> currentOrders = new HashMap<>();
+        scopes.forEach(scope -> currentOrders.put(scope.getVisitId(), scope.getQueueOrder()));
+        List<Long> stale = items.stream()
+                .filter(item -> item.getExpectedQueueOrder() != null
+                        && !item.getExpectedQueueOrder().equals(currentOrders.get(item.getVisitId())))
+                .map(QueueReorderRequest.Item::getVisitId)
+                .toList();
+        if (!stale.isEmpty()) {
+            throw new ConflictException("Queue was changed by someone else (visits " + stale + "). Please refresh and retry.");
+        }
+
+        // 3. नवीन queueOrder लावा. Validation नंतर मधेच बदल झाला तर CAS पकडतो आणि पूर्ण reorder rollback
+        List<Integer> newOrders = new ArrayList<>();
+        List<Integer> expectedOrders = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            newOrders.add(i + 1);
+            expectedOrders.add(items.get(i).getExpectedQueueOrder());
+        }
+        List<Long> conflicts = visitBatchRepository.updateQueueOrders(visitIds, newOrders, expectedOrders);
+        if (!conflicts.isEmpty()) {
+            throw new ConflictException("Queue was changed by someone else (visits " + conflicts + "). Please refresh and retry.");
+        }
+
+        Long clinicId = clinics.iterator().next();
+        Map<Long, Integer> orderByVisit = new HashMap<>();
+        for (int i = 0; i < visitIds.size(); i++) {
+            orderByVisit.put(visitIds.get(i), newOrders.get(i));
+        }
+        liveQueueService.trackReorder(clinicId, dates.iterator().next(), visitIds, orderByVisit);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                webSocketService.sendQueueUpdate(clinicId, "REFRESH_QUEUE");
+            }
+        });
     }
 
     @Transactional
@@ -195,16 +266,32 @@ public class DashboardService {
         visit.setPulse(request.getPulse());
         visit.setWeight(request.getWeight());
         visitRepository.save(visit);
-        webSocketService.sendQueueUpdate(visit.getClinic().getId(), "REFRESH_QUEUE");
+        Long clinicId = visit.getClinic().getId();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                webSocketService.sendQueueUpdate(clinicId, "REFRESH_QUEUE");
+            }
+        });
     }
 
     @Transactional
     public void markEmergency(Long visitId) {
         Visit visit = visitRepository.findById(visitId).orElseThrow();
+        DailyStatsRow statsBefore = dailyStatsService.snapshot(visit);
         visit.setEmergency(true);
         visit.setStatus(VisitStatus.ARRIVED);
         visitRepository.save(visit);
-        webSocketService.sendQueueUpdate(visit.getClinic().getId(), "EMERGENCY");
+        dailyStatsService.recordChange(statsBefore, visit);
+        liveQueueService.trackChange(visit);
+        // Commit आधी पाठवले तर client जुनाच डेटा refetch करतो
+        Long clinicId = visit.getClinic().getId();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                webSocketService.sendQueueUpdate(clinicId, "EMERGENCY");
+            }
+        });
     }
     // ✅ Updated getVisitDetails method in DashboardService.java
     public Map<String, Object> getVisitDetails(Long visitId) {
@@ -286,6 +373,7 @@ public class DashboardService {
         if (visit.getStatus() == VisitStatus.ARRIVED) {
             visit.setStatus(VisitStatus.BOOKED);
             visitRepository.save(visit);
+            liveQueueService.trackChange(visit);
             TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
                 @Override
                 public void afterCommit() {
@@ -298,54 +386,14 @@ public class DashboardService {
 
 
     // ✅ २. डॉक्टरसाठी (Main Logic सह नवीन मेथड)
+    // 🔥 रांग आता LiveQueueService च्या memory मधून (प्रत्येक refresh ला DB query नाही)
     public List<Map<String, Object>> getTodayQueue(Long clinicId, LocalDate date, Long doctorId) {
-        LocalDate queryDate = (date != null) ? date : LocalDate.now();
-
-        // रांगेत दिसण्यासाठी स्टेटस फिल्टर्स
-        List<VisitStatus> activeStatuses = Arrays.asList(
-                VisitStatus.ARRIVED,
-                VisitStatus.BILLING_PENDING,
-                VisitStatus.COMPLETED
-        );
-
-        List<Visit> queue;
         if (doctorId != null) {
             log.info("🏥 Fetching Queue for Doctor ID: {} at Clinic: {}", doctorId, clinicId);
-            // 🔥 Doctor-wise Filter (Repository मध्ये ही मेथड ॲड करा)
-            queue = visitRepository.findByVisitDateAndClinicIdAndDoctorIdAndStatusInOrderByEmergencyDescTokenNumberAsc(
-                    queryDate, clinicId, doctorId, activeStatuses
-            );
         } else {
             log.info("🏢 Fetching Full Clinic Queue for Clinic ID: {}", clinicId);
-            // रिसेप्शनिस्टसाठी सर्व पेशंट्स
-            queue = visitRepository.findByVisitDateAndClinicIdAndStatusInOrderByEmergencyDescTokenNumberAsc(
-                    queryDate, clinicId, activeStatuses
-            );
-        }
-
-        return queue.stream().map(this::mapToQueueMap).collect(Collectors.toList());
-    }
-
-    // ✅ ३. मॅपिंग हेल्पपर (Queue साठी)
-    private Map<String, Object> mapToQueueMap(Visit v) {
-        Map<String, Object> map = new HashMap<>();
-        map.put("visitId", v.getId());
-        map.put("tokenNumber", v.getTokenNumber());
-        map.put("patientName", v.getPatient().getName());
-        map.put("visitType", v.getVisitType());
-        map.put("status", v.getStatus());
-        map.put("isEmergency", v.isEmergency());
-        map.put("doctorName", v.getDoctor().getName());
-        map.put("mobile", v.getPatient().getMobile());
-
-        // Completion Time जर व्हिजिट पूर्ण झाली असेल तर
-        if (v.getStatus() == VisitStatus.COMPLETED && v.getCompletionDateTime() != null) {
-            map.put("time", v.getCompletionDateTime());
-        } else {
-            map.put("time", "In Queue");
         }
-
-        return map;
+        return liveQueueService.getQueue(clinicId, date, doctorId);
     }
 
     public List<Map<String, Object>> getTodayFollowUps(Long clinicId, Long doctorId) {
@@ -1,8 +1,8 @@
 package com.prajyotsurgicare.clinic.service;
 
+import com.prajyotsurgicare.clinic.dto.DailyStatsRow;
 import com.prajyotsurgicare.clinic.dto.MedicalHistoryResponse;
 import com.prajyotsurgicare.clinic.dto.MedicalInfoRequest;
-import com.prajyotsurgicare.clinic.entity.PrescriptionFile;
 import com.prajyotsurgicare.clinic.entity.Visit;
 import com.prajyotsurgicare.clinic.enums.VisitStatus;
 import com.prajyotsurgicare.clinic.enums.VisitType; // ✅ Import VisitType
@@ -28,6 +28,8 @@ public class DoctorDashboardService {
     private final WebSocketService webSocketService;
     private final VisitRepository visitRepository;
     private final NotificationService notificationService;
+    private final LiveQueueService liveQueueService;
+    private final DailyStatsService dailyStatsService;
 
     // 🔥🔥 NEW: PrescriptionService Inject केला
     private final PrescriptionService prescriptionService;
@@ -42,6 +44,7 @@ public class DoctorDashboardService {
                 .findByVisitDateAndClinicIdAndStatusInOrderByEmergencyDescQueueOrderAsc(
                         date, clinicId, activeStatuses
                 );
+        Set<Long> visitsWithFiles = fileRepository.visitIdsWithFiles(visits.stream().map(Visit::getId).toList());
 
         return visits.stream()
                 .filter(v -> {
@@ -62,8 +65,7 @@ public class DoctorDashboardService {
                     map.put("weight", v.getWeight());
                     map.put("isEmergency", v.isEmergency());
 
-                    List<PrescriptionFile> files = fileRepository.findAllByVisitId(v.getId());
-                    map.put("hasFile", !files.isEmpty());
+                    map.put("hasFile", visitsWithFiles.contains(v.getId()));
 
                     return map;
                 })
@@ -76,6 +78,7 @@ public class DoctorDashboardService {
 
         Visit visit = visitRepository.findById(visitId)
                 .orElseThrow(() -> new RuntimeException("Visit not found"));
+        DailyStatsRow statsBefore = dailyStatsService.snapshot(visit);
 
         // 1. डेटा अपडेट करा
         visit.setDiagnosis(request.getDiagnosis());
@@ -107,6 +110,8 @@ public class DoctorDashboardService {
         }
 
         visitRepository.save(visit);
+        dailyStatsService.recordChange(statsBefore, visit);
+        liveQueueService.trackChange(visit);
 
        /* // 🔥🔥🔥 MAIN FIX: जर On-Call असेल तर PDF बनवा आणि DB मध्ये सेव्ह करा 🔥🔥🔥
         if (visit.getVisitType() == VisitType.ON_CALL) {
@@ -133,11 +138,12 @@ public class DoctorDashboardService {
 
     @Transactional(readOnly = true)
     public List<MedicalHistoryResponse> getPatientHistory(Long patientId) {
-        return visitRepository.findByPatientIdOrderByVisitDateDesc(patientId)
-                .stream()
+        List<Visit> visits = visitRepository.findByPatientIdOrderByVisitDateDesc(patientId);
+        Set<Long> visitsWithFiles = fileRepository.visitIdsWithFiles(visits.stream().map(Visit::getId).toList());
+
+        return visits.stream()
                 .map(v -> {
-                    List<PrescriptionFile> files = fileRepository.findAllByVisitId(v.getId());
-                    boolean hasFile = !files.isEmpty();
+                    boolean hasFile = visitsWithFiles.contains(v.getId());
 
                     String docName = (v.getDoctor() != null) ? v.getDoctor().getName() : "Unknown";
                     String clinicName = (v.getClinic() != null) ? v.getClinic().getName() : "Unknown";
@@ -163,11 +169,13 @@ public class DoctorDashboardService {
     public void updateMedicalDetails(Long visitId, MedicalInfoRequest request) {
         Visit visit = visitRepository.findById(visitId)
                 .orElseThrow(() -> new RuntimeException("Visit not found"));
+        DailyStatsRow statsBefore = dailyStatsService.snapshot(visit);
 
         visit.setDiagnosis(request.getDiagnosis());
         if (request.getOtherCharges() != null) {
             visit.setOtherCharges(request.getOtherCharges());
         }
         visitRepository.save(visit);
+        dailyStatsService.recordChange(statsBefore, visit);
     }
 }
\ No newline at end of file
@@ -0,0 +1,327 @@
+package com.prajyotsurgicare.clinic.service;
+
+import com.prajyotsurgicare.clinic.dto.QueueEntry;
+import com.prajyotsurgicare.clinic.dto.QueueEvent;
+import com.prajyotsurgicare.clinic.entity.Visit;
+import com.prajyotsurgicare.clinic.enums.QueueEventType;
+import com.prajyotsurgicare.clinic.enums.VisitStatus;
+import com.prajyotsurgicare.clinic.repository.VisitRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 🏥 आजच्या रांगेचे (per clinic) in-memory model.
+// एकदा DB मधून build होते, मग प्रत्येक state transition (arrive, emergency, complete, revert, reorder)
+// commit झाल्यावर incremental update होते. ठराविक वेळाने DB सोबत reconcile होते.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LiveQueueService {
+
+    // रांगेत दिसण्यासाठी स्टेटस फिल्टर्स
+    public static final List<VisitStatus> ACTIVE_STATUSES = List.of(
+            VisitStatus.ARRIVED,
+            VisitStatus.BILLING_PENDING,
+            VisitStatus.COMPLETED
+    );
+
+    private static final Comparator<QueueEntry> QUEUE_ORDER = Comparator
+            .comparing(QueueEntry::isEmergency).reversed()
+            .thenComparing(QueueEntry::getTokenNumber, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(QueueEntry::getVisitId);
+
+    private final VisitRepository visitRepository;
+    private final QueueEventService queueEventService;
+    private final TodayStatsService todayStatsService;
+
+    @Value("${clinic.queue.reconcile-interval:PT5M}")
+    private Duration reconcileInterval;
+
+    private final Map<Long, ClinicQueue> queues = new ConcurrentHashMap<>();
+    // प्रत्येक clinic साठी mutation counter: build चालू असताना update आला तर ते build cache करू नये
+    private final Map<Long, AtomicLong> epochs = new ConcurrentHashMap<>();
+
+    // =================================================================
+    // READ
+    // =================================================================
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getQueue(Long clinicId, LocalDate date, Long doctorId) {
+        LocalDate queryDate = (date != null) ? date : LocalDate.now();
+
+        // फक्त आजची रांग memory मध्ये, जुन्या/पुढच्या तारखा थेट DB मधून
+        if (!queryDate.equals(LocalDate.now())) {
+            return filter(loadFromDb(clinicId, queryDate), doctorId);
+        }
+
+        ClinicQueue queue = queues.get(clinicId);
+        if (queue == null || !queue.date.equals(queryDate) || queue.isStale(reconcileInterval)) {
+            queue = rebuild(clinicId, queryDate);
+        }
+        return filter(queue.snapshot(), doctorId);
+    }
+
+    private ClinicQueue rebuild(Long clinicId, LocalDate date) {
+        AtomicLong epoch = epochOf(clinicId);
+        long before = epoch.get();
+
+        log.info("🔄 Rebuilding live queue for Clinic: {} ({})", clinicId, date);
+        ClinicQueue fresh = new ClinicQueue(date, loadFromDb(clinicId, date));
+
+        // Build दरम्यान commit झालेला update miss होऊ नये: तसे झाले तर cache न करता फक्त हे उत्तर द्या.
+        // Epoch check आणि install एकाच compute मध्ये (apply पण तिथेच epoch वाढवतो), मधे update घुसू शकत नाही
+        ClinicQueue[] replaced = new ClinicQueue[1];
+        boolean[] installed = new boolean[1];
+        queues.compute(clinicId, (id, current) -> {
+            if (epoch.get() != before) {
+                return current;
+            }
+            replaced[0] = current;
+            installed[0] = true;
+            return fresh;
+        });
+
+        // Reconcile मध्ये DB आणि memory वेगळे निघाले: delta subscribers कडे पण तीच जुनी रांग आहे
+        ClinicQueue previous = replaced[0];
+        if (installed[0] && previous != null && previous.date.equals(date) && !sameRows(previous, fresh)) {
+            log.warn("⚠️ Live queue for Clinic {} drifted from DB, asking clients to resync", clinicId);
+            publishResync(clinicId, date);
+        }
+        return fresh;
+    }
+
+    private AtomicLong epochOf(Long clinicId) {
+        return epochs.computeIfAbsent(clinicId, k -> new AtomicLong());
+    }
+
+    private boolean sameRows(ClinicQueue a, ClinicQueue b) {
+        return a.snapshot().stream().map(QueueEntry::toMap).toList()
+                .equals(b.snapshot().stream().map(QueueEntry::toMap).toList());
+    }
+
+    private void publishResync(Long clinicId, LocalDate date) {
+        queueEventService.publish(QueueEvent.builder()
+                .clinicId(clinicId)
+                .type(QueueEventType.RESYNC)
+                .visitDate(date)
+                .build());
+    }
+
+    private List<QueueEntry> loadFromDb(Long clinicId, LocalDate date) {
+        return visitRepository.findQueueWithDetails(date, clinicId, ACTIVE_STATUSES)
+                .stream()
+                .map(QueueEntry::from)
+                .toList();
+    }
+
+    private List<Map<String, Object>> filter(List<QueueEntry> entries, Long doctorId) {
+        return entries.stream()
+                .filter(e -> doctorId == null || doctorId.equals(e.getDoctorId()))
+                .map(QueueEntry::toMap)
+                .toList();
+    }
+
+    // =================================================================
+    // WRITE (state transitions)
+    // =================================================================
+
+    // Transaction मध्येच snapshot घ्या (lazy fields अजून load होतात), commit नंतर apply करा
+    public void trackChange(Visit visit) {
+        QueueEntry entry = QueueEntry.from(visit);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(entry);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(entry);
+            }
+        });
+    }
+
+    public void apply(QueueEntry entry) {
+        Long clinicId = entry.getClinicId();
+        AtomicLong epoch = epochOf(clinicId);
+        todayStatsService.invalidate(clinicId);
+        boolean active = ACTIVE_STATUSES.contains(entry.getStatus());
+
+        // Epoch वाढवणे आणि रांग update एकाच compute मध्ये: rebuild ची जुनी रांग हा update पुसू शकत नाही
+        QueueEventType[] result = new QueueEventType[1];
+        queues.compute(clinicId, (id, queue) -> {
+            epoch.incrementAndGet();
+            if (queue == null) {
+                // अजून build झाली नाही, पुढच्या read ला DB मधून येईल. Client ला तरी upsert/remove कळवा.
+                result[0] = active ? QueueEventType.STATUS_CHANGED : QueueEventType.REMOVED;
+                return null;
+            }
+            try {
+                QueueEntry previous = queue.apply(entry);
+                boolean nowInQueue = active && queue.date.equals(entry.getVisitDate());
+                if (previous == null) {
+                    result[0] = nowInQueue ? QueueEventType.VISIT_ADDED : null;
+                } else {
+                    result[0] = nowInQueue ? QueueEventType.STATUS_CHANGED : QueueEventType.REMOVED;
+                }
+                return queue;
+            } catch (Exception e) {
+                log.warn("⚠️ Live queue update failed for Clinic {}, will rebuild: {}", clinicId, e.getMessage());
+                result[0] = active ? QueueEventType.STATUS_CHANGED : QueueEventType.REMOVED;
+                return null;
+            }
+        });
+        QueueEventType eventType = result[0];
+
+        if (eventType != null) {
+            queueEventService.publish(QueueEvent.builder()
+                    .clinicId(clinicId)
+                    .type(eventType)
+                    .visitId(entry.getVisitId())
+                    .visitDate(entry.getVisitDate())
+                    .row(eventType == QueueEventType.REMOVED ? null : entry.toMap())
+                    .build());
+        }
+    }
+
+    // 🔀 Drag-drop reorder: प्रत्येक visit साठी वेगळा event नको, एकच REORDERED event
+    public void trackReorder(Long clinicId, LocalDate date, List<Long> visitIds, Map<Long, Integer> queueOrders) {
+        List<Long> orderedIds = List.copyOf(visitIds);
+        Map<Long, Integer> orders = Map.copyOf(queueOrders);
+        Runnable applyReorder = () -> {
+            AtomicLong epoch = epochOf(clinicId);
+            queues.compute(clinicId, (id, queue) -> {
+                epoch.incrementAndGet();
+                if (queue != null) {
+                    queue.updateQueueOrders(orders);
+                }
+                return queue;
+            });
+            queueEventService.publish(QueueEvent.builder()
+                    .clinicId(clinicId)
+                    .type(QueueEventType.REORDERED)
+                    .visitDate(date)
+                    .visitIds(orderedIds)
+                    .build());
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            applyReorder.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                applyReorder.run();
+            }
+        });
+    }
+
+    // Patient rename/delete सारख्या दुर्मिळ बदलांसाठी: commit नंतर पुढच्या read ला DB मधून rebuild
+    public void invalidateAll() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    clear();
+                }
+            });
+        } else {
+            clear();
+        }
+    }
+
+    private void clear() {
+        epochs.values().forEach(AtomicLong::incrementAndGet);
+        queues.clear();
+        todayStatsService.invalidateAll();
+        // नाव बदल / patient delete delta म्हणून पाठवता येत नाही: रांग पाहिलेल्या प्रत्येक clinic ला resync
+        LocalDate today = LocalDate.now();
+        epochs.keySet().forEach(clinicId -> publishResync(clinicId, today));
+    }
+
+    // 🌙 मध्यरात्री नंतर कालची रांग memory मधून काढा
+    @Scheduled(cron = "0 1 0 * * ?")
+    public void evictPastDays() {
+        LocalDate today = LocalDate.now();
+        queues.entrySet().removeIf(e -> !e.getValue().date.equals(today));
+    }
+
+    // =================================================================
+    // एका clinic ची एका दिवसाची रांग (emergency आधी, मग token)
+    // =================================================================
+    private static class ClinicQueue {
+        private final LocalDate date;
+        private final Instant builtAt = Instant.now();
+        private final Map<Long, QueueEntry> byVisitId = new HashMap<>();
+        private final TreeSet<QueueEntry> ordered = new TreeSet<>(QUEUE_ORDER);
+        private volatile List<QueueEntry> snapshot;
+
+        ClinicQueue(LocalDate date, List<QueueEntry> entries) {
+            this.date = date;
+            entries.forEach(this::put);
+        }
+
+        synchronized void put(QueueEntry entry) {
+            remove(entry.getVisitId());
+            byVisitId.put(entry.getVisitId(), entry);
+            ordered.add(entry);
+            snapshot = null;
+        }
+
+        // Remove + re-insert एकत्र, म्हणजे वाचणाऱ्याला row मधेच गायब दिसणार नाही
+        synchronized QueueEntry apply(QueueEntry entry) {
+            QueueEntry previous = byVisitId.get(entry.getVisitId());
+            remove(entry.getVisitId());
+            if (ACTIVE_STATUSES.contains(entry.getStatus()) && date.equals(entry.getVisitDate())) {
+                put(entry);
+            }
+            return previous;
+        }
+
+        synchronized void updateQueueOrders(Map<Long, Integer> orders) {
+            orders.forEach((visitId, order) -> {
+                QueueEntry current = byVisitId.get(visitId);
+                if (current != null) {
+                    put(current.toBuilder().queueOrder(order).build());
+                }
+            });
+        }
+
+        synchronized void remove(Long visitId) {
+            QueueEntry old = byVisitId.remove(visitId);
+            if (old != null) {
+                ordered.remove(old);
+                snapshot = null;
+            }
+        }
+
+        // बऱ्याच tablets एकाच वेळी वाचतात, म्हणून तयार list share करा
+        List<QueueEntry> snapshot() {
+            List<QueueEntry> current = snapshot;
+            if (current == null) {
+                synchronized (this) {
+                    current = snapshot;
+                    if (current == null) {
+                        current = List.copyOf(ordered);
+                        snapshot = current;
+                    }
+                }
+            }
+            return current;
+        }
+
+        boolean isStale(Duration maxAge) {
+            return builtAt.plus(maxAge).isBefore(Instant.now());
+        }
+    }
+}
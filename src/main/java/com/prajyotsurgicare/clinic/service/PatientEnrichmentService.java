@@ -0,0 +1,46 @@
+package com.prajyotsurgicare.clinic.service;
+
+import com.prajyotsurgicare.clinic.dto.PatientVisitStats;
+import com.prajyotsurgicare.clinic.repository.VisitRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+@RequiredArgsConstructor
+public class PatientEnrichmentService {
+
+    private final VisitRepository visitRepository;
+
+    // 🔥 सर्व पेशंट्सचे visit count + next follow-up एकाच grouped query मध्ये (per-row query नाही)
+    @Transactional(readOnly = true)
+    public Map<Long, PatientVisitStats> getVisitStats(Collection<Long> patientIds) {
+        Set<Long> ids = new LinkedHashSet<>(patientIds);
+        ids.remove(null);
+
+        Map<Long, PatientVisitStats> result = new HashMap<>();
+        if (ids.isEmpty()) {
+            return result;
+        }
+
+        for (PatientVisitStats stats : visitRepository.findVisitStatsByPatientIds(ids, LocalDate.now())) {
+            result.put(stats.getPatientId(), stats);
+        }
+        // ज्यांची एकही visit नाही त्यांना 0 count
+        for (Long id : ids) {
+            result.putIfAbsent(id, PatientVisitStats.empty(id));
+        }
+        return result;
+    }
+
+    public PatientVisitStats getVisitStats(Long patientId) {
+        return getVisitStats(Set.of(patientId)).get(patientId);
+    }
+}
@@ -0,0 +1,82 @@
+package com.prajyotsurgicare.clinic.service;
+
+import com.prajyotsurgicare.clinic.entity.Patient;
+import com.prajyotsurgicare.clinic.repository.PatientRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 🔍 Reception desk search (प्रत्येक keystroke ला call होतो)
+// - Name: prefix match आधी, मग typo-tolerant trigram match (word similarity नुसार, GiST KNN)
+// - Mobile: prefix, मग suffix (शेवटचे अंक), मग contains (1-2 अंकांसाठी फक्त prefix)
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PatientSearchService {
+
+    private final PatientRepository patientRepository;
+
+    // SearchIndexInitializer startup ला indexes बनवल्यावर true करतो
+    private volatile boolean trigramEnabled = false;
+
+    public void setTrigramEnabled(boolean trigramEnabled) {
+        this.trigramEnabled = trigramEnabled;
+    }
+
+    @Transactional(readOnly = true)
+    public List<Patient> search(String query, int page, int size) {
+        String q = query == null ? "" : query.trim();
+        if (q.isEmpty()) {
+            return List.of();
+        }
+
+        int offset = page * size;
+        boolean isMobile = q.matches("\\d+");
+
+        if (!trigramEnabled) {
+            PageRequest pageable = PageRequest.of(page, size);
+            return isMobile
+                    ? patientRepository.findByMobileContainingOrderByIdDesc(q, pageable)
+                    : patientRepository.findByNameContainingIgnoreCaseOrderByIdDesc(q, pageable);
+        }
+
+        if (isMobile) {
+            return q.length() < 3
+                    ? patientRepository.searchByMobilePrefix(q, size, offset)
+                    : patientRepository.searchByMobileRanked(q, size, offset);
+        }
+
+        String term = q.toLowerCase();
+        // 1-2 अक्षरांसाठी trigram उपयोगी नाही, फक्त prefix index वापरा
+        if (term.length() < 3) {
+            return patientRepository.searchByNamePrefix(escapeLike(term) + "%", size, offset);
+        }
+        return searchNameRanked(term, size, offset);
+    }
+
+    // Prefix matches (btree, नावाच्या क्रमाने) आधी, page उरले तर trigram KNN ने जवळचे matches.
+    // दोन्ही queries फक्त page पुरतेच rows वाचतात.
+    private List<Patient> searchNameRanked(String term, int size, int offset) {
+        String prefix = escapeLike(term) + "%";
+        List<Patient> results = new ArrayList<>(patientRepository.searchByNamePrefix(prefix, size, offset));
+        if (results.size() == size) {
+            return results;
+        }
+        // हे page prefix block च्या शेवटी/पलीकडे: trigram matches मध्ये offset किती ते ठरवा
+        long prefixTotal = results.isEmpty()
+                ? patientRepository.countByNamePrefixUpTo(prefix, offset)
+                : offset + results.size();
+        int similarOffset = (int) Math.max(offset - prefixTotal, 0);
+        results.addAll(patientRepository.searchByNameSimilar(term, prefix, size - results.size(), similarOffset));
+        return results;
+    }
+
+    private String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -9,6 +9,7 @@ import com.prajyotsurgicare.clinic.enums.VisitStatus;
 import com.prajyotsurgicare.clinic.exception.BadRequestException;
 import com.prajyotsurgicare.clinic.mapper.PatientMapper;
 import com.prajyotsurgicare.clinic.repository.PatientRepository;
+import com.prajyotsurgicare.clinic.repository.PrescriptionFileRepository;
 import com.prajyotsurgicare.clinic.repository.VisitRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -30,6 +31,12 @@ public class PatientService {
     private final PatientRepository patientRepository;
     private final PatientMapper patientMapper;
     private final VisitRepository visitRepository;
+    private final PatientSearchService patientSearchService;
+    private final LiveQueueService liveQueueService;
+    private final PrescriptionFileCache prescriptionFileCache;
+    private final PrescriptionFileRepository prescriptionFileRepository;
+    private final PrescriptionStorageService prescriptionStorageService;
+    private final DailyStatsService dailyStatsService;
 
     public Patient getOrCreatePatient(PatientRegistrationRequest request) {
         String mobile = request.getMobile();
@@ -47,35 +54,20 @@ public class PatientService {
             return patientRepository.save(newPatient);
         }
     }
-    // ✅ FIXED: Total Visits आणि Nearest follow-up दाखवतो
+    // ✅ Total Visits आणि Nearest follow-up: पूर्ण page साठी एकच aggregate query
     public Page<PatientResponse> getAllPatients(Pageable pageable) {
         log.info("📋 Fetching Patients List Page...");
 
-        return patientRepository.findAll(pageable)
-                .map(patient -> {
-                    // 🔥 १. पेशंटच्या एकूण व्हिजिट्स मोजा
-                    long visitsCount = visitRepository.countByPatientId(patient.getId());
-
-                    // 🔥 २. सर्व upcoming follow-ups शोधा
-                    LocalDate nextFollowUp = visitRepository
-                            .findNextFollowUpDate(patient.getId(), LocalDate.now())
-                            .orElse(null);
-
-                    if(nextFollowUp != null) {
-                        log.info("📅 Patient: {} | Next Follow-up: {}",
-                                patient.getName(), nextFollowUp);
-                    }
-
-                    return PatientResponse.builder()
-                            .id(patient.getId())
-                            .name(patient.getName())
-                            .mobile(patient.getMobile())
-                            .gender(patient.getGender() != null ? patient.getGender().name() : null)
-                            .age(patient.getAge())
-                            .totalVisits((int) visitsCount) // ✅ आता 0 ऐवजी Actual Count दिसेल
-                            .followUpDate(nextFollowUp)
-                            .build();
-                });
+        return patientRepository.findPatientSummaries(LocalDate.now(), pageable)
+                .map(row -> PatientResponse.builder()
+                        .id(row.getId())
+                        .name(row.getName())
+                        .mobile(row.getMobile())
+                        .gender(row.getGender() != null ? row.getGender().name() : null)
+                        .age(row.getAge())
+                        .totalVisits(row.getTotalVisits() != null ? row.getTotalVisits().intValue() : 0)
+                        .followUpDate(row.getNextFollowUp())
+                        .build());
     }
 
     public Patient updatePatient(Long id, UpdatePatientRequest request) {
@@ -85,7 +77,10 @@ public class PatientService {
         if (request.getGender() != null) patient.setGender(request.getGender());
         if (request.getAge() != null) patient.setAge(request.getAge());
         if (request.getAddress() != null) patient.setAddress(request.getAddress());
-        return patientRepository.save(patient);
+        Patient saved = patientRepository.save(patient);
+        // रांगेत जुने नाव दिसू नये
+        liveQueueService.invalidateAll();
+        return saved;
     }
 
     public Patient getPatientById(Long id) {
@@ -93,19 +88,21 @@ public class PatientService {
                 .orElseThrow(() -> new BadRequestException("Patient not found"));
     }
 
-    public List<Patient> searchPatients(String query) {
-        if (query.matches("\\d+")) {
-            return patientRepository.findByMobileContaining(query);
-        }
-        return patientRepository.findByNameContainingIgnoreCase(query);
+    public List<Patient> searchPatients(String query, int page, int size) {
+        return patientSearchService.search(query, page, size);
     }
 
     @Transactional
     public void deletePatient(Long id) {
         Patient patient = patientRepository.findById(id)
                 .orElseThrow(() -> new BadRequestException("Patient not found"));
+        // Visits सोबत prescription files पण जातात (cascade): त्यांचे blob refs commit नंतर सोडा
+        prescriptionStorageService.releaseAfterCommit(prescriptionFileRepository.findContentHashesByPatientId(id));
+        dailyStatsService.removePatientVisits(id);
         visitRepository.deleteByPatientId(id);
         patientRepository.delete(patient);
+        liveQueueService.invalidateAll();
+        prescriptionFileCache.invalidateAll();
         log.info("Patient deleted. ID={}", id);
     }
 
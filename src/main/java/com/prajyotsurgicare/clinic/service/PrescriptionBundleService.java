@@ -0,0 +1,177 @@
+package com.prajyotsurgicare.clinic.service;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.Image;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Rectangle;
+import com.lowagie.text.exceptions.InvalidPdfException;
+import com.lowagie.text.pdf.PdfCopy;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.PdfWriter;
+import com.prajyotsurgicare.clinic.dto.PrescriptionFileMeta;
+import com.prajyotsurgicare.clinic.repository.PrescriptionFileRepository;
+import com.prajyotsurgicare.clinic.storage.ContentSniffer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// 📦 Referral साठी patient च्या सर्व prescriptions एकाच download मध्ये (merged PDF किंवा ZIP).
+// Files batch ने (keyset) वाचतो आणि एका वेळी एकच file stream करतो: सर्व blobs memory मध्ये कधीच नसतात.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PrescriptionBundleService {
+
+    private final PrescriptionFileRepository fileRepository;
+    private final PrescriptionService prescriptionService;
+    private final PrescriptionStorageService storageService;
+
+    @Value("${prescription.bundle.batch-size:20}")
+    private int batchSize;
+
+    public boolean hasFiles(Long patientId) {
+        return !fileRepository.findMetaByPatientAfter(patientId, 0L, PageRequest.of(0, 1)).isEmpty();
+    }
+
+    public void writeZip(Long patientId, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        // PDF/JPEG आधीच compressed आहेत, जास्त CPU वाया घालवू नका
+        zip.setLevel(Deflater.BEST_SPEED);
+        forEachFile(patientId, meta -> {
+            zip.putNextEntry(new ZipEntry(entryName(meta)));
+            try (InputStream in = open(meta)) {
+                in.transferTo(zip);
+            }
+            zip.closeEntry();
+        });
+        zip.finish();
+    }
+
+    // Merged PDF: PdfCopy pages थेट output मध्ये लिहितो; प्रत्येक file नंतर reader free
+    public void writeMergedPdf(Long patientId, OutputStream out) throws IOException {
+        Document document = new Document();
+        try {
+            PdfCopy copy = new PdfCopy(document, out);
+            document.open();
+            int[] pages = {0};
+            forEachFile(patientId, meta -> {
+                PdfReader reader = toPdfReader(meta);
+                if (reader == null) {
+                    log.warn("⚠️ Skipping prescription file {} ({}) in PDF bundle", meta.getId(), meta.getFileType());
+                    return;
+                }
+                try {
+                    for (int i = 1; i <= reader.getNumberOfPages(); i++) {
+                        copy.addPage(copy.getImportedPage(reader, i));
+                        pages[0]++;
+                    }
+                    copy.freeReader(reader);
+                } catch (DocumentException e) {
+                    throw new IOException("Could not add prescription file " + meta.getId() + " to bundle", e);
+                } finally {
+                    reader.close();
+                }
+            });
+            if (pages[0] == 0) {
+                // रिकामा PDF invalid ठरतो
+                copy.addPage(PageSize.A4, 0);
+            }
+        } catch (DocumentException e) {
+            throw new IOException("Could not build prescription bundle", e);
+        } finally {
+            if (document.isOpen()) {
+                document.close();
+            }
+        }
+    }
+
+    private void forEachFile(Long patientId, FileVisitor visitor) throws IOException {
+        long afterId = 0;
+        while (true) {
+            List<PrescriptionFileMeta> batch = fileRepository.findMetaByPatientAfter(patientId, afterId, PageRequest.of(0, batchSize));
+            for (PrescriptionFileMeta meta : batch) {
+                visitor.visit(meta);
+                afterId = meta.getId();
+            }
+            if (batch.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    private InputStream open(PrescriptionFileMeta meta) throws IOException {
+        if (meta.getStorageKey() != null) {
+            return storageService.open(meta.getStorageKey(), meta.getContentEncoding());
+        }
+        // Migrate न झालेली जुनी row: फक्त हीच एक row DB मधून
+        return prescriptionService.getContent(meta).getInputStream();
+    }
+
+    private PdfReader toPdfReader(PrescriptionFileMeta meta) throws IOException {
+        String type = meta.getFileType();
+        if (ContentSniffer.PDF.equals(type)) {
+            try (InputStream in = open(meta)) {
+                return new PdfReader(in);
+            } catch (InvalidPdfException | RuntimeException e) {
+                // खराब/अर्धवट PDF मुळे संपूर्ण bundle (आधीच stream होत असलेला) तुटू नये
+                log.warn("⚠️ Unreadable PDF in prescription file {}: {}", meta.getId(), e.getMessage());
+                return null;
+            }
+        }
+        if (ContentSniffer.JPEG.equals(type) || ContentSniffer.PNG.equals(type)) {
+            byte[] imageBytes;
+            try (InputStream in = open(meta)) {
+                imageBytes = in.readAllBytes();
+            }
+            return new PdfReader(imagePage(imageBytes));
+        }
+        // WebP इत्यादी: OpenPDF embed करू शकत नाही (ZIP bundle मध्ये मात्र येतात)
+        return null;
+    }
+
+    // Photo ला एका A4 पानाचा PDF करा (JPEG bytes जसेच्या तसे embed होतात)
+    private byte[] imagePage(byte[] imageBytes) throws IOException {
+        try {
+            Image image = Image.getInstance(imageBytes);
+            Rectangle page = PageSize.A4;
+            float margin = 24f;
+            image.scaleToFit(page.getWidth() - 2 * margin, page.getHeight() - 2 * margin);
+            image.setAbsolutePosition((page.getWidth() - image.getScaledWidth()) / 2,
+                    (page.getHeight() - image.getScaledHeight()) / 2);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            Document document = new Document(page, margin, margin, margin, margin);
+            PdfWriter writer = PdfWriter.getInstance(document, out);
+            document.open();
+            writer.getDirectContent().addImage(image);
+            document.close();
+            return out.toByteArray();
+        } catch (DocumentException e) {
+            throw new IOException("Could not convert image to PDF page", e);
+        }
+    }
+
+    private String entryName(PrescriptionFileMeta meta) {
+        String name = meta.getFileName() != null ? meta.getFileName() : "prescription";
+        // ZIP मध्ये path/special characters नको
+        name = name.replaceAll("[\\\\/:*?\"<>|]", "_");
+        return meta.getVisitDate() + "_" + meta.getId() + "_" + name;
+    }
+
+    @FunctionalInterface
+    private interface FileVisitor {
+        void visit(PrescriptionFileMeta meta) throws IOException;
+    }
+}
@@ -0,0 +1,152 @@
+package com.prajyotsurgicare.clinic.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.prajyotsurgicare.clinic.dto.PrescriptionFileMeta;
+import com.prajyotsurgicare.clinic.repository.PrescriptionFileRepository;
+import com.prajyotsurgicare.clinic.storage.BlobStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// 🗃️ Patient card उघडताना doctor app प्रत्येक वेळी /list, /view, /thumbnail मागतो.
+// Store झालेली file कधीच बदलत नाही, म्हणून metadata, visit च्या file ids आणि लहान thumbnails
+// memory मध्ये (Caffeine, W-TinyLFU) ठेवतो. Upload / preview / migration वर evict होते.
+@Service
+public class PrescriptionFileCache {
+
+    private final PrescriptionFileRepository fileRepository;
+    private final BlobStore blobStore;
+
+    private final Cache<Long, PrescriptionFileMeta> metaCache;
+    private final Cache<Long, List<Long>> visitFilesCache;
+    private final Cache<Long, byte[]> thumbnailCache;
+
+    public PrescriptionFileCache(PrescriptionFileRepository fileRepository,
+                                 BlobStore blobStore,
+                                 @Value("${prescription.cache.max-files:5000}") long maxFiles,
+                                 @Value("${prescription.cache.max-visits:5000}") long maxVisits,
+                                 @Value("${prescription.cache.thumbnail-max-bytes:33554432}") long thumbnailMaxBytes,
+                                 @Value("${prescription.cache.ttl:PT6H}") Duration ttl) {
+        this.fileRepository = fileRepository;
+        this.blobStore = blobStore;
+        this.metaCache = Caffeine.newBuilder()
+                .maximumSize(maxFiles)
+                .expireAfterAccess(ttl)
+                .recordStats()
+                .build();
+        this.visitFilesCache = Caffeine.newBuilder()
+                .maximumSize(maxVisits)
+                .expireAfterAccess(ttl)
+                .recordStats()
+                .build();
+        // Entries ची संख्या नाही, एकूण bytes ची मर्यादा
+        this.thumbnailCache = Caffeine.newBuilder()
+                .maximumWeight(thumbnailMaxBytes)
+                .weigher((Long fileId, byte[] bytes) -> bytes.length)
+                .expireAfterAccess(ttl)
+                .recordStats()
+                .build();
+    }
+
+    // =================================================================
+    // READ
+    // =================================================================
+
+    // नसलेली file cache होत नाही (Caffeine null store करत नाही)
+    public Optional<PrescriptionFileMeta> getMeta(Long fileId) {
+        return Optional.ofNullable(metaCache.get(fileId, id -> fileRepository.findMetaById(id).orElse(null)));
+    }
+
+    public List<Long> getFileIds(Long visitId) {
+        return visitFilesCache.get(visitId, id -> List.copyOf(fileRepository.findIdsByVisitId(id)));
+    }
+
+    public Optional<Long> getLatestFileId(Long visitId) {
+        List<Long> ids = getFileIds(visitId);
+        return ids.isEmpty() ? Optional.empty() : Optional.of(ids.get(ids.size() - 1));
+    }
+
+    public byte[] getThumbnail(PrescriptionFileMeta meta) {
+        return thumbnailCache.get(meta.getId(), id -> readBlob(meta.getThumbnailKey()));
+    }
+
+    private byte[] readBlob(String key) {
+        try (InputStream in = blobStore.open(key)) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read blob " + key, e);
+        }
+    }
+
+    // =================================================================
+    // INVALIDATION
+    // =================================================================
+
+    public void evictFile(Long fileId) {
+        metaCache.invalidate(fileId);
+        thumbnailCache.invalidate(fileId);
+    }
+
+    // Transaction मध्ये असू तर commit नंतरच evict, नाहीतर दुसरी request जुनी list परत cache करेल
+    public void evictVisit(Long visitId) {
+        afterCommit(() -> visitFilesCache.invalidate(visitId));
+    }
+
+    public void invalidateAll() {
+        afterCommit(() -> {
+            metaCache.invalidateAll();
+            visitFilesCache.invalidateAll();
+            thumbnailCache.invalidateAll();
+        });
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // =================================================================
+    // STATS
+    // =================================================================
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("metadata", toMap(metaCache.stats(), metaCache.estimatedSize()));
+        stats.put("visitFiles", toMap(visitFilesCache.stats(), visitFilesCache.estimatedSize()));
+        Map<String, Object> thumbnails = toMap(thumbnailCache.stats(), thumbnailCache.estimatedSize());
+        thumbnails.put("bytes", thumbnailCache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L));
+        stats.put("thumbnails", thumbnails);
+        return stats;
+    }
+
+    private Map<String, Object> toMap(CacheStats cacheStats, long size) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("size", size);
+        map.put("hits", cacheStats.hitCount());
+        map.put("misses", cacheStats.missCount());
+        map.put("hitRate", cacheStats.hitRate());
+        map.put("evictions", cacheStats.evictionCount());
+        return map;
+    }
+}
@@ -0,0 +1,202 @@
+package com.prajyotsurgicare.clinic.service;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.Element;
+import com.lowagie.text.Font;
+import com.lowagie.text.Image;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.Rectangle;
+import com.lowagie.text.pdf.BaseFont;
+import com.lowagie.text.pdf.ColumnText;
+import com.lowagie.text.pdf.PdfContentByte;
+import com.lowagie.text.pdf.PdfImportedPage;
+import com.lowagie.text.pdf.PdfPageEventHelper;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.PdfWriter;
+import com.prajyotsurgicare.clinic.dto.PrescriptionPdfContent;
+import com.prajyotsurgicare.clinic.entity.Clinic;
+import com.prajyotsurgicare.clinic.repository.ClinicRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 📄 Text + stylus drawing वरून prescription PDF (फक्त CPU काम, DB नाही).
+// Clinic चे letterhead (header + footer) एकदाच render होऊन cache मध्ये राहते; प्रत्येक PDF मध्ये
+// ते imported page म्हणून प्रत्येक पानाखाली stamp होते, आणि फक्त variable fields layout होतात.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PrescriptionPdfRenderer {
+
+    private static final Rectangle PAGE = PageSize.A4;
+    private static final float MARGIN = 36f;
+    // Letterhead ची उंची: body इथून खाली सुरू होते
+    private static final float HEADER_HEIGHT = 110f;
+    private static final float FOOTER_HEIGHT = 50f;
+
+    // Built-in Helvetica (embed नाही): एकदाच load, सर्व threads share करतात (read-only)
+    private static final BaseFont HELVETICA = createFont(BaseFont.HELVETICA);
+    private static final BaseFont HELVETICA_BOLD = createFont(BaseFont.HELVETICA_BOLD);
+    private static final Font HEADER_FONT = new Font(HELVETICA_BOLD, 18);
+    private static final Font SUBHEADER_FONT = new Font(HELVETICA, 10);
+    private static final Font BOLD_FONT = new Font(HELVETICA_BOLD, 12);
+    private static final Font BODY_FONT = new Font(HELVETICA, 12);
+    private static final Font FOOTER_FONT = new Font(HELVETICA, 8);
+
+    private final ClinicRepository clinicRepository;
+
+    // clinicId → एका पानाचा letterhead PDF (कोणत्या name/address वरून बनला ते सोबत).
+    // Clinic चे नाव/पत्ता बदलला तर पुढच्या render ला तो entry आपोआप नवा होतो; प्रत्येक clinic ला एकच entry.
+    private final Map<Long, Letterhead> letterheads = new ConcurrentHashMap<>();
+
+    // Startup ला सर्व clinics चे letterhead तयार ठेवा (पहिल्या prescription ला उशीर नको)
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        for (Clinic clinic : clinicRepository.findAll()) {
+            letterheadFor(clinic.getId(), clinic.getName(), clinic.getAddress());
+        }
+        log.info("📄 Prescription letterheads cached for {} clinics", letterheads.size());
+    }
+
+    public byte[] render(PrescriptionPdfContent content) throws DocumentException, IOException {
+        byte[] letterhead = letterheadFor(content.getClinicId(), content.getClinicName(), content.getClinicAddress());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Document document = new Document(PAGE, MARGIN, MARGIN, HEADER_HEIGHT, FOOTER_HEIGHT);
+        PdfWriter writer = PdfWriter.getInstance(document, out);
+        document.open();
+
+        PdfImportedPage letterheadPage = writer.getImportedPage(new PdfReader(letterhead), 1);
+        writer.setPageEvent(new LetterheadStamp(letterheadPage));
+
+        // ✍️ फक्त बदलणारे fields
+        document.add(new Paragraph("Date: " + content.getVisitDate(), BOLD_FONT));
+        document.add(new Paragraph("Doctor: " + content.getDoctorName(), BODY_FONT));
+        document.add(new Paragraph("Patient: " + content.getPatientName(), BODY_FONT));
+        document.add(new Paragraph("-------------------------------------------------------------------", BODY_FONT));
+        document.add(new Paragraph("\n", BODY_FONT));
+
+        String textNote = content.getTextNote();
+        if (textNote != null && !textNote.isEmpty()) {
+            document.add(new Paragraph("Prescription / Notes:", BOLD_FONT));
+            document.add(new Paragraph(textNote, BODY_FONT));
+            document.add(new Paragraph("\n", BODY_FONT));
+        }
+
+        BufferedImage stylus = content.getStylusImage();
+        if (stylus != null) {
+            try {
+                // Print resolution ची लहान 1-bit image (submit वेळीच normalize, मोठी original RGBA PDF मध्ये जात नाही).
+                // OpenPDF ला raw bytes दिले तर ते DeviceGray + Flate ठेवते (awt/PNG path RGB करतो)
+                byte[] pixels = ((DataBufferByte) stylus.getRaster().getDataBuffer()).getData();
+                Image img = Image.getInstance(stylus.getWidth(), stylus.getHeight(), 1,
+                        stylus.getColorModel().getPixelSize(), pixels);
+                img.scaleToFit(StylusImageProcessor.BOX_WIDTH_PT, StylusImageProcessor.BOX_HEIGHT_PT);
+                img.setAlignment(Element.ALIGN_CENTER);
+                document.add(img);
+            } catch (Exception e) {
+                log.warn("⚠️ Error adding stylus image to PDF for visit {}: {}", content.getVisitId(), e.getMessage());
+            }
+        }
+
+        document.close();
+        return out.toByteArray();
+    }
+
+    private byte[] letterheadFor(Long clinicId, String clinicName, String clinicAddress) {
+        return letterheads.compute(clinicId, (id, cached) ->
+                cached != null && cached.matches(clinicName, clinicAddress)
+                        ? cached
+                        : new Letterhead(clinicName, clinicAddress, buildLetterhead(clinicName, clinicAddress)))
+                .pdf;
+    }
+
+    // 🏥 Static branding: clinic header वर, "Digitally Generated" footer खाली
+    private byte[] buildLetterhead(String clinicName, String clinicAddress) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            Document document = new Document(PAGE);
+            PdfWriter writer = PdfWriter.getInstance(document, out);
+            document.open();
+            PdfContentByte canvas = writer.getDirectContent();
+            float centerX = PAGE.getWidth() / 2;
+            float top = PAGE.getHeight() - MARGIN;
+
+            ColumnText.showTextAligned(canvas, Element.ALIGN_CENTER,
+                    new Phrase("PRAJYOT SURGICARE CLINIC", HEADER_FONT), centerX, top - 18, 0);
+            String subHeader = joinNonBlank(clinicName, clinicAddress);
+            if (!subHeader.isEmpty()) {
+                ColumnText.showTextAligned(canvas, Element.ALIGN_CENTER,
+                        new Phrase(subHeader, SUBHEADER_FONT), centerX, top - 36, 0);
+            }
+            ColumnText.showTextAligned(canvas, Element.ALIGN_CENTER,
+                    new Phrase("(Digitally Generated Prescription)", FOOTER_FONT), centerX, MARGIN, 0);
+
+            document.close();
+            return out.toByteArray();
+        } catch (DocumentException e) {
+            throw new IllegalStateException("Could not build prescription letterhead", e);
+        }
+    }
+
+    private static String joinNonBlank(String first, String second) {
+        StringBuilder sb = new StringBuilder();
+        if (first != null && !first.isBlank()) sb.append(first.trim());
+        if (second != null && !second.isBlank()) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(second.trim());
+        }
+        return sb.toString();
+    }
+
+    private static BaseFont createFont(String name) {
+        try {
+            return BaseFont.createFont(name, BaseFont.CP1252, BaseFont.NOT_EMBEDDED);
+        } catch (DocumentException | IOException e) {
+            throw new IllegalStateException("Could not load font " + name, e);
+        }
+    }
+
+    private static class Letterhead {
+        private final String clinicName;
+        private final String clinicAddress;
+        private final byte[] pdf;
+
+        Letterhead(String clinicName, String clinicAddress, byte[] pdf) {
+            this.clinicName = clinicName;
+            this.clinicAddress = clinicAddress;
+            this.pdf = pdf;
+        }
+
+        boolean matches(String name, String address) {
+            return Objects.equals(clinicName, name) && Objects.equals(clinicAddress, address);
+        }
+    }
+
+    // प्रत्येक पान संपताना letterhead त्या पानाच्या content खाली stamp करा
+    private static class LetterheadStamp extends PdfPageEventHelper {
+        private final PdfImportedPage letterhead;
+
+        LetterheadStamp(PdfImportedPage letterhead) {
+            this.letterhead = letterhead;
+        }
+
+        @Override
+        public void onEndPage(PdfWriter writer, Document document) {
+            writer.getDirectContentUnder().addTemplate(letterhead, 0, 0);
+        }
+    }
+}
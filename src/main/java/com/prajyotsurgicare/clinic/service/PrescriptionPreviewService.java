@@ -0,0 +1,178 @@
+package com.prajyotsurgicare.clinic.service;
+
+import com.prajyotsurgicare.clinic.entity.PrescriptionFile;
+import com.prajyotsurgicare.clinic.repository.PrescriptionFileRepository;
+import com.prajyotsurgicare.clinic.storage.BlobRef;
+import com.prajyotsurgicare.clinic.storage.BlobStore;
+import com.prajyotsurgicare.clinic.storage.ContentSniffer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 🖼️ Doctor tablet list साठी लहान JPEG preview + thumbnail.
+// Upload request थांबत नाही: background मध्ये, मर्यादित threads + मर्यादित queue वर.
+// Queue भरली तर job सोडून देतो (request threads वर कधीच ढकलत नाही).
+@Slf4j
+@Service
+public class PrescriptionPreviewService {
+
+    private static final Set<String> SUPPORTED_TYPES = Set.of(ContentSniffer.JPEG, ContentSniffer.PNG);
+
+    private final PrescriptionFileRepository fileRepository;
+    private final BlobStore blobStore;
+    private final PrescriptionStorageService storageService;
+    private final PrescriptionFileCache fileCache;
+    private final int previewSize;
+    private final int thumbnailSize;
+    private final ThreadPoolExecutor executor;
+
+    public PrescriptionPreviewService(PrescriptionFileRepository fileRepository,
+                                      BlobStore blobStore,
+                                      PrescriptionStorageService storageService,
+                                      PrescriptionFileCache fileCache,
+                                      @Value("${storage.preview.threads:2}") int threads,
+                                      @Value("${storage.preview.queue-size:50}") int queueSize,
+                                      @Value("${storage.preview.size:1280}") int previewSize,
+                                      @Value("${storage.preview.thumbnail-size:256}") int thumbnailSize) {
+        this.fileRepository = fileRepository;
+        this.blobStore = blobStore;
+        this.storageService = storageService;
+        this.fileCache = fileCache;
+        this.previewSize = previewSize;
+        this.thumbnailSize = thumbnailSize;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                r -> {
+                    Thread t = new Thread(r, "prescription-preview-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public void submit(Long fileId, String contentType) {
+        if (!SUPPORTED_TYPES.contains(contentType)) {
+            // WebP साठी JDK मध्ये ImageIO reader नाही, PDF render करायला library नाही
+            return;
+        }
+        try {
+            executor.execute(() -> generate(fileId));
+        } catch (RejectedExecutionException e) {
+            log.warn("⚠️ Preview queue full, skipping previews for prescription file {}", fileId);
+        }
+    }
+
+    private void generate(Long fileId) {
+        try {
+            PrescriptionFile file = fileRepository.findById(fileId).orElse(null);
+            if (file == null || file.getStorageKey() == null) return;
+
+            BufferedImage source;
+            try (InputStream in = storageService.open(file.getStorageKey(), file.getContentEncoding())) {
+                source = readDownsampled(in, previewSize);
+            }
+            if (source == null) {
+                log.warn("⚠️ Could not decode prescription image {}", fileId);
+                return;
+            }
+
+            BlobRef preview = storeJpeg(scaleToFit(source, previewSize), 0.8f);
+            BlobRef thumbnail = storeJpeg(scaleToFit(source, thumbnailSize), 0.7f);
+            fileRepository.updatePreviewKeys(fileId, preview.getKey(), thumbnail.getKey());
+            fileCache.evictFile(fileId);
+            log.debug("🖼️ Previews ready for prescription file {}", fileId);
+        } catch (Exception e) {
+            log.warn("⚠️ Preview generation failed for prescription file {}: {}", fileId, e.getMessage());
+        }
+    }
+
+    // 12 MP फोटो पूर्ण decode केला तर ~48 MB heap लागतो. Subsampling ने decode करतानाच लहान करतो.
+    private BufferedImage readDownsampled(InputStream in, int targetSize) throws IOException {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(in)) {
+            if (iis == null) return null;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) return null;
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                // Final size च्या किमान दुप्पट ठेवा, म्हणजे scaling नंतर quality चांगली राहते
+                int step = Math.max(1, longest / (targetSize * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage scaleToFit(BufferedImage source, int maxSize) {
+        double scale = Math.min(1.0, (double) maxSize / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        // JPEG मध्ये alpha नाही: PNG चा transparent भाग पांढरा
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private BlobRef storeJpeg(BufferedImage image, float quality) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return blobStore.put(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
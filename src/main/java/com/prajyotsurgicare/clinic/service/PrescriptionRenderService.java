@@ -0,0 +1,174 @@
+package com.prajyotsurgicare.clinic.service;
+
+import com.prajyotsurgicare.clinic.dto.PdfRenderJob;
+import com.prajyotsurgicare.clinic.dto.PrescriptionPdfContent;
+import com.prajyotsurgicare.clinic.entity.PrescriptionFile;
+import com.prajyotsurgicare.clinic.entity.Visit;
+import com.prajyotsurgicare.clinic.enums.PdfRenderStatus;
+import com.prajyotsurgicare.clinic.exception.BadRequestException;
+import com.prajyotsurgicare.clinic.exception.ServiceUnavailableException;
+import com.prajyotsurgicare.clinic.repository.VisitRepository;
+import com.prajyotsurgicare.clinic.storage.BlobRef;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 📄 Prescription PDF background मध्ये: HTTP thread लगेच jobId घेऊन परत जातो.
+// Render करताना DB connection धरला जात नाही; फक्त शेवटचा insert छोट्या transaction मध्ये.
+// तयार झाल्यावर /topic/clinic/{id}/prescriptions वर PDF_READY.
+@Slf4j
+@Service
+public class PrescriptionRenderService {
+
+    private final VisitRepository visitRepository;
+    private final PrescriptionService prescriptionService;
+    private final PrescriptionPdfRenderer pdfRenderer;
+    private final PrescriptionStorageService storageService;
+    private final WebSocketService webSocketService;
+    private final StylusImageProcessor stylusImageProcessor;
+    private final TransactionTemplate readOnlyTx;
+    private final Duration jobRetention;
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, PdfRenderJob> jobs = new ConcurrentHashMap<>();
+
+    public PrescriptionRenderService(VisitRepository visitRepository,
+                                     PrescriptionService prescriptionService,
+                                     PrescriptionPdfRenderer pdfRenderer,
+                                     PrescriptionStorageService storageService,
+                                     WebSocketService webSocketService,
+                                     StylusImageProcessor stylusImageProcessor,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${prescription.render.threads:2}") int threads,
+                                     @Value("${prescription.render.queue-size:100}") int queueSize,
+                                     @Value("${prescription.render.job-retention:PT1H}") Duration jobRetention) {
+        this.visitRepository = visitRepository;
+        this.prescriptionService = prescriptionService;
+        this.pdfRenderer = pdfRenderer;
+        this.storageService = storageService;
+        this.webSocketService = webSocketService;
+        this.stylusImageProcessor = stylusImageProcessor;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.jobRetention = jobRetention;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                r -> {
+                    Thread t = new Thread(r, "pdf-render-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public PdfRenderJob submit(Long visitId, String textNote, String stylusImageBase64) {
+        // Drawing request thread वरच लहान 1-bit raster मध्ये: queue मधील प्रत्येक job मध्ये
+        // 8M chars ची base64 string राहत नाही (print box पुरती image, काही शे KB)
+        BufferedImage stylusImage;
+        try {
+            stylusImage = stylusImageProcessor.normalize(stylusImageBase64);
+        } catch (IOException e) {
+            throw new BadRequestException("Stylus image could not be read: " + e.getMessage());
+        }
+
+        // Visit details आत्ताच (छोट्या read transaction मध्ये) घ्या, render करताना DB नको
+        PrescriptionPdfContent content = readOnlyTx.execute(status -> {
+            Visit visit = visitRepository.findById(visitId)
+                    .orElseThrow(() -> new RuntimeException("Visit not found: " + visitId));
+            return PrescriptionPdfContent.builder()
+                    .visitId(visitId)
+                    .clinicId(visit.getClinic().getId())
+                    .clinicName(visit.getClinic().getName())
+                    .clinicAddress(visit.getClinic().getAddress())
+                    .visitDate(visit.getVisitDate())
+                    .doctorName(visit.getDoctor().getName())
+                    .patientName(visit.getPatient().getName())
+                    .textNote(textNote)
+                    .stylusImage(stylusImage)
+                    .build();
+        });
+
+        Instant now = Instant.now();
+        PdfRenderJob job = PdfRenderJob.builder()
+                .jobId(UUID.randomUUID().toString())
+                .visitId(visitId)
+                .clinicId(content.getClinicId())
+                .status(PdfRenderStatus.QUEUED)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+        jobs.put(job.getJobId(), job);
+
+        try {
+            executor.execute(() -> render(job.getJobId(), content));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getJobId());
+            throw new ServiceUnavailableException("Prescription PDF queue is full. Please try again in a moment.");
+        }
+        return job;
+    }
+
+    public Optional<PdfRenderJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    private void render(String jobId, PrescriptionPdfContent content) {
+        update(jobId, PdfRenderStatus.RENDERING, null, null);
+        try {
+            byte[] pdf = pdfRenderer.render(content);
+            BlobRef blob = storageService.store(new ByteArrayInputStream(pdf), "application/pdf");
+            // फक्त हा insert transaction मध्ये
+            PrescriptionFile file = prescriptionService.attachFile(content.getVisitId(), blob,
+                    "Prescription_" + content.getVisitId() + ".pdf", "application/pdf");
+
+            PdfRenderJob done = update(jobId, PdfRenderStatus.DONE, file.getId(), null);
+            webSocketService.sendPrescriptionEvent(content.getClinicId(), "PDF_READY", done);
+        } catch (Exception e) {
+            log.error("❌ PDF render failed for visit {}: {}", content.getVisitId(), e.getMessage(), e);
+            PdfRenderJob failed = update(jobId, PdfRenderStatus.FAILED, null, "Error generating PDF");
+            webSocketService.sendPrescriptionEvent(content.getClinicId(), "PDF_FAILED", failed);
+        }
+    }
+
+    private PdfRenderJob update(String jobId, PdfRenderStatus status, Long fileId, String error) {
+        return jobs.computeIfPresent(jobId, (id, job) -> job.toBuilder()
+                .status(status)
+                .fileId(fileId)
+                .error(error)
+                .updatedAt(Instant.now())
+                .build());
+    }
+
+    // 🧹 पूर्ण झालेले जुने jobs memory मधून काढा
+    @Scheduled(fixedDelay = 10, timeUnit = TimeUnit.MINUTES)
+    public void purgeFinishedJobs() {
+        Instant cutoff = Instant.now().minus(jobRetention);
+        jobs.values().removeIf(job -> job.isFinished() && job.getUpdatedAt().isBefore(cutoff));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
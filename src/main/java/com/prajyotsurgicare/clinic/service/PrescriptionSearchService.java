@@ -0,0 +1,112 @@
+package com.prajyotsurgicare.clinic.service;
+
+import com.prajyotsurgicare.clinic.entity.Visit;
+import com.prajyotsurgicare.clinic.repository.VisitRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// 🔍 "गेल्या महिन्यात X कोणाला दिले?": prescriptionNote + diagnosis + procedures वर full-text search.
+// Postgres वर GIN expression index (SearchIndexInitializer), visit save होताच Postgres तो स्वतः update करतो.
+// प्रत्येक शब्द prefix म्हणून match होतो ("parac" → paracetamol).
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PrescriptionSearchService {
+
+    public static final int MAX_PAGE_SIZE = 50;
+
+    private final VisitRepository visitRepository;
+
+    // SearchIndexInitializer startup ला index बनवल्यावर true करतो
+    private volatile boolean fullTextEnabled = false;
+
+    public void setFullTextEnabled(boolean fullTextEnabled) {
+        this.fullTextEnabled = fullTextEnabled;
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> search(Long clinicId, Long doctorId, String query,
+                                      LocalDate from, LocalDate to, int page, int size) {
+        int limit = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        int pageNo = Math.max(page, 0);
+        LocalDate toDate = (to != null) ? to : LocalDate.now();
+        LocalDate fromDate = (from != null) ? from : LocalDate.EPOCH;
+        Long doctor = (doctorId != null) ? doctorId : 0L;
+
+        List<String> terms = tokenize(query);
+        List<Long> ids = List.of();
+        if (!terms.isEmpty()) {
+            // एक जास्त row आणून पुढचे page आहे का ते कळते (COUNT query नको)
+            if (fullTextEnabled) {
+                String tsQuery = terms.stream().map(t -> t + ":*").collect(Collectors.joining(" & "));
+                ids = visitRepository.searchPrescriptionText(clinicId, doctor, fromDate, toDate,
+                        tsQuery, limit + 1, pageNo * limit);
+            } else {
+                // Fallback: पूर्ण query एकच phrase म्हणून
+                String pattern = "%" + String.join(" ", terms) + "%";
+                ids = visitRepository.searchPrescriptionTextLike(clinicId, doctor, fromDate, toDate,
+                        pattern, PageRequest.of(pageNo, limit + 1));
+            }
+        }
+
+        boolean hasNext = ids.size() > limit;
+        List<Long> pageIds = hasNext ? ids.subList(0, limit) : ids;
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("items", loadResults(pageIds));
+        response.put("page", pageNo);
+        response.put("size", limit);
+        response.put("hasNext", hasNext);
+        return response;
+    }
+
+    // Search क्रम (तारीख, नवीन आधी) जसाच्या तसा ठेवा
+    private List<Map<String, Object>> loadResults(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Visit> byId = visitRepository.findWithDetailsByIdIn(ids).stream()
+                .collect(Collectors.toMap(Visit::getId, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(this::toMap)
+                .toList();
+    }
+
+    private Map<String, Object> toMap(Visit v) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("visitId", v.getId());
+        map.put("visitDate", v.getVisitDate());
+        map.put("status", v.getStatus());
+        map.put("patientId", v.getPatient().getId());
+        map.put("patientName", v.getPatient().getName());
+        map.put("mobile", v.getPatient().getMobile());
+        map.put("doctorId", v.getDoctor() != null ? v.getDoctor().getId() : null);
+        map.put("doctorName", v.getDoctor() != null ? v.getDoctor().getName() : null);
+        map.put("diagnosis", v.getDiagnosis());
+        map.put("procedures", v.getProcedures());
+        map.put("prescriptionNote", v.getPrescriptionNote());
+        return map;
+    }
+
+    // अक्षरे/अंक सोडून सर्व काही separator (tsquery operators & | ! : ( ) user input मधून येऊ नयेत).
+    // \p{M}: देवनागरी मात्रा शब्दाचाच भाग आहेत.
+    static List<String> tokenize(String query) {
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(query.toLowerCase().split("[^\\p{L}\\p{N}\\p{M}]+"))
+                .filter(t -> !t.isEmpty())
+                .limit(8)
+                .toList();
+    }
+}
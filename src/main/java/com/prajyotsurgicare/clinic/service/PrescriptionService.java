@@ -1,28 +1,30 @@
 package com.prajyotsurgicare.clinic.service;
 
-import com.lowagie.text.Document;
-import com.lowagie.text.Element;
-import com.lowagie.text.Font;
-import com.lowagie.text.FontFactory;
-import com.lowagie.text.Image;
-import com.lowagie.text.PageSize;
-import com.lowagie.text.Paragraph;
-import com.lowagie.text.pdf.PdfWriter;
+import com.prajyotsurgicare.clinic.dto.PrescriptionFileMeta;
 import com.prajyotsurgicare.clinic.dto.PrescriptionView;
 import com.prajyotsurgicare.clinic.entity.PrescriptionFile;
 import com.prajyotsurgicare.clinic.entity.Visit;
+import com.prajyotsurgicare.clinic.exception.BadRequestException;
+import com.prajyotsurgicare.clinic.exception.NotFoundException;
 import com.prajyotsurgicare.clinic.repository.PrescriptionFileRepository;
 import com.prajyotsurgicare.clinic.repository.VisitRepository;
+import com.prajyotsurgicare.clinic.storage.BlobRef;
+import com.prajyotsurgicare.clinic.storage.BlobStore;
+import com.prajyotsurgicare.clinic.storage.ContentSniffer;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
-import java.util.Base64;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -31,87 +33,58 @@ public class PrescriptionService {
 
     private final PrescriptionFileRepository fileRepository;
     private final VisitRepository visitRepository;
+    private final BlobStore blobStore;
+    private final PrescriptionStorageService storageService;
+    private final PrescriptionPreviewService previewService;
+    private final PrescriptionFileCache fileCache;
+
+    public static final int MAX_RECENT_PAGE_SIZE = 50;
 
     // =================================================================
-    // 1. 👨‍⚕️ DOCTOR: Generate PDF from Text & Stylus
+    // 1. 👨‍⚕️ DOCTOR: Generate PDF from Text & Stylus → PrescriptionRenderService (background job)
     // =================================================================
-    @Transactional
-    public void generateAndSavePdf(Long visitId, String textNote, String stylusImageBase64) {
-        try {
-            Visit visit = visitRepository.findById(visitId)
-                    .orElseThrow(() -> new RuntimeException("Visit not found: " + visitId));
-
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            Document document = new Document(PageSize.A4);
-            PdfWriter.getInstance(document, out);
-            document.open();
-
-            Font headerFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18);
-            Paragraph header = new Paragraph("PRAJYOT SURGICARE CLINIC", headerFont);
-            header.setAlignment(Element.ALIGN_CENTER);
-            document.add(header);
-            document.add(new Paragraph("\n"));
-
-            Font boldFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12);
-            document.add(new Paragraph("Date: " + visit.getVisitDate(), boldFont));
-            document.add(new Paragraph("Doctor: " + visit.getDoctor().getName()));
-            document.add(new Paragraph("Patient: " + visit.getPatient().getName()));
-            document.add(new Paragraph("-------------------------------------------------------------------"));
-            document.add(new Paragraph("\n"));
-
-            if (textNote != null && !textNote.isEmpty()) {
-                document.add(new Paragraph("Prescription / Notes:", boldFont));
-                document.add(new Paragraph(textNote));
-                document.add(new Paragraph("\n"));
-            }
-
-            if (stylusImageBase64 != null && !stylusImageBase64.isEmpty()) {
-                try {
-                    String base64Data = stylusImageBase64.contains(",")
-                            ? stylusImageBase64.split(",")[1]
-                            : stylusImageBase64;
-                    byte[] imageBytes = Base64.getDecoder().decode(base64Data);
-                    Image img = Image.getInstance(imageBytes);
-                    img.scaleToFit(500, 400);
-                    img.setAlignment(Element.ALIGN_CENTER);
-                    document.add(img);
-                } catch (Exception e) {
-                    System.err.println("Error adding image to PDF: " + e.getMessage());
-                }
-            }
-
-            document.add(new Paragraph("\n\n\n"));
-            Paragraph footer = new Paragraph("(Digitally Generated Prescription)", FontFactory.getFont(FontFactory.HELVETICA, 8));
-            footer.setAlignment(Element.ALIGN_CENTER);
-            document.add(footer);
-
-            document.close();
-
-            saveFileToDb(visit, out.toByteArray(), "Prescription_" + visitId + ".pdf", "application/pdf");
-
-        } catch (Exception e) {
-            throw new RuntimeException("Error generating PDF", e);
-        }
-    }
 
     // =================================================================
     // 2. 👩‍💼 RECEPTIONIST / DOCTOR: Upload Manual Photo
     // =================================================================
-    @Transactional
+    // Transaction नाही: 10 MB file storage मध्ये जात असताना DB connection धरून ठेवायचे नाही.
+    // Multipart part Tomcat आधीच temp file मध्ये ठेवतो, तिथून थेट store मध्ये stream.
     public void uploadPrescriptionImage(Long visitId, MultipartFile file) throws IOException {
         Visit visit = visitRepository.findById(visitId)
                 .orElseThrow(() -> new RuntimeException("Visit not found: " + visitId));
-        saveFileToDb(visit, file.getBytes(), file.getOriginalFilename(), file.getContentType());
+
+        PrescriptionFile saved;
+        try (BufferedInputStream in = new BufferedInputStream(file.getInputStream())) {
+            String detectedType = ContentSniffer.detect(in);
+            if (detectedType == null) {
+                throw new BadRequestException("Only JPEG, PNG, WebP or PDF files can be uploaded");
+            }
+            BlobRef blob = storageService.store(in, detectedType);
+            saved = fileRepository.save(newFile(visit, blob, file.getOriginalFilename(), detectedType));
+        }
+        fileCache.evictVisit(visitId);
+        previewService.submit(saved.getId(), saved.getFileType());
     }
 
-    private void saveFileToDb(Visit visit, byte[] data, String name, String type) {
+    // Bytes आधीच BlobStore मध्ये; इथे फक्त metadata + key चा छोटा insert
+    @Transactional
+    public PrescriptionFile attachFile(Long visitId, BlobRef blob, String name, String type) {
+        PrescriptionFile saved = fileRepository.save(newFile(visitRepository.getReferenceById(visitId), blob, name, type));
+        fileCache.evictVisit(visitId);
+        return saved;
+    }
+
+    private PrescriptionFile newFile(Visit visit, BlobRef blob, String name, String type) {
         PrescriptionFile file = new PrescriptionFile();
         file.setVisit(visit);
-        file.setData(data);
+        file.setStorageKey(blob.getKey());
+        file.setSizeBytes(blob.getSizeBytes());
+        file.setContentHash(blob.getContentHash());
+        file.setContentEncoding(blob.getContentEncoding());
         file.setFileName(name);
         file.setFileType(type);
         file.setUploadedAt(LocalDateTime.now());
-        fileRepository.save(file);
+        return file;
     }
 
     // =================================================================
@@ -121,37 +94,83 @@ public class PrescriptionService {
     @Transactional(readOnly = true) // 🔥 IMP for Postgres LOB
     public PrescriptionFile getFile(Long fileId) {
         return fileRepository.findById(fileId)
-                .orElseThrow(() -> new RuntimeException("Prescription file not found with id: " + fileId));
+                .orElseThrow(() -> new NotFoundException("Prescription file not found with id: " + fileId));
+    }
+
+    // ⚡ Cached metadata (blob नाही); repeat views ला DB ला हात लागत नाही
+    public PrescriptionFileMeta getFileMeta(Long fileId) {
+        return fileCache.getMeta(fileId)
+                .orElseThrow(() -> new NotFoundException("Prescription file not found with id: " + fileId));
     }
 
-    @Transactional(readOnly = true) // 🔥 IMP: This was missing and causing the crash!
+    // नवीन files BlobStore मधून stream, migrate न झालेल्या जुन्या rows DB LOB मधून
+    public Resource getContent(PrescriptionFileMeta meta) {
+        if (meta.getStorageKey() == null) {
+            // Repository call स्वतःच्या readOnly transaction मध्ये LOB वाचतो
+            byte[] data = fileRepository.findById(meta.getId())
+                    .map(PrescriptionFile::getData)
+                    .orElse(null);
+            if (data == null) {
+                throw new NotFoundException("Prescription file has no content: " + meta.getId());
+            }
+            return new ByteArrayResource(data);
+        }
+        try {
+            return storageService.asResource(meta.getStorageKey(), meta.getContentEncoding(), meta.getSizeBytes());
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read prescription file " + meta.getId() + ": " + e.getMessage(), e);
+        }
+    }
+
+    public Resource getThumbnail(PrescriptionFileMeta meta) {
+        return new ByteArrayResource(fileCache.getThumbnail(meta));
+    }
+
+    // 📊 Dedup + compression मुळे वाचलेली जागा
+    public Map<String, Object> getStorageReport() {
+        return storageService.getReport();
+    }
+
+    // Preview/thumbnail सारखे derived blobs (size माहीत नाही)
+    public Resource getBlob(String key) {
+        try {
+            return blobStore.asResource(key, -1);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read blob " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    // Upload नंतर file कधीच बदलत नाही, म्हणून content hash हाच ETag
+    public String getETag(PrescriptionFileMeta meta) {
+        String tag = meta.getContentHash() != null ? meta.getContentHash() : "file-" + meta.getId();
+        return "\"" + tag + "\"";
+    }
+
+    // ⚡ फक्त ids (cached), file rows (आणि legacy blob) load होत नाहीत
     public List<Long> getPrescriptionIds(Long visitId) {
-        return fileRepository.findAllByVisitId(visitId)
-                .stream()
-                .map(PrescriptionFile::getId)
-                .collect(Collectors.toList());
+        return fileCache.getFileIds(visitId);
     }
 
-    @Transactional(readOnly = true) // 🔥 IMP
-    public List<PrescriptionView> getRecentPrescriptions(Long patientId) {
-        List<PrescriptionFile> files = fileRepository.findRecentByPatientId(patientId);
-        return files.stream()
-                .limit(10)
-                .map(file -> {
-                    String dateStr = (file.getVisit() != null && file.getVisit().getVisitDate() != null)
-                            ? file.getVisit().getVisitDate().toString()
-                            : "Unknown Date";
-                    return new PrescriptionView(file.getId(), dateStr, file.getFileName());
-                })
+    // ⚡ Metadata projection + DB-side LIMIT; beforeId (मागच्या page चा शेवटचा fileId) ने पुढचे page
+    @Transactional(readOnly = true)
+    public List<PrescriptionView> getRecentPrescriptions(Long patientId, Long beforeId, int size) {
+        int limit = Math.min(Math.max(size, 1), MAX_RECENT_PAGE_SIZE);
+        long cursor = beforeId != null ? beforeId : Long.MAX_VALUE;
+        return fileRepository.findRecentMetaByPatientId(patientId, cursor, PageRequest.of(0, limit))
+                .stream()
+                .map(meta -> new PrescriptionView(
+                        meta.getId(),
+                        meta.getVisitDate() != null ? meta.getVisitDate().toString() : "Unknown Date",
+                        meta.getFileName(),
+                        meta.getFileType(),
+                        meta.getSizeBytes()))
                 .collect(Collectors.toList());
     }
 
-    @Transactional(readOnly = true) // 🔥 IMP
-    public PrescriptionFile getLatestFileByVisitId(Long visitId) {
-        List<PrescriptionFile> files = fileRepository.findAllByVisitId(visitId);
-        if (files.isEmpty()) {
-            throw new RuntimeException("No file found for visit " + visitId);
-        }
-        return files.get(files.size() - 1);
+    // Visit ची latest file: cached id list + cached metadata (पूर्वी visit च्या सर्व files blob सकट load होत)
+    public PrescriptionFileMeta getLatestFileByVisitId(Long visitId) {
+        Long latestId = fileCache.getLatestFileId(visitId)
+                .orElseThrow(() -> new NotFoundException("No file found for visit " + visitId));
+        return getFileMeta(latestId);
     }
 }
\ No newline at end of file
@@ -0,0 +1,254 @@
+package com.prajyotsurgicare.clinic.service;
+
+import com.prajyotsurgicare.clinic.entity.StoredBlob;
+import com.prajyotsurgicare.clinic.repository.PrescriptionFileRepository;
+import com.prajyotsurgicare.clinic.repository.StoredBlobRepository;
+import com.prajyotsurgicare.clinic.storage.BlobRef;
+import com.prajyotsurgicare.clinic.storage.BlobStore;
+import com.prajyotsurgicare.clinic.storage.ContentSniffer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// 🗃️ Prescription files चा storage layer (BlobStore च्या वर):
+// - Dedup: मूळ content hash → एकच StoredBlob, प्रत्येक file row साठी refCount
+// - Compression: PDF gzip होतो (पुरेशी जागा वाचली तरच), वाचताना आपोआप decompress
+// Raw/compressed पैकी न वापरलेली प्रत लगेच delete होत नाही (एकाच वेळी तीच file upload होत असेल),
+// StoredBlobSweepJob grace period नंतर काढतो.
+@Slf4j
+@Service
+public class PrescriptionStorageService {
+
+    public static final String GZIP = "gzip";
+
+    // JPEG/PNG/WebP आधीच compressed आहेत
+    private static final Set<String> COMPRESSIBLE_TYPES = Set.of(ContentSniffer.PDF);
+
+    private final BlobStore blobStore;
+    private final StoredBlobRepository storedBlobRepository;
+    private final PrescriptionFileRepository fileRepository;
+    private final boolean compressionEnabled;
+    private final double minSavings;
+
+    public PrescriptionStorageService(BlobStore blobStore,
+                                      StoredBlobRepository storedBlobRepository,
+                                      PrescriptionFileRepository fileRepository,
+                                      @Value("${storage.compression.enabled:true}") boolean compressionEnabled,
+                                      @Value("${storage.compression.min-savings:0.1}") double minSavings) {
+        this.blobStore = blobStore;
+        this.storedBlobRepository = storedBlobRepository;
+        this.fileRepository = fileRepository;
+        this.compressionEnabled = compressionEnabled;
+        this.minSavings = minSavings;
+    }
+
+    // =================================================================
+    // WRITE
+    // =================================================================
+
+    // Content store करून एक reference घेतो. Returned BlobRef: key = BlobStore key,
+    // sizeBytes/contentHash = मूळ content चे (ETag, Content-Length साठी)
+    public BlobRef store(InputStream content, String contentType) throws IOException {
+        // Content एकदाच local temp मध्ये: compression इथूनच (S3 वरून परत download नाही), आणि
+        // sweep ने मधेच blob काढला तर परत लिहिण्यासाठी
+        Path source = Files.createTempFile("upload-", ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(source)) {
+                content.transferTo(out);
+            }
+            BlobRef ref = register(source, contentType);
+            ensurePresent(ref, source);
+            return ref;
+        } finally {
+            Files.deleteIfExists(source);
+        }
+    }
+
+    private BlobRef register(Path source, String contentType) throws IOException {
+        BlobRef raw = put(source);
+        String hash = raw.getContentHash();
+
+        // तोच content आधीच आहे: फक्त refCount++
+        Optional<BlobRef> existing = acquireExisting(hash);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+
+        BlobRef stored = compressIfWorthIt(raw, source, contentType);
+        try {
+            storedBlobRepository.insert(hash, stored.getKey(), stored.getContentEncoding(),
+                    raw.getSizeBytes(), stored.getSizeBytes(), LocalDateTime.now());
+        } catch (DataIntegrityViolationException e) {
+            // दुसऱ्या request ने तोच content आत्ताच नोंदवला
+            return acquireExisting(hash)
+                    .orElseThrow(() -> new IOException("Could not register blob " + hash, e));
+        }
+        return new BlobRef(stored.getKey(), raw.getSizeBytes(), hash, raw.isDeduplicated(), stored.getContentEncoding());
+    }
+
+    // Sweep row lock धरून आधी blob आणि मग row काढतो. आपला acquire/insert commit झाल्यानंतर blob नसेल
+    // तर तो sweep आपल्या आधी पूर्ण झाला होता: row आता आपली आहे, blob परत लिहा.
+    private void ensurePresent(BlobRef ref, Path source) throws IOException {
+        if (blobStore.exists(ref.getKey())) {
+            return;
+        }
+        log.warn("⚠️ Blob {} was swept while being reused, restoring it", ref.getKey());
+        BlobRef restored;
+        if (GZIP.equals(ref.getContentEncoding())) {
+            Path compressed = gzip(source);
+            try {
+                restored = put(compressed);
+            } finally {
+                Files.deleteIfExists(compressed);
+            }
+        } else {
+            restored = put(source);
+        }
+        if (!restored.getKey().equals(ref.getKey())) {
+            throw new IOException("Blob " + ref.getKey() + " is missing and could not be restored");
+        }
+    }
+
+    private BlobRef put(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return blobStore.put(in);
+        }
+    }
+
+    private Optional<BlobRef> acquireExisting(String hash) {
+        if (storedBlobRepository.acquire(hash, LocalDateTime.now()) == 0) {
+            return Optional.empty();
+        }
+        return storedBlobRepository.findById(hash).map(this::toRef);
+    }
+
+    private BlobRef toRef(StoredBlob blob) {
+        return new BlobRef(blob.getStorageKey(), blob.getOriginalSize(), blob.getContentHash(), true,
+                blob.getContentEncoding());
+    }
+
+    private BlobRef compressIfWorthIt(BlobRef raw, Path source, String contentType) throws IOException {
+        if (!compressionEnabled || !COMPRESSIBLE_TYPES.contains(contentType)) {
+            return raw;
+        }
+        Path compressed = gzip(source);
+        try {
+            long compressedSize = Files.size(compressed);
+            if (compressedSize > raw.getSizeBytes() * (1 - minSavings)) {
+                return raw;
+            }
+            BlobRef ref = put(compressed);
+            log.debug("🗜️ Blob {} compressed {} → {} bytes", raw.getKey(), raw.getSizeBytes(), compressedSize);
+            return new BlobRef(ref.getKey(), ref.getSizeBytes(), ref.getContentHash(), ref.isDeduplicated(), GZIP);
+        } finally {
+            Files.deleteIfExists(compressed);
+        }
+    }
+
+    private Path gzip(Path source) throws IOException {
+        Path temp = Files.createTempFile("blob-", ".gz");
+        try (InputStream in = Files.newInputStream(source);
+             OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp))) {
+            in.transferTo(out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return temp;
+    }
+
+    // File rows delete होणार असतील तर (उदा. patient delete): commit नंतर refs सोडा
+    public void releaseAfterCommit(List<String> contentHashes) {
+        if (contentHashes.isEmpty()) {
+            return;
+        }
+        Runnable release = () -> contentHashes.forEach(hash -> storedBlobRepository.release(hash, LocalDateTime.now()));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            release.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                release.run();
+            }
+        });
+    }
+
+    // =================================================================
+    // READ
+    // =================================================================
+
+    public InputStream open(String storageKey, String contentEncoding) throws IOException {
+        InputStream in = blobStore.open(storageKey);
+        return GZIP.equals(contentEncoding) ? new GZIPInputStream(in, 64 * 1024) : in;
+    }
+
+    // Compressed blob: length मूळ size (Range requests साठी), bytes वाचताना decompress
+    public Resource asResource(String storageKey, String contentEncoding, Long originalSize) throws IOException {
+        if (!GZIP.equals(contentEncoding)) {
+            return blobStore.asResource(storageKey, originalSize != null ? originalSize : -1);
+        }
+        if (!blobStore.exists(storageKey)) {
+            throw new IOException("Blob not found: " + storageKey);
+        }
+        long length = originalSize != null ? originalSize : -1;
+        return new AbstractResource() {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                return open(storageKey, contentEncoding);
+            }
+
+            @Override
+            public long contentLength() throws IOException {
+                return length >= 0 ? length : super.contentLength();
+            }
+
+            @Override
+            public String getDescription() {
+                return "gzip blob [" + storageKey + "]";
+            }
+        };
+    }
+
+    // =================================================================
+    // REPORT
+    // =================================================================
+    public Map<String, Object> getReport() {
+        long files = fileRepository.countStoredFiles();
+        long logicalBytes = fileRepository.sumStoredFileSizes();
+        long uniqueBytes = storedBlobRepository.sumOriginalSize();
+        long storedBytes = storedBlobRepository.sumStoredSize();
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("files", files);
+        report.put("uniqueBlobs", storedBlobRepository.count());
+        report.put("compressedBlobs", storedBlobRepository.countCompressed());
+        report.put("logicalBytes", logicalBytes);
+        report.put("uniqueBytes", uniqueBytes);
+        report.put("storedBytes", storedBytes);
+        report.put("dedupSavedBytes", Math.max(0, logicalBytes - uniqueBytes));
+        report.put("compressionSavedBytes", Math.max(0, uniqueBytes - storedBytes));
+        report.put("savedBytes", Math.max(0, logicalBytes - storedBytes));
+        return report;
+    }
+}
@@ -0,0 +1,145 @@
+package com.prajyotsurgicare.clinic.service;
+
+import com.prajyotsurgicare.clinic.dto.QueueEvent;
+import com.prajyotsurgicare.clinic.enums.QueueEventType;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 📢 Per-clinic coalescing: drag-drop reorder किंवा सकाळच्या registrations च्या burst मध्ये
+// window (default 100 ms) मधले सर्व signals/events एकाच frame मध्ये जातात.
+// EMERGENCY लगेच flush होतो.
+@Slf4j
+@Component
+public class QueueBroadcastDispatcher {
+
+    public static final String EMERGENCY = "EMERGENCY";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final long windowMs;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "queue-broadcast");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong signalsReceived = new AtomicLong();
+    private final AtomicLong eventsReceived = new AtomicLong();
+    private final AtomicLong framesSent = new AtomicLong();
+    private final AtomicLong immediateFlushes = new AtomicLong();
+
+    public QueueBroadcastDispatcher(SimpMessagingTemplate messagingTemplate,
+                                    @Value("${clinic.queue.broadcast-window-ms:100}") long windowMs) {
+        this.messagingTemplate = messagingTemplate;
+        this.windowMs = windowMs;
+    }
+
+    // जुना string signal ("REFRESH_QUEUE", "EMERGENCY")
+    public void submitSignal(Long clinicId, String type) {
+        signalsReceived.incrementAndGet();
+        Pending p = pending.computeIfAbsent(clinicId, k -> new Pending());
+        boolean urgent;
+        synchronized (p) {
+            p.signals.add(type);
+            urgent = EMERGENCY.equals(type);
+        }
+        dispatch(clinicId, p, urgent);
+    }
+
+    // Typed delta events (sequence क्रमानेच येतात, तसेच जातात)
+    public void submitEvents(Long clinicId, List<QueueEvent> events) {
+        eventsReceived.addAndGet(events.size());
+        Pending p = pending.computeIfAbsent(clinicId, k -> new Pending());
+        boolean urgent;
+        synchronized (p) {
+            p.events.addAll(events);
+            urgent = events.stream().anyMatch(this::isEmergency);
+        }
+        dispatch(clinicId, p, urgent);
+    }
+
+    private void dispatch(Long clinicId, Pending p, boolean urgent) {
+        if (urgent || windowMs <= 0) {
+            immediateFlushes.incrementAndGet();
+            flush(clinicId, p);
+            return;
+        }
+        synchronized (p) {
+            if (!p.scheduled) {
+                p.scheduled = true;
+                scheduler.schedule(() -> flush(clinicId, p), windowMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void flush(Long clinicId, Pending p) {
+        // Lock मध्येच send, म्हणजे दोन flush एकमेकांच्या पुढे-मागे जाणार नाहीत
+        synchronized (p) {
+            p.scheduled = false;
+            String destination = "/topic/clinic/" + clinicId;
+            try {
+                if (!p.events.isEmpty()) {
+                    messagingTemplate.convertAndSend(destination + "/events", new ArrayList<>(p.events));
+                    framesSent.incrementAndGet();
+                }
+                // EMERGENCY असेल तर REFRESH_QUEUE वेगळा पाठवायची गरज नाही
+                if (p.signals.contains(EMERGENCY)) {
+                    p.signals.retainAll(Set.of(EMERGENCY));
+                }
+                for (String type : p.signals) {
+                    messagingTemplate.convertAndSend(destination, type);
+                    framesSent.incrementAndGet();
+                    log.debug("📢 WebSocket Update Sent to Clinic {}: {}", clinicId, type);
+                }
+            } catch (Exception e) {
+                log.error("❌ Queue broadcast failed for Clinic {}: {}", clinicId, e.getMessage());
+            } finally {
+                p.events.clear();
+                p.signals.clear();
+            }
+        }
+    }
+
+    private boolean isEmergency(QueueEvent event) {
+        if (event.getType() != QueueEventType.VISIT_ADDED && event.getType() != QueueEventType.STATUS_CHANGED) {
+            return false;
+        }
+        return event.getRow() != null && Boolean.TRUE.equals(event.getRow().get("isEmergency"))
+                && !"COMPLETED".equals(String.valueOf(event.getRow().get("status")));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("windowMs", windowMs);
+        stats.put("signalsReceived", signalsReceived.get());
+        stats.put("eventsReceived", eventsReceived.get());
+        stats.put("framesSent", framesSent.get());
+        stats.put("immediateFlushes", immediateFlushes.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        // बंद होताना pending राहिलेले पाठवून टाका
+        pending.forEach(this::flush);
+    }
+
+    private static class Pending {
+        private final List<QueueEvent> events = new ArrayList<>();
+        private final Set<String> signals = new LinkedHashSet<>();
+        private boolean scheduled;
+    }
+}
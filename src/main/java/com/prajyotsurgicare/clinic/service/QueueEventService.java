@@ -0,0 +1,102 @@
+package com.prajyotsurgicare.clinic.service;
+
+import com.prajyotsurgicare.clinic.dto.QueueEvent;
+import com.prajyotsurgicare.clinic.dto.QueueEventReplay;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 📢 Typed queue events: प्रत्येक clinic साठी sequence number + शेवटच्या N events चा buffer.
+// Client sequence मध्ये gap दिसला तर /api/dashboard/queue/events?since=N ने replay करतो.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class QueueEventService {
+
+    private final WebSocketService webSocketService;
+
+    @Value("${clinic.queue.event-history:500}")
+    private int historySize;
+
+    // Server restart नंतर sequence 0 पासून सुरू होतो, म्हणून client ला stream बदलल्याचे कळायला हवे
+    private final String streamId = UUID.randomUUID().toString();
+
+    private final Map<Long, ClinicEventLog> logs = new ConcurrentHashMap<>();
+
+    public QueueEvent publish(QueueEvent event) {
+        ClinicEventLog eventLog = logs.computeIfAbsent(event.getClinicId(), k -> new ClinicEventLog());
+        // Sequence क्रमानेच frames जावेत म्हणून send पण lock मध्येच
+        synchronized (eventLog) {
+            QueueEvent sequenced = eventLog.append(event, historySize);
+            webSocketService.sendQueueEvents(event.getClinicId(), List.of(sequenced));
+            return sequenced;
+        }
+    }
+
+    public long currentSequence(Long clinicId) {
+        ClinicEventLog eventLog = logs.get(clinicId);
+        return eventLog == null ? 0 : eventLog.latest();
+    }
+
+    public String getStreamId() {
+        return streamId;
+    }
+
+    public QueueEventReplay eventsSince(Long clinicId, long since, String clientStreamId) {
+        ClinicEventLog eventLog = logs.get(clinicId);
+        if (eventLog == null) {
+            // या clinic चा अजून एकही event नाही
+            boolean resync = since > 0 || isOtherStream(clientStreamId);
+            return new QueueEventReplay(streamId, 0, resync, List.of());
+        }
+        return eventLog.since(since, isOtherStream(clientStreamId));
+    }
+
+    private boolean isOtherStream(String clientStreamId) {
+        return clientStreamId != null && !clientStreamId.equals(streamId);
+    }
+
+    private class ClinicEventLog {
+        private final Deque<QueueEvent> history = new ArrayDeque<>();
+        private long sequence = 0;
+
+        synchronized QueueEvent append(QueueEvent event, int maxSize) {
+            QueueEvent sequenced = event.toBuilder()
+                    .sequence(++sequence)
+                    .timestamp(Instant.now())
+                    .build();
+            history.addLast(sequenced);
+            while (history.size() > maxSize) {
+                history.removeFirst();
+            }
+            return sequenced;
+        }
+
+        synchronized long latest() {
+            return sequence;
+        }
+
+        synchronized QueueEventReplay since(long since, boolean otherStream) {
+            long oldest = history.isEmpty() ? sequence + 1 : history.peekFirst().getSequence();
+            // Buffer मधून निघून गेलेले events हवे असतील, किंवा client पुढचा sequence सांगत असेल → पूर्ण resync
+            if (otherStream || since + 1 < oldest || since > sequence) {
+                return new QueueEventReplay(streamId, sequence, true, List.of());
+            }
+            List<QueueEvent> events = new ArrayList<>();
+            for (QueueEvent e : history) {
+                if (e.getSequence() > since) events.add(e);
+            }
+            return new QueueEventReplay(streamId, sequence, false, events);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.prajyotsurgicare.clinic.service;
+
+import com.prajyotsurgicare.clinic.exception.BadRequestException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Base64;
+import java.util.Iterator;
+
+// ✍️ Tablet stylus drawing (base64 PNG) → PDF मध्ये टाकण्याजोगी लहान black & white (1-bit) image.
+// - base64 string ची copy/split नाही: string वरूनच stream decode
+// - decode आधी dimensions तपासतो, मोठी image decode करतानाच लहान (subsampling)
+// - print resolution (default 300 DPI) पेक्षा मोठे pixels ठेवत नाही
+// - हस्ताक्षर line art आहे: 1-bit ने PDF RGB पेक्षा ~3-5x लहान (शाईचा रंग मात्र काळा होतो)
+@Slf4j
+@Component
+public class StylusImageProcessor {
+
+    // PDF मध्ये drawing ची जागा (points, 72 pt = 1 inch)
+    public static final float BOX_WIDTH_PT = 500f;
+    public static final float BOX_HEIGHT_PT = 400f;
+
+    private final int maxEncodedChars;
+    private final long maxSourcePixels;
+    private final int maxWidthPx;
+    private final int maxHeightPx;
+
+    public StylusImageProcessor(@Value("${prescription.stylus.max-encoded-chars:8000000}") int maxEncodedChars,
+                                @Value("${prescription.stylus.max-pixels:25000000}") long maxSourcePixels,
+                                @Value("${prescription.stylus.dpi:300}") int dpi) {
+        this.maxEncodedChars = maxEncodedChars;
+        this.maxSourcePixels = maxSourcePixels;
+        this.maxWidthPx = Math.round(BOX_WIDTH_PT / 72f * dpi);
+        this.maxHeightPx = Math.round(BOX_HEIGHT_PT / 72f * dpi);
+    }
+
+    // Request thread वर स्वस्त check: job queue मध्ये जाण्याआधीच 400
+    public void validateSize(String stylusImageBase64) {
+        if (stylusImageBase64 != null && stylusImageBase64.length() > maxEncodedChars) {
+            throw new BadRequestException("Stylus image is too large");
+        }
+    }
+
+    // null = drawing नाही. TYPE_BYTE_BINARY: PDF मध्ये थेट 1-bit DeviceGray (Flate) म्हणून जाते.
+    public BufferedImage normalize(String stylusImageBase64) throws IOException {
+        if (stylusImageBase64 == null || stylusImageBase64.isBlank()) {
+            return null;
+        }
+        validateSize(stylusImageBase64);
+
+        // "data:image/png;base64,...." → comma नंतरचा भाग (substring/split न करता)
+        int start = stylusImageBase64.startsWith("data:") ? stylusImageBase64.indexOf(',') + 1 : 0;
+        BufferedImage source;
+        try (InputStream decoded = Base64.getDecoder().wrap(new AsciiInputStream(stylusImageBase64, start));
+             ImageInputStream iis = ImageIO.createImageInputStream(decoded)) {
+            source = readForPrint(iis);
+        }
+        if (source == null) {
+            throw new IOException("Unsupported stylus image format");
+        }
+
+        return toPrintBilevel(source);
+    }
+
+    private BufferedImage readForPrint(ImageInputStream iis) throws IOException {
+        if (iis == null) return null;
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+        if (!readers.hasNext()) return null;
+
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(iis, true, true);
+            int width = reader.getWidth(0);
+            int height = reader.getHeight(0);
+            if ((long) width * height > maxSourcePixels) {
+                throw new IOException("Stylus image is too large: " + width + "x" + height);
+            }
+            // Print box च्या किमान दुप्पट ठेवून बाकीचे pixels decode करतानाच सोडा
+            int step = Math.max(1, Math.min(width / (maxWidthPx * 2), height / (maxHeightPx * 2)));
+            ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceSubsampling(step, step, 0, 0);
+            return reader.read(0, param);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    // Transparent background पांढरा, शाई काळी (1 bit/pixel, RGBA च्या 32 ऐवजी)
+    private BufferedImage toPrintBilevel(BufferedImage source) {
+        double scale = Math.min(1.0, Math.min((double) maxWidthPx / source.getWidth(), (double) maxHeightPx / source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    // Base64 text (ASCII) string वरूनच bytes देणारा stream, मोठी byte[] copy न करता
+    private static final class AsciiInputStream extends InputStream {
+        private final CharSequence chars;
+        private int pos;
+
+        AsciiInputStream(CharSequence chars, int start) {
+            this.chars = chars;
+            this.pos = start;
+        }
+
+        @Override
+        public int read() {
+            return pos < chars.length() ? (chars.charAt(pos++) & 0xFF) : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) return 0;
+            int remaining = chars.length() - pos;
+            if (remaining <= 0) return -1;
+            int n = Math.min(len, remaining);
+            for (int i = 0; i < n; i++) {
+                b[off + i] = (byte) chars.charAt(pos++);
+            }
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return Math.max(0, chars.length() - pos);
+        }
+    }
+}
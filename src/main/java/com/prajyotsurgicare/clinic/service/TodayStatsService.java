@@ -0,0 +1,109 @@
+package com.prajyotsurgicare.clinic.service;
+
+import com.prajyotsurgicare.clinic.dto.TodayStatsRow;
+import com.prajyotsurgicare.clinic.repository.VisitRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 📊 Dashboard header (total / waiting / completed / collection) प्रत्येक queue refresh ला मागितला जातो.
+// आजचे doctor-wise आकडे एकाच query ने (per clinic) memory मध्ये ठेवतो. LiveQueueService प्रत्येक
+// state transition commit झाल्यावर invalidate करतो, त्यामुळे बदल नसताना header ला DB round trip नाही.
+// Tracking बाहेरचा बदल (उदा. DB मध्ये थेट update) reconcile-interval नंतर परत वाचला जातो.
+@Service
+@RequiredArgsConstructor
+public class TodayStatsService {
+
+    private final VisitRepository visitRepository;
+
+    @Value("${clinic.queue.reconcile-interval:PT5M}")
+    private Duration maxAge;
+
+    private final Map<Long, DaySnapshot> snapshots = new ConcurrentHashMap<>();
+    // Build चालू असताना commit झाला तर तो snapshot cache करू नये (LiveQueueService सारखेच)
+    private final Map<Long, AtomicLong> epochs = new ConcurrentHashMap<>();
+
+    // doctorId null = सर्व doctors (receptionist), date null = आज
+    public TodayStatsRow getStats(Long clinicId, LocalDate date, Long doctorId) {
+        LocalDate queryDate = (date != null) ? date : LocalDate.now();
+        List<TodayStatsRow> rows;
+        if (queryDate.equals(LocalDate.now())) {
+            DaySnapshot snapshot = snapshots.get(clinicId);
+            if (snapshot == null || !snapshot.date.equals(queryDate) || snapshot.isStale(maxAge)) {
+                snapshot = rebuild(clinicId, queryDate);
+            }
+            rows = snapshot.rows;
+        } else {
+            rows = visitRepository.findDayStatsByDoctor(queryDate, clinicId);
+        }
+        return sum(rows, doctorId);
+    }
+
+    private DaySnapshot rebuild(Long clinicId, LocalDate date) {
+        AtomicLong epoch = epochOf(clinicId);
+        long before = epoch.get();
+        DaySnapshot fresh = new DaySnapshot(date, visitRepository.findDayStatsByDoctor(date, clinicId));
+        // Epoch check आणि install एकाच compute मध्ये (invalidate पण तिथेच epoch वाढवतो), मधे आलेला invalidate हरवत नाही
+        snapshots.compute(clinicId, (id, current) -> epoch.get() == before ? fresh : current);
+        return fresh;
+    }
+
+    private AtomicLong epochOf(Long clinicId) {
+        return epochs.computeIfAbsent(clinicId, k -> new AtomicLong());
+    }
+
+    private TodayStatsRow sum(List<TodayStatsRow> rows, Long doctorId) {
+        long total = 0, waiting = 0, completed = 0;
+        double collection = 0;
+        for (TodayStatsRow row : rows) {
+            if (doctorId != null && !doctorId.equals(row.getDoctorId())) {
+                continue;
+            }
+            total += row.getTotalPatients();
+            waiting += row.getWaitingCount();
+            completed += row.getCompletedCount();
+            collection += row.getTotalCollection();
+        }
+        return new TodayStatsRow(doctorId, total, waiting, completed, collection);
+    }
+
+    // =================================================================
+    // INVALIDATION (LiveQueueService कडून, commit नंतर)
+    // =================================================================
+
+    public void invalidate(Long clinicId) {
+        AtomicLong epoch = epochOf(clinicId);
+        snapshots.compute(clinicId, (id, current) -> {
+            epoch.incrementAndGet();
+            return null;
+        });
+    }
+
+    // Snapshot असलेल्या प्रत्येक clinic चा epoch आधीच आहे (rebuild तो आधी बनवतो)
+    public void invalidateAll() {
+        epochs.keySet().forEach(this::invalidate);
+    }
+
+    private static class DaySnapshot {
+        private final LocalDate date;
+        private final List<TodayStatsRow> rows;
+        private final Instant builtAt = Instant.now();
+
+        DaySnapshot(LocalDate date, List<TodayStatsRow> rows) {
+            this.date = date;
+            this.rows = List.copyOf(rows);
+        }
+
+        boolean isStale(Duration maxAge) {
+            return Instant.now().isAfter(builtAt.plus(maxAge));
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.prajyotsurgicare.clinic.service;
+
+import com.prajyotsurgicare.clinic.config.DatabaseInfo;
+import com.prajyotsurgicare.clinic.repository.TokenCounterRepository;
+import com.prajyotsurgicare.clinic.repository.VisitRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+// 🔢 Token allocation (MAX(tokenNumber)+1 ऐवजी counter table)
+// - Unique: counter row वर lock, दोन desks ला एकच token मिळत नाही
+// - Gap नाही: visit save fail झाला तर counter पण rollback होतो
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TokenService {
+
+    private final TokenCounterRepository tokenCounterRepository;
+    private final VisitRepository visitRepository;
+    private final DatabaseInfo databaseInfo;
+
+    // Visit save करणाऱ्या transaction मध्येच चालायला हवे
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int nextToken(Long clinicId, Long doctorId, LocalDate date) {
+        if (databaseInfo.isPostgres()) {
+            tokenCounterRepository.seedIfAbsent(clinicId, doctorId, date);
+            return tokenCounterRepository.increment(clinicId, doctorId, date);
+        }
+
+        // ⚠️ Non-Postgres fallback (जुने logic, concurrency guarantee नाही)
+        Integer maxToken = visitRepository.findMaxTokenByDoctor(date, clinicId, doctorId);
+        return (maxToken == null ? 0 : maxToken) + 1;
+    }
+}
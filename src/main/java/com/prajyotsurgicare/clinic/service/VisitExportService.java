@@ -0,0 +1,130 @@
+package com.prajyotsurgicare.clinic.service;
+
+import com.prajyotsurgicare.clinic.exception.ServiceUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.sql.DataSource;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.concurrent.Semaphore;
+
+// 📥 Completed visits चा CSV export (accountant: पूर्ण वर्ष).
+// Forward-only JDBC cursor + fetch size: rows DB मधून येताच response मध्ये लिहिल्या जातात, पूर्ण result memory मध्ये नाही.
+// Postgres cursor साठी autocommit बंद हवे, म्हणून read-only transaction मध्ये.
+// प्रत्येक export download संपेपर्यंत एक connection धरतो: एकाच वेळी फक्त max-concurrent, बाकी लगेच 503.
+@Slf4j
+@Service
+public class VisitExportService {
+
+    private static final String EXPORT_SQL = """
+        SELECT v.visit_date, v.token_number, p.name, d.name, v.visit_type,
+               v.consultation_fee, v.other_charges, v.total_amount, v.payment_mode
+        FROM visits v
+        JOIN patients p ON p.id = v.patient_id
+        JOIN doctors d ON d.id = v.doctor_id
+        WHERE v.clinic_id = ? AND (? = 0 OR v.doctor_id = ?) AND v.status = 'COMPLETED'
+          AND v.visit_date BETWEEN ? AND ?
+        ORDER BY v.visit_date, v.id
+    """;
+
+    private static final String CSV_HEADER =
+            "Date,Token,Patient,Doctor,Visit Type,Consultation,Other Charges,Total,Payment Mode\r\n";
+
+    private final JdbcTemplate exportJdbcTemplate;
+    private final TransactionTemplate readOnlyTx;
+    private final Semaphore exportSlots;
+
+    public VisitExportService(DataSource dataSource,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${analytics.export.fetch-size:500}") int fetchSize,
+                              @Value("${analytics.export.max-concurrent:2}") int maxConcurrent) {
+        this.exportJdbcTemplate = new JdbcTemplate(dataSource);
+        this.exportJdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.exportSlots = new Semaphore(maxConcurrent);
+    }
+
+    // Slot request thread वरच घेतो (response सुरू होण्याआधी 503 देता यावा), stream संपल्यावर/तुटल्यावर सोडतो
+    public StreamingResponseBody csvBody(Long clinicId, Long doctorId, LocalDate startDate, LocalDate endDate) {
+        if (!exportSlots.tryAcquire()) {
+            throw new ServiceUnavailableException("Too many exports are running. Please try again in a moment.");
+        }
+        return out -> {
+            try {
+                writeCsv(clinicId, doctorId, startDate, endDate, out);
+            } finally {
+                exportSlots.release();
+            }
+        };
+    }
+
+    public void writeCsv(Long clinicId, Long doctorId, LocalDate startDate, LocalDate endDate,
+                         OutputStream out) throws IOException {
+        long doctor = doctorId != null ? doctorId : 0L;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        // BOM: Excel ला UTF-8 (मराठी नावे) कळते
+        writer.write('\uFEFF');
+        writer.write(CSV_HEADER);
+        try {
+            readOnlyTx.executeWithoutResult(status -> exportJdbcTemplate.query(EXPORT_SQL, rs -> {
+                try {
+                    writeRow(writer, rs);
+                } catch (IOException e) {
+                    // Client ने download बंद केले: query पण थांबवा
+                    throw new UncheckedIOException(e);
+                }
+            }, clinicId, doctor, doctor, startDate, endDate));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private void writeRow(Writer writer, ResultSet rs) throws SQLException, IOException {
+        LocalDate date = rs.getObject(1, LocalDate.class);
+        writer.write(date != null ? date.toString() : "");
+        writer.write(',');
+        writer.write(number(rs.getObject(2)));
+        writer.write(',');
+        writer.write(text(rs.getString(3)));
+        writer.write(',');
+        writer.write(text(rs.getString(4)));
+        writer.write(',');
+        writer.write(text(rs.getString(5)));
+        writer.write(',');
+        writer.write(number(rs.getObject(6)));
+        writer.write(',');
+        writer.write(number(rs.getObject(7)));
+        writer.write(',');
+        writer.write(number(rs.getObject(8)));
+        writer.write(',');
+        writer.write(text(rs.getString(9)));
+        writer.write("\r\n");
+    }
+
+    private static String number(Object value) {
+        return value != null ? value.toString() : "";
+    }
+
+    // RFC 4180 quoting; =, +, -, @ ने सुरू होणारे नाव Excel formula म्हणून चालू नये
+    static String text(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        String safe = "=+-@".indexOf(value.charAt(0)) >= 0 ? "'" + value : value;
+        if (safe.indexOf(',') >= 0 || safe.indexOf('"') >= 0 || safe.indexOf('\n') >= 0 || safe.indexOf('\r') >= 0) {
+            return '"' + safe.replace("\"", "\"\"") + '"';
+        }
+        return safe;
+    }
+}
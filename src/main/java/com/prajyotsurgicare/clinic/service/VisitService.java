@@ -1,6 +1,7 @@
 package com.prajyotsurgicare.clinic.service;
 
 import com.prajyotsurgicare.clinic.dto.BillingRequest;
+import com.prajyotsurgicare.clinic.dto.DailyStatsRow;
 import com.prajyotsurgicare.clinic.dto.DirectCheckupRequest;
 import com.prajyotsurgicare.clinic.dto.PatientRegistrationRequest;
 import com.prajyotsurgicare.clinic.dto.VisitResponse;
@@ -22,6 +23,7 @@ import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Slf4j
 @Service
@@ -36,6 +38,9 @@ public class VisitService {
     private final DoctorRepository doctorRepository;
     private final WebSocketService webSocketService;
     private final NotificationService notificationService;
+    private final LiveQueueService liveQueueService;
+    private final TokenService tokenService;
+    private final DailyStatsService dailyStatsService;
     // 📞 1. APPOINTMENT / WALK-IN REGISTRATION
     @Transactional
     public Visit createVisitWithClinic(Patient patient, PatientRegistrationRequest request, Long clinicId) {
@@ -90,14 +95,8 @@ public class VisitService {
             visit.setVisitDate(LocalDate.now());
         }
 
-        // Token Logic
-        Integer maxToken = visitRepository.findMaxTokenByDoctor(
-                visit.getVisitDate(),
-                clinicId,
-                doctor.getId()
-        );
-        if (maxToken == null) maxToken = 0;
-        visit.setTokenNumber(maxToken + 1);
+        // Token Logic (counter table, concurrent desks ला duplicate नाही)
+        visit.setTokenNumber(tokenService.nextToken(clinicId, doctor.getId(), visit.getVisitDate()));
 
         // Status & Queue Logic
         if (request.isAppointment()) {
@@ -108,6 +107,7 @@ public class VisitService {
         }
 
         Visit saved = visitRepository.save(visit);
+        liveQueueService.trackChange(saved);
 
         log.info("💾 VISIT SAVED SUCCESSFULLY! ID: {}, Fee: {}, Type: {}",
                 saved.getId(), saved.getTotalAmount(), saved.getVisitType());
@@ -177,11 +177,15 @@ public class VisitService {
     public void markArrived(Long visitId) {
         Visit visit = visitRepository.findById(visitId)
                 .orElseThrow(() -> new RuntimeException("Visit not found"));
+        DailyStatsRow statsBefore = dailyStatsService.snapshot(visit);
 
         if (!visit.getVisitDate().equals(LocalDate.now())) {
             log.info("🗓️ Rescheduling Visit ID {} from {} to TODAY",
                     visitId, visit.getVisitDate());
             visit.setVisitDate(LocalDate.now());
+            // जुन्या तारखेचा token आजच्या tokens सोबत clash होऊ नये
+            visit.setTokenNumber(tokenService.nextToken(
+                    visit.getClinic().getId(), visit.getDoctor().getId(), visit.getVisitDate()));
         }
 
         visit.setStatus(VisitStatus.ARRIVED);
@@ -191,6 +195,8 @@ public class VisitService {
         }
 
         visitRepository.save(visit);
+        dailyStatsService.recordChange(statsBefore, visit);
+        liveQueueService.trackChange(visit);
 
         TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
             @Override
@@ -205,6 +211,7 @@ public class VisitService {
     public void collectPayment(BillingRequest request) {
         Visit visit = visitRepository.findById(request.getVisitId())
                 .orElseThrow(() -> new RuntimeException("Visit not found"));
+        DailyStatsRow statsBefore = dailyStatsService.snapshot(visit);
 
         if (request.getAmount() != null) {
             visit.setPaidAmount(request.getAmount());
@@ -227,6 +234,8 @@ public class VisitService {
         }
 
         visitRepository.save(visit);
+        dailyStatsService.recordChange(statsBefore, visit);
+        liveQueueService.trackChange(visit);
 
         TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
             @Override
@@ -238,11 +247,14 @@ public class VisitService {
 
     // 📜 4. HISTORY
     public List<VisitResponse> getVisitHistory(Long patientId) {
-        return visitRepository
-                .findByPatientIdOrderByVisitDateDesc(patientId)
+        List<Visit> visits = visitRepository.findByPatientIdOrderByVisitDateDesc(patientId);
+        Set<Long> visitsWithFiles = fileRepository.visitIdsWithFiles(visits.stream().map(Visit::getId).toList());
+
+        return visits
                 .stream()
                 .map(v -> {
-                    boolean hasFile = !fileRepository.findByVisitId(v.getId()).isEmpty();                    String docName = (v.getDoctor() != null) ? v.getDoctor().getName() : "Unknown";
+                    boolean hasFile = visitsWithFiles.contains(v.getId());
+                    String docName = (v.getDoctor() != null) ? v.getDoctor().getName() : "Unknown";
                     String clinicName = (v.getClinic() != null) ? v.getClinic().getName() : "Unknown";
 
                     return VisitResponse.builder()
@@ -302,10 +314,11 @@ public class VisitService {
         visit.setPaymentMode("CASH");
 
         // 5. Token Logic (Optional but good)
-        Integer maxToken = visitRepository.findMaxTokenByDoctor(LocalDate.now(), req.getClinicId(), req.getDoctorId());
-        visit.setTokenNumber((maxToken == null ? 0 : maxToken) + 1);
+        visit.setTokenNumber(tokenService.nextToken(req.getClinicId(), req.getDoctorId(), LocalDate.now()));
 
         visitRepository.save(visit);
+        dailyStatsService.recordChange(null, visit);
+        liveQueueService.trackChange(visit);
         return visit.getId();
     }
 }
\ No newline at end of file
@@ -1,24 +1,49 @@
 package com.prajyotsurgicare.clinic.service;
 
+import com.prajyotsurgicare.clinic.dto.QueueEvent;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class WebSocketService {
 
+    // 🔥 थेट send नाही: burst मधले updates QueueBroadcastDispatcher एकत्र करून पाठवतो
+    private final QueueBroadcastDispatcher broadcastDispatcher;
     private final SimpMessagingTemplate messagingTemplate;
 
     // 📢 डॉक्टरांना Alert पाठवणारी मेथड
     public void sendQueueUpdate(Long clinicId, String type) {
         // Destination: /topic/clinic/{id}
-        String destination = "/topic/clinic/" + clinicId;
 
         // Message Type: "REFRESH", "EMERGENCY", "BILLING_DONE"
         // Frontend ला कळेल की नक्की काय झाले आहे
-        messagingTemplate.convertAndSend(destination, type);
+        broadcastDispatcher.submitSignal(clinicId, type);
+    }
+
+    // 📢 Typed delta events: /topic/clinic/{id}/events (frame = events चा JSON array)
+    // जुने clients /topic/clinic/{id} वरचा string ऐकत राहतात
+    public void sendQueueEvents(Long clinicId, List<QueueEvent> events) {
+        broadcastDispatcher.submitEvents(clinicId, events);
+    }
 
-        System.out.println("📢 WebSocket Update Sent to Clinic " + clinicId + ": " + type);
+    // 📄 Prescription events (PDF_READY / PDF_FAILED): /topic/clinic/{id}/prescriptions
+    // Queue सारखे coalescing नाही, प्रत्येक job चा एकच message
+    public void sendPrescriptionEvent(Long clinicId, String type, Object payload) {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("type", type);
+        message.put("job", payload);
+        try {
+            messagingTemplate.convertAndSend("/topic/clinic/" + clinicId + "/prescriptions", message);
+        } catch (Exception e) {
+            log.error("❌ Prescription event failed for Clinic {}: {}", clinicId, e.getMessage());
+        }
     }
-}
\ No newline at end of file
+}
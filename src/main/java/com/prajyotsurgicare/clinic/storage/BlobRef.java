@@ -0,0 +1,20 @@
+package com.prajyotsurgicare.clinic.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class BlobRef {
+    private String key;
+    private long sizeBytes;
+    private String contentHash;
+    // तोच content आधीच store मध्ये होता
+    private boolean deduplicated;
+    // null = जसेच्या तसे, "gzip" = store मध्ये compressed (sizeBytes/contentHash मूळ content चे)
+    private String contentEncoding;
+
+    public BlobRef(String key, long sizeBytes, String contentHash, boolean deduplicated) {
+        this(key, sizeBytes, contentHash, deduplicated, null);
+    }
+}
@@ -0,0 +1,29 @@
+package com.prajyotsurgicare.clinic.storage;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.function.BiConsumer;
+
+// 🗂️ Prescription files (PDF/photos) साठी storage. DB मध्ये फक्त key राहते, bytes इथे.
+// Key = content चा SHA-256, म्हणजे तीच फाईल परत आली तर दुसऱ्यांदा लिहिली जात नाही.
+public interface BlobStore {
+
+    // Stream पूर्ण वाचून store करतो (memory मध्ये पूर्ण फाईल घेत नाही)
+    BlobRef put(InputStream content) throws IOException;
+
+    InputStream open(String key) throws IOException;
+
+    // HTTP download साठी: length माहीत असलेला Resource (Range requests साठी गरजेचे).
+    // sizeBytes माहीत नसेल तर -1.
+    Resource asResource(String key, long sizeBytes) throws IOException;
+
+    boolean exists(String key);
+
+    void delete(String key) throws IOException;
+
+    // Orphan sweep साठी: store मधील प्रत्येक blob ची key आणि शेवटचा बदल
+    void forEachBlob(BiConsumer<String, Instant> visitor) throws IOException;
+}
@@ -0,0 +1,44 @@
+package com.prajyotsurgicare.clinic.storage;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+// 🔍 Upload चा खरा type पहिल्या bytes वरून (client चा Content-Type header विश्वासार्ह नसतो)
+public final class ContentSniffer {
+
+    public static final String JPEG = "image/jpeg";
+    public static final String PNG = "image/png";
+    public static final String WEBP = "image/webp";
+    public static final String PDF = "application/pdf";
+
+    private static final int HEADER_SIZE = 12;
+
+    private ContentSniffer() {
+    }
+
+    // Stream पुढे सरकत नाही (mark/reset), म्हणून तोच stream पुढे store करता येतो
+    public static String detect(BufferedInputStream in) throws IOException {
+        in.mark(HEADER_SIZE);
+        byte[] header = in.readNBytes(HEADER_SIZE);
+        in.reset();
+        return detect(header);
+    }
+
+    public static String detect(byte[] h) {
+        if (startsWith(h, 0xFF, 0xD8, 0xFF)) return JPEG;
+        if (startsWith(h, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) return PNG;
+        if (startsWith(h, '%', 'P', 'D', 'F', '-')) return PDF;
+        if (startsWith(h, 'R', 'I', 'F', 'F') && h.length >= 12
+                && Arrays.equals(Arrays.copyOfRange(h, 8, 12), new byte[]{'W', 'E', 'B', 'P'})) return WEBP;
+        return null;
+    }
+
+    private static boolean startsWith(byte[] data, int... prefix) {
+        if (data.length < prefix.length) return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if ((data[i] & 0xFF) != prefix[i]) return false;
+        }
+        return true;
+    }
+}
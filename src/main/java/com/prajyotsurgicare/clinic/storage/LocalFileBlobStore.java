@@ -0,0 +1,126 @@
+package com.prajyotsurgicare.clinic.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.function.BiConsumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// 💾 Local disk: <root>/ab/cd/<sha256>. Temp file त्याच disk वर, मग atomic rename,
+// म्हणजे अर्धवट लिहिलेली फाईल कधीच final path वर दिसत नाही.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "storage.type", havingValue = "local", matchIfMissing = true)
+public class LocalFileBlobStore implements BlobStore {
+
+    private static final Pattern KEY_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path root;
+    private final Path tempDir;
+
+    public LocalFileBlobStore(@Value("${storage.local.root:./data/blobs}") String root) throws IOException {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        this.tempDir = this.root.resolve("tmp");
+        Files.createDirectories(tempDir);
+        log.info("💾 Local blob store at {}", this.root);
+    }
+
+    @Override
+    public BlobRef put(InputStream content) throws IOException {
+        try (SpooledContent spooled = SpooledContent.spool(content, tempDir)) {
+            String key = spooled.sha256();
+            Path target = pathFor(key);
+            if (Files.exists(target) && touch(target)) {
+                return new BlobRef(key, spooled.size(), key, true);
+            }
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(spooled.file(), target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // दुसऱ्या request ने तोच content आत्ताच लिहिला
+                touch(target);
+                return new BlobRef(key, spooled.size(), key, true);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(spooled.file(), target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return new BlobRef(key, spooled.size(), key, false);
+        }
+    }
+
+    // Dedup hit: mtime आत्ताचा करा, नाहीतर जुना orphan समजून sweep नुकताच वापरलेला blob काढू शकतो.
+    // false = मधेच delete झाला (मग नव्याने लिहा)
+    private boolean touch(Path target) throws IOException {
+        try {
+            Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(pathFor(key));
+    }
+
+    // FileSystemResource: पूर्ण फाईल heap मध्ये न घेता थेट disk वरून response मध्ये
+    @Override
+    public Resource asResource(String key, long sizeBytes) throws IOException {
+        Path path = pathFor(key);
+        if (!Files.exists(path)) {
+            throw new FileNotFoundException("Blob not found: " + key);
+        }
+        return new FileSystemResource(path);
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.exists(pathFor(key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(pathFor(key));
+    }
+
+    @Override
+    public void forEachBlob(BiConsumer<String, Instant> visitor) throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            Iterator<Path> it = files.iterator();
+            while (it.hasNext()) {
+                Path path = it.next();
+                String name = path.getFileName().toString();
+                // tmp/ मधील अर्धवट uploads आणि directories वगळा
+                if (path.startsWith(tempDir) || !KEY_PATTERN.matcher(name).matches() || !Files.isRegularFile(path)) {
+                    continue;
+                }
+                visitor.accept(name, Files.getLastModifiedTime(path).toInstant());
+            }
+        }
+    }
+
+    private Path pathFor(String key) {
+        if (!KEY_PATTERN.matcher(key).matches()) {
+            throw new IllegalArgumentException("Invalid blob key: " + key);
+        }
+        return root.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key);
+    }
+}
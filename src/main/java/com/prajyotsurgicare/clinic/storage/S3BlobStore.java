@@ -0,0 +1,181 @@
+package com.prajyotsurgicare.clinic.storage;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.model.MetadataDirective;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Object;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.function.BiConsumer;
+
+// ☁️ S3-compatible storage (AWS S3, MinIO, LocalStack).
+// Local stand-in साठी storage.s3.endpoint + path-style access वापरा.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "storage.type", havingValue = "s3")
+public class S3BlobStore implements BlobStore {
+
+    private final S3Client s3;
+    private final String bucket;
+    private final String prefix;
+    private final Path tempDir = Paths.get(System.getProperty("java.io.tmpdir"), "clinic-blobs");
+
+    public S3BlobStore(@Value("${storage.s3.bucket}") String bucket,
+                       @Value("${storage.s3.prefix:prescriptions/}") String prefix,
+                       @Value("${storage.s3.region:ap-south-1}") String region,
+                       @Value("${storage.s3.endpoint:}") String endpoint,
+                       @Value("${storage.s3.path-style:false}") boolean pathStyle,
+                       @Value("${storage.s3.access-key:}") String accessKey,
+                       @Value("${storage.s3.secret-key:}") String secretKey) {
+        S3ClientBuilder builder = S3Client.builder()
+                .region(Region.of(region))
+                .forcePathStyle(pathStyle);
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        if (!accessKey.isBlank()) {
+            builder.credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)));
+        } else {
+            builder.credentialsProvider(DefaultCredentialsProvider.create());
+        }
+        this.s3 = builder.build();
+        this.bucket = bucket;
+        this.prefix = prefix;
+        log.info("☁️ S3 blob store: bucket={}, endpoint={}", bucket, endpoint.isBlank() ? "aws" : endpoint);
+    }
+
+    @Override
+    public BlobRef put(InputStream content) throws IOException {
+        // Hash आधी लागतो (तोच object key), म्हणून local temp मध्ये spool करून मग upload
+        try (SpooledContent spooled = SpooledContent.spool(content, tempDir)) {
+            String key = spooled.sha256();
+            if (exists(key) && touch(key)) {
+                return new BlobRef(key, spooled.size(), key, true);
+            }
+            try {
+                s3.putObject(b -> b.bucket(bucket).key(objectKey(key)).contentLength(spooled.size()),
+                        RequestBody.fromFile(spooled.file()));
+            } catch (S3Exception e) {
+                throw new IOException("S3 upload failed for " + key + ": " + e.getMessage(), e);
+            }
+            return new BlobRef(key, spooled.size(), key, false);
+        }
+    }
+
+    // Dedup hit: LastModified आत्ताचा करा (स्वतःवरच server-side copy), नाहीतर orphan sweep
+    // नुकताच वापरलेला object जुना समजून काढू शकतो. false = मधेच delete झाला (मग नव्याने upload)
+    private boolean touch(String key) throws IOException {
+        try {
+            s3.copyObject(b -> b.sourceBucket(bucket).sourceKey(objectKey(key))
+                    .destinationBucket(bucket).destinationKey(objectKey(key))
+                    .metadataDirective(MetadataDirective.REPLACE));
+            return true;
+        } catch (NoSuchKeyException e) {
+            return false;
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) return false;
+            throw new IOException("S3 touch failed for " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        try {
+            return s3.getObject(b -> b.bucket(bucket).key(objectKey(key)));
+        } catch (S3Exception e) {
+            throw new IOException("S3 read failed for " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    // Object S3 मधूनच stream होतो. Size DB मध्ये असेल तर HEAD call लागत नाही.
+    @Override
+    public Resource asResource(String key, long sizeBytes) throws IOException {
+        long length;
+        try {
+            length = sizeBytes >= 0 ? sizeBytes : s3.headObject(b -> b.bucket(bucket).key(objectKey(key))).contentLength();
+        } catch (S3Exception e) {
+            throw new IOException("S3 read failed for " + key + ": " + e.getMessage(), e);
+        }
+        return new AbstractResource() {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                return open(key);
+            }
+
+            @Override
+            public long contentLength() {
+                return length;
+            }
+
+            @Override
+            public String getDescription() {
+                return "S3 object [" + bucket + "/" + objectKey(key) + "]";
+            }
+        };
+    }
+
+    @Override
+    public boolean exists(String key) {
+        try {
+            s3.headObject(b -> b.bucket(bucket).key(objectKey(key)));
+            return true;
+        } catch (NoSuchKeyException e) {
+            return false;
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) return false;
+            throw e;
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            s3.deleteObject(b -> b.bucket(bucket).key(objectKey(key)));
+        } catch (S3Exception e) {
+            throw new IOException("S3 delete failed for " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void forEachBlob(BiConsumer<String, Instant> visitor) throws IOException {
+        try {
+            // Paginator स्वतः पुढचे pages (1000 objects) आणतो
+            for (S3Object object : s3.listObjectsV2Paginator(b -> b.bucket(bucket).prefix(prefix)).contents()) {
+                String name = object.key().substring(object.key().lastIndexOf('/') + 1);
+                if (name.matches("[0-9a-f]{64}")) {
+                    visitor.accept(name, object.lastModified());
+                }
+            }
+        } catch (S3Exception e) {
+            throw new IOException("S3 list failed: " + e.getMessage(), e);
+        }
+    }
+
+    private String objectKey(String key) {
+        return prefix + key.substring(0, 2) + "/" + key;
+    }
+
+    @PreDestroy
+    public void close() {
+        s3.close();
+    }
+}
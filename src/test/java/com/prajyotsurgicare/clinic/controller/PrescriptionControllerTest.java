@@ -0,0 +1,73 @@
+package com.prajyotsurgicare.clinic.controller;
+
+import com.prajyotsurgicare.clinic.dto.PrescriptionFileMeta;
+import com.prajyotsurgicare.clinic.exception.GlobalExceptionHandler;
+import com.prajyotsurgicare.clinic.exception.NotFoundException;
+import com.prajyotsurgicare.clinic.service.PrescriptionBundleService;
+import com.prajyotsurgicare.clinic.service.PrescriptionFileCache;
+import com.prajyotsurgicare.clinic.service.PrescriptionRenderService;
+import com.prajyotsurgicare.clinic.service.PrescriptionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// 📥 File views: फक्त "नाही सापडली" = 404, DB/storage बिघाड 500 म्हणून दिसला पाहिजे
+class PrescriptionControllerTest {
+
+    private PrescriptionService prescriptionService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        prescriptionService = mock(PrescriptionService.class);
+        PrescriptionController controller = new PrescriptionController(prescriptionService,
+                mock(PrescriptionRenderService.class), mock(PrescriptionBundleService.class), mock(PrescriptionFileCache.class));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void missingFileIsNotFound() throws Exception {
+        when(prescriptionService.getFileMeta(1L)).thenThrow(new NotFoundException("Prescription file not found with id: 1"));
+        when(prescriptionService.getLatestFileByVisitId(1L)).thenThrow(new NotFoundException("No file found for visit 1"));
+
+        mockMvc.perform(get("/api/prescription/view/1")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/prescription/view/1/thumbnail")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/prescription/view/1/preview")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/prescription/1/view")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void databaseFailureIsServerError() throws Exception {
+        when(prescriptionService.getFileMeta(2L)).thenThrow(new DataAccessResourceFailureException("connection refused"));
+        when(prescriptionService.getLatestFileByVisitId(2L)).thenThrow(new DataAccessResourceFailureException("connection refused"));
+
+        mockMvc.perform(get("/api/prescription/view/2")).andExpect(status().isInternalServerError());
+        mockMvc.perform(get("/api/prescription/view/2/thumbnail")).andExpect(status().isInternalServerError());
+        mockMvc.perform(get("/api/prescription/view/2/preview")).andExpect(status().isInternalServerError());
+        mockMvc.perform(get("/api/prescription/2/view")).andExpect(status().isInternalServerError());
+    }
+
+    @Test
+    void storageFailureIsServerError() throws Exception {
+        PrescriptionFileMeta meta = mock(PrescriptionFileMeta.class);
+        when(meta.getFileType()).thenReturn("application/pdf");
+        when(meta.getPreviewKey()).thenReturn("preview-key");
+        when(prescriptionService.getFileMeta(3L)).thenReturn(meta);
+        when(prescriptionService.getETag(any())).thenReturn("\"hash\"");
+        when(prescriptionService.getContent(meta)).thenThrow(new RuntimeException("Could not read prescription file 3"));
+        when(prescriptionService.getBlob("preview-key")).thenThrow(new RuntimeException("Could not read blob preview-key"));
+
+        mockMvc.perform(get("/api/prescription/view/3")).andExpect(status().isInternalServerError());
+        mockMvc.perform(get("/api/prescription/view/3/preview")).andExpect(status().isInternalServerError());
+    }
+}
@@ -0,0 +1,137 @@
+package com.prajyotsurgicare.clinic.service;
+
+import com.prajyotsurgicare.clinic.dto.MedicalInfoRequest;
+import com.prajyotsurgicare.clinic.entity.Patient;
+import com.prajyotsurgicare.clinic.entity.Visit;
+import com.prajyotsurgicare.clinic.enums.VisitStatus;
+import com.prajyotsurgicare.clinic.enums.VisitType;
+import com.prajyotsurgicare.clinic.support.IntegrationTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 🗃️ AnalyticsCache: visit बदलला की commit नंतरच त्या clinic चे cards आणि ती तारीख असलेल्या ranges जातात,
+// बंद झालेले जुने महिने आणि दुसऱ्या clinic चे entries cache मध्येच राहतात
+class AnalyticsCacheInvalidationTest extends IntegrationTestSupport {
+
+    private static final long OTHER_CLINIC = 999L;
+
+    @Autowired private AnalyticsService analyticsService;
+    @Autowired private DoctorDashboardService doctorDashboardService;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private final LocalDate today = LocalDate.now();
+    private final LocalDate monthStart = YearMonth.from(today).atDay(1);
+    private final LocalDate monthEnd = YearMonth.from(today).atEndOfMonth();
+    private final LocalDate oldStart = YearMonth.from(today).minusMonths(3).atDay(1);
+    private final LocalDate oldEnd = YearMonth.from(today).minusMonths(3).atEndOfMonth();
+
+    @Test
+    void visitChangeEvictsOnlyEntriesCoveringItsDate() {
+        Patient ramesh = newPatient("Ramesh Patil", "9811111111");
+        Visit first = newVisit(ramesh, wakad(), nikhil(), today, VisitStatus.IN_PROGRESS, VisitType.OPD, 500, 0);
+        doctorDashboardService.completeCheckup(first.getId(), medical(200.0));
+        Visit old = newVisit(ramesh, wakad(), nikhil(), oldStart.plusDays(5), VisitStatus.IN_PROGRESS, VisitType.OPD, 400, 0);
+        doctorDashboardService.completeCheckup(old.getId(), medical(0.0));
+
+        Long clinicId = wakad().getId();
+        assertThat(analyticsService.getSummary(clinicId, null, monthStart, monthEnd).get("dailyIncome")).isEqualTo(700.0);
+        Map<String, Object> oldSummary = analyticsService.getSummary(clinicId, null, oldStart, oldEnd);
+        assertThat(oldSummary.get("filteredRevenue")).isEqualTo(400.0);
+
+        // आजचा नवा completed visit → cards आणि चालू महिना evict
+        Visit second = newVisit(ramesh, wakad(), priyanka(), today, VisitStatus.IN_PROGRESS, VisitType.FOLLOW_UP, 300, 0);
+        doctorDashboardService.completeCheckup(second.getId(), medical(0.0));
+
+        Map<String, Object> current = analyticsService.getSummary(clinicId, null, monthStart, monthEnd);
+        assertThat(current.get("dailyIncome")).isEqualTo(1000.0);
+        assertThat(current.get("dailyVisits")).isEqualTo(2L);
+        assertThat(current.get("filteredRevenue")).isEqualTo(1000.0);
+
+        // जुना महिना cache मधूनच (range miss वाढत नाही); cards आजचे असल्याने नवे
+        long rangeMisses = rangeStat("misses");
+        long rangeHits = rangeStat("hits");
+        Map<String, Object> oldAgain = analyticsService.getSummary(clinicId, null, oldStart, oldEnd);
+        assertThat(oldAgain.get("dailyTrend")).isSameAs(oldSummary.get("dailyTrend"));
+        assertThat(oldAgain.get("filteredRevenue")).isEqualTo(400.0);
+        assertThat(oldAgain.get("dailyIncome")).isEqualTo(1000.0);
+        assertThat(rangeStat("misses")).isEqualTo(rangeMisses);
+        assertThat(rangeStat("hits")).isEqualTo(rangeHits + 1);
+    }
+
+    @Test
+    void evictionWaitsForCommitAndSkipsRollback() {
+        Long clinicId = wakad().getId();
+        AtomicInteger loads = new AtomicInteger();
+        AtomicInteger otherClinicLoads = new AtomicInteger();
+        Supplier<Map<String, Object>> loader = () -> Map.of("load", loads.incrementAndGet());
+        Supplier<Map<String, Object>> otherClinicLoader = () -> Map.of("load", otherClinicLoads.incrementAndGet());
+
+        analyticsCache.getRange(clinicId, 0L, monthStart, monthEnd, loader);
+        analyticsCache.getRange(OTHER_CLINIC, 0L, monthStart, monthEnd, otherClinicLoader);
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        // Rollback: काहीच evict होत नाही
+        tx.executeWithoutResult(status -> {
+            analyticsCache.evictAfterCommit(clinicId, today);
+            status.setRollbackOnly();
+        });
+        analyticsCache.getRange(clinicId, 0L, monthStart, monthEnd, loader);
+        assertThat(loads).hasValue(1);
+
+        // Commit आधी जुनी entry तशीच, commit नंतर गेली
+        tx.executeWithoutResult(status -> {
+            analyticsCache.evictAfterCommit(clinicId, today);
+            analyticsCache.getRange(clinicId, 0L, monthStart, monthEnd, loader);
+            assertThat(loads).hasValue(1);
+        });
+        analyticsCache.getRange(clinicId, 0L, monthStart, monthEnd, loader);
+        assertThat(loads).hasValue(2);
+
+        // दुसऱ्या clinic ची entry राहते
+        analyticsCache.getRange(OTHER_CLINIC, 0L, monthStart, monthEnd, otherClinicLoader);
+        assertThat(otherClinicLoads).hasValue(1);
+    }
+
+    @Test
+    void resultComputedAcrossAnEvictionIsNotCached() {
+        Long clinicId = wakad().getId();
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<Map<String, Object>> racingLoader = () -> {
+            // Compute चालू असताना दुसऱ्या request चा commit
+            analyticsCache.evictAfterCommit(clinicId, today);
+            return Map.of("load", loads.incrementAndGet());
+        };
+
+        analyticsCache.getCards(clinicId, 0L, today, racingLoader);
+        analyticsCache.getCards(clinicId, 0L, today, () -> Map.of("load", loads.incrementAndGet()));
+        assertThat(loads).hasValue(2);
+
+        // Race नसताना पुढची entry cache होते
+        analyticsCache.getCards(clinicId, 0L, today, () -> Map.of("load", loads.incrementAndGet()));
+        assertThat(loads).hasValue(2);
+    }
+
+    @SuppressWarnings("unchecked")
+    private long rangeStat(String name) {
+        Map<String, Object> ranges = (Map<String, Object>) analyticsCache.getStats().get("ranges");
+        return (Long) ranges.get(name);
+    }
+
+    private MedicalInfoRequest medical(Double otherCharges) {
+        MedicalInfoRequest request = new MedicalInfoRequest();
+        request.setDiagnosis("Checked");
+        request.setOtherCharges(otherCharges);
+        request.setPaymentCollected(true);
+        return request;
+    }
+}
@@ -0,0 +1,117 @@
+package com.prajyotsurgicare.clinic.service;
+
+import com.prajyotsurgicare.clinic.dto.BillingRequest;
+import com.prajyotsurgicare.clinic.dto.DirectCheckupRequest;
+import com.prajyotsurgicare.clinic.dto.MedicalInfoRequest;
+import com.prajyotsurgicare.clinic.entity.Patient;
+import com.prajyotsurgicare.clinic.entity.Visit;
+import com.prajyotsurgicare.clinic.enums.VisitStatus;
+import com.prajyotsurgicare.clinic.enums.VisitType;
+import com.prajyotsurgicare.clinic.support.IntegrationTestSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 📊 Rollup (daily_clinic_doctor_stats) वरचा summary = visits वरच्या जुन्या queries चा summary,
+// visits बदलणाऱ्या प्रत्येक service method नंतर आणि full rebuild नंतर सुद्धा
+class AnalyticsRollupEquivalenceTest extends IntegrationTestSupport {
+
+    @Autowired private AnalyticsService analyticsService;
+    @Autowired private DailyStatsService dailyStatsService;
+    @Autowired private DoctorDashboardService doctorDashboardService;
+    @Autowired private VisitService visitService;
+    @Autowired private PatientService patientService;
+
+    private final LocalDate today = LocalDate.now();
+    private final LocalDate rangeStart = today.minusDays(40);
+
+    @AfterEach
+    void restoreRollup() {
+        dailyStatsService.setReady(true);
+    }
+
+    @Test
+    void rollupMatchesVisitQueriesThroughEveryChange() {
+        Patient ramesh = newPatient("Ramesh Patil", "9811111111");
+        Patient sunita = newPatient("Sunita Jadhav", "9822222222");
+        Patient amit = newPatient("Amit More", "9833333333");
+
+        // Doctor checkup: payment घेतली → COMPLETED
+        Visit opd = newVisit(ramesh, wakad(), nikhil(), today, VisitStatus.IN_PROGRESS, VisitType.OPD, 500, 0);
+        doctorDashboardService.completeCheckup(opd.getId(), medical(200.0, true));
+        assertEquivalent();
+
+        // Billing pending → reception payment
+        Visit followUp = newVisit(sunita, wakad(), priyanka(), today, VisitStatus.IN_PROGRESS, VisitType.FOLLOW_UP, 300, 0);
+        doctorDashboardService.completeCheckup(followUp.getId(), medical(null, false));
+        assertEquivalent();
+        BillingRequest billing = new BillingRequest();
+        billing.setVisitId(followUp.getId());
+        billing.setConsultationFee(300.0);
+        billing.setOtherCharges(150.0);
+        visitService.collectPayment(billing);
+        assertEquivalent();
+
+        // मागच्या दिवसांचे visits (दुसरा महिना पण असू शकतो)
+        Visit older = newVisit(amit, wakad(), nikhil(), today.minusDays(35), VisitStatus.IN_PROGRESS, VisitType.ON_CALL, 700, 0);
+        doctorDashboardService.completeCheckup(older.getId(), medical(50.0, true));
+        Visit lastWeek = newVisit(amit, wakad(), priyanka(), today.minusDays(6), VisitStatus.IN_PROGRESS, VisitType.OPD, 400, 0);
+        doctorDashboardService.completeCheckup(lastWeek.getId(), medical(0.0, true));
+        assertEquivalent();
+
+        // Direct checkup (registration + completion एकाच वेळी)
+        DirectCheckupRequest direct = new DirectCheckupRequest();
+        direct.setPatientId(sunita.getId());
+        direct.setDoctorId(nikhil().getId());
+        direct.setClinicId(wakad().getId());
+        direct.setConsultationFee(500.0);
+        direct.setOtherCharges(250.0);
+        direct.setTotalAmount(750.0);
+        visitService.processDirectCheckup(direct);
+        assertEquivalent();
+
+        // Completed visit ची रक्कम नंतर बदलली
+        doctorDashboardService.updateMedicalDetails(opd.getId(), medical(900.0, null));
+        assertEquivalent();
+
+        // Patient delete: त्याच्या visits चा वाटा जातो
+        patientService.deletePatient(amit.getId());
+        assertEquivalent();
+
+        // Full rebuild नंतरही तेच
+        dailyStatsService.rebuildAll();
+        assertEquivalent();
+
+        // दोन्ही बाजू रिकाम्या नाहीत: 1400 (500 + 900) + 300 + 750 (direct)
+        Map<String, Object> summary = summary(true, null);
+        assertThat(summary.get("filteredRevenue")).isEqualTo(2450.0);
+        assertThat(summary.get("dailyVisits")).isEqualTo(3L);
+    }
+
+    private void assertEquivalent() {
+        for (Long doctorId : new Long[]{null, nikhil().getId(), priyanka().getId()}) {
+            Map<String, Object> fromRollup = summary(true, doctorId);
+            Map<String, Object> fromVisits = summary(false, doctorId);
+            assertThat(fromRollup).as("doctor %s", doctorId).isEqualTo(fromVisits);
+        }
+    }
+
+    private Map<String, Object> summary(boolean rollup, Long doctorId) {
+        dailyStatsService.setReady(rollup);
+        analyticsCache.invalidateAll();
+        return analyticsService.getSummary(wakad().getId(), doctorId, rangeStart, today);
+    }
+
+    private MedicalInfoRequest medical(Double otherCharges, Boolean paymentCollected) {
+        MedicalInfoRequest request = new MedicalInfoRequest();
+        request.setDiagnosis("Checked");
+        request.setOtherCharges(otherCharges);
+        request.setPaymentCollected(paymentCollected);
+        return request;
+    }
+}
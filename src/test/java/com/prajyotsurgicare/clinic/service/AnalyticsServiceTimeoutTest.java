@@ -0,0 +1,102 @@
+package com.prajyotsurgicare.clinic.service;
+
+import com.prajyotsurgicare.clinic.dto.VisitAggregate;
+import com.prajyotsurgicare.clinic.exception.ServiceUnavailableException;
+import com.prajyotsurgicare.clinic.repository.VisitRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// ⏱️ Analytics timeout खरोखर काम थांबवतो: request thread वर query नाही, deadline नंतर queries interrupt,
+// आणि queue भरली की लगेच 503
+class AnalyticsServiceTimeoutTest {
+
+    private final LocalDate today = LocalDate.now();
+
+    private VisitRepository visitRepository;
+    private AnalyticsService analyticsService;
+    private final Set<Thread> queryThreads = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger interrupted = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        visitRepository = mock(VisitRepository.class);
+        DailyStatsService dailyStatsService = mock(DailyStatsService.class);
+        when(dailyStatsService.isReady()).thenReturn(false);
+        // 2 threads, queue 1: एका summary चे 3 queries बसतात, दुसऱ्या summary ला जागा नाही
+        analyticsService = new AnalyticsService(visitRepository, dailyStatsService,
+                new AnalyticsCache(100, Duration.ofHours(1)), mock(PlatformTransactionManager.class),
+                2, 1, Duration.ofMillis(500));
+        // Query DB मध्ये अडकली आहे असे
+        when(visitRepository.aggregateCompleted(any(), any(), any(), any())).thenAnswer(invocation -> {
+            queryThreads.add(Thread.currentThread());
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                interrupted.incrementAndGet();
+                Thread.currentThread().interrupt();
+            }
+            return new VisitAggregate(0L, 0.0, 0.0, 0.0);
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        analyticsService.shutdown();
+    }
+
+    @Test
+    void timedOutQueriesAreCancelled() throws Exception {
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> analyticsService.getSummary(1L, null, today, today))
+                .isInstanceOf(ServiceUnavailableException.class)
+                .hasMessageContaining("too long");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+
+        // चालू असलेल्या दोन्ही queries interrupt झाल्या, request thread वर एकही नाही
+        for (int i = 0; i < 50 && interrupted.get() < 2; i++) {
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+        assertThat(interrupted.get()).isEqualTo(2);
+        assertThat(queryThreads).doesNotContain(Thread.currentThread());
+    }
+
+    @Test
+    void fullQueueIsRejectedImmediately() throws Exception {
+        Thread first = new Thread(() -> {
+            try {
+                analyticsService.getSummary(1L, null, today, today);
+            } catch (ServiceUnavailableException ignored) {
+                // timeout अपेक्षित
+            }
+        });
+        first.start();
+        for (int i = 0; i < 50 && queryThreads.size() < 2; i++) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+
+        // दोन्ही threads व्यस्त, queue भरलेली: दुसरी summary caller thread वर न चालता लगेच 503
+        assertThatThrownBy(() -> analyticsService.getSummary(2L, null, today, today))
+                .isInstanceOf(ServiceUnavailableException.class)
+                .hasMessageContaining("busy");
+        assertThat(queryThreads).doesNotContain(Thread.currentThread());
+        first.join(5000);
+    }
+}
@@ -0,0 +1,160 @@
+package com.prajyotsurgicare.clinic.service;
+
+import com.prajyotsurgicare.clinic.entity.Patient;
+import com.prajyotsurgicare.clinic.entity.Visit;
+import com.prajyotsurgicare.clinic.enums.VisitStatus;
+import com.prajyotsurgicare.clinic.enums.VisitType;
+import com.prajyotsurgicare.clinic.support.PostgresIntegrationTestSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+// 📈 Rollup नसताना summary: जुना path (COMPLETED Visit entities load करून Java मध्ये groupBy)
+// विरुद्ध SQL GROUP BY path, 10k / 100k / 1M visits वर. फक्त -Dbenchmark=true दिल्यावर चालतो.
+// 1M वर जुना path सगळे entities heap मध्ये ठेवतो: -DargLine=-Xmx3g द्या
+class AnalyticsSummaryPostgresTest extends PostgresIntegrationTestSupport {
+
+    // वर्षाच्या सुरुवातीपासून आजपर्यंत पसरलेले visits, 90% COMPLETED, दोन doctors, तिन्ही visit types
+    private static final String SEED_SQL = """
+        INSERT INTO visits (patient_id, clinic_id, doctor_id, visit_type, visit_date, status, consultation_fee,
+                            other_charges, total_amount, paid_amount, token_number, is_emergency, payment_collected, created_at)
+        SELECT ?, ?, CASE WHEN g % 2 = 0 THEN ? ELSE ? END,
+               (ARRAY['OPD','FOLLOW_UP','ON_CALL'])[1 + g % 3],
+               ?::date - (g % ?),
+               CASE WHEN g % 10 = 0 THEN 'CANCELLED' ELSE 'COMPLETED' END,
+               300 + g % 5 * 100, g % 4 * 50, 300 + g % 5 * 100 + g % 4 * 50, 300 + g % 5 * 100 + g % 4 * 50,
+               1 + g % 200, false, true, now()
+        FROM generate_series(1, ?) AS g
+    """;
+
+    @Autowired private AnalyticsService analyticsService;
+    @Autowired private DailyStatsService dailyStatsService;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private final LocalDate today = LocalDate.now();
+    private final LocalDate yearStart = today.withDayOfYear(1);
+
+    @AfterEach
+    void restoreRollup() {
+        dailyStatsService.setReady(true);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkGroupByAgainstEntityStreaming() {
+        dailyStatsService.setReady(false);
+        Patient patient = newPatient("Ramesh Patil", "9811111111");
+
+        for (int visits : new int[]{10_000, 100_000, 1_000_000}) {
+            jdbcTemplate.update("DELETE FROM visits");
+            jdbcTemplate.update(SEED_SQL, patient.getId(), wakad().getId(), nikhil().getId(), priyanka().getId(),
+                    today, today.getDayOfYear(), visits);
+            jdbcTemplate.execute("ANALYZE visits");
+
+            // दोन्ही paths चे आकडे जुळले पाहिजेत (नाहीतर वेळांची तुलना निरर्थक)
+            Map<String, Object> legacy = entityStreamingSummary();
+            Map<String, Object> grouped = groupBySummary();
+            assertThat((Double) grouped.get("filteredRevenue"))
+                    .isCloseTo((Double) legacy.get("filteredRevenue"), within(0.01));
+            assertThat(grouped.get("yearlyVisits")).isEqualTo(legacy.get("yearlyVisits"));
+
+            int runs = visits >= 1_000_000 ? 5 : 20;
+            report(visits, "entity streaming", measure(runs, this::entityStreamingSummary));
+            report(visits, "GROUP BY", measure(runs, this::groupBySummary));
+        }
+    }
+
+    private Map<String, Object> groupBySummary() {
+        analyticsCache.invalidateAll();
+        return analyticsService.getSummary(wakad().getId(), null, yearStart, today);
+    }
+
+    // GROUP BY path आधीचा AnalyticsController.getSummary (doctor filter नसताना), जसाच्या तसा
+    private Map<String, Object> entityStreamingSummary() {
+        Long clinicId = wakad().getId();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        return readOnly.execute(status -> {
+            Map<String, Object> stats = new HashMap<>();
+            LocalDate monthStart = YearMonth.from(today).atDay(1);
+            LocalDate monthEnd = YearMonth.from(today).atEndOfMonth();
+            LocalDate yearEnd = today.withDayOfYear(today.lengthOfYear());
+            stats.put("dailyIncome", visitRepository.getDailyCollection(today, clinicId));
+            stats.put("dailyVisits", visitRepository.countByVisitDateAndClinicIdAndStatus(today, clinicId, VisitStatus.COMPLETED));
+            stats.put("monthlyIncome", visitRepository.getMonthlyCollection(monthStart, monthEnd, clinicId));
+            stats.put("monthlyVisits", visitRepository.getMonthlyVisits(monthStart, monthEnd, clinicId));
+            stats.put("yearlyIncome", visitRepository.getMonthlyCollection(yearStart, yearEnd, clinicId));
+            stats.put("yearlyVisits", visitRepository.getMonthlyVisits(yearStart, yearEnd, clinicId));
+
+            List<Visit> filteredVisits = visitRepository.findByVisitDateBetweenAndClinicIdAndStatus(
+                    yearStart, today, clinicId, VisitStatus.COMPLETED);
+
+            double totalConsultation = filteredVisits.stream().mapToDouble(v -> v.getConsultationFee() != null ? v.getConsultationFee() : 0).sum();
+            double totalProcedures = filteredVisits.stream().mapToDouble(v -> v.getOtherCharges() != null ? v.getOtherCharges() : 0).sum();
+            stats.put("filteredRevenue", totalConsultation + totalProcedures);
+            stats.put("incomeBreakdown", Map.of("Consultation", totalConsultation, "Procedures", totalProcedures));
+
+            long newPatients = filteredVisits.stream()
+                    .filter(v -> v.getVisitType() == VisitType.OPD || v.getVisitType() == VisitType.ON_CALL)
+                    .count();
+            long followUpPatients = filteredVisits.stream()
+                    .filter(v -> v.getVisitType() == VisitType.FOLLOW_UP)
+                    .count();
+            stats.put("patientRatio", Map.of("New", newPatients, "FollowUp", followUpPatients));
+
+            stats.put("doctorPerformance", filteredVisits.stream()
+                    .filter(v -> v.getDoctor() != null)
+                    .collect(Collectors.groupingBy(v -> v.getDoctor().getName(),
+                            Collectors.summingDouble(v -> v.getTotalAmount() != null ? v.getTotalAmount() : 0))));
+
+            List<Map<String, Object>> dailyTrend = new ArrayList<>();
+            filteredVisits.stream().collect(Collectors.groupingBy(Visit::getVisitDate)).forEach((date, visits) -> {
+                Map<String, Object> dayStat = new HashMap<>();
+                dayStat.put("date", date);
+                dayStat.put("total", visits.stream().mapToDouble(v -> v.getTotalAmount() != null ? v.getTotalAmount() : 0).sum());
+                dayStat.put("count", visits.size());
+                dailyTrend.add(dayStat);
+            });
+            dailyTrend.sort((a, b) -> ((LocalDate) a.get("date")).compareTo((LocalDate) b.get("date")));
+            stats.put("dailyTrend", dailyTrend);
+            return stats;
+        });
+    }
+
+    private List<Long> measure(int runs, Supplier<Map<String, Object>> summary) {
+        summary.get();
+        List<Long> millis = new ArrayList<>();
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            summary.get();
+            millis.add((System.nanoTime() - start) / 1_000_000);
+        }
+        Collections.sort(millis);
+        return millis;
+    }
+
+    private void report(int visits, String label, List<Long> millis) {
+        long p50 = millis.get(millis.size() / 2);
+        long max = millis.get(millis.size() - 1);
+        System.out.printf("📈 %,9d visits  %-16s p50=%6d ms  max=%6d ms%n", visits, label, p50, max);
+        assertThat(p50).isNotNegative();
+    }
+}
@@ -0,0 +1,77 @@
+package com.prajyotsurgicare.clinic.service;
+
+import com.prajyotsurgicare.clinic.entity.Patient;
+import com.prajyotsurgicare.clinic.entity.Visit;
+import com.prajyotsurgicare.clinic.enums.VisitStatus;
+import com.prajyotsurgicare.clinic.enums.VisitType;
+import com.prajyotsurgicare.clinic.support.IntegrationTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 📋 Drill-down list चे keyset pages: nextAfterId ने पुढे गेल्यावर प्रत्येक completed visit एकदाच, visitId क्रमाने
+class AnalyticsVisitListTest extends IntegrationTestSupport {
+
+    @Autowired private AnalyticsService analyticsService;
+
+    private final LocalDate today = LocalDate.now();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void pagesWalkEveryCompletedVisitOnce() {
+        Patient ramesh = newPatient("Ramesh Patil", "9811111111");
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Visit visit = newVisit(ramesh, wakad(), nikhil(), today.minusDays(i), VisitStatus.COMPLETED, VisitType.OPD, 500, 0);
+            expected.add(visit.getId());
+        }
+        newVisit(ramesh, wakad(), nikhil(), today, VisitStatus.ARRIVED, VisitType.OPD, 500, 0);
+        newVisit(ramesh, wakad(), nikhil(), today.minusDays(60), VisitStatus.COMPLETED, VisitType.OPD, 500, 0);
+
+        List<Long> seen = new ArrayList<>();
+        Long afterId = null;
+        int pages = 0;
+        while (true) {
+            Map<String, Object> page = analyticsService.getVisitList(wakad().getId(), null,
+                    today.minusDays(30), today, afterId, 2);
+            List<Map<String, Object>> items = (List<Map<String, Object>>) page.get("items");
+            items.forEach(item -> seen.add((Long) item.get("visitId")));
+            pages++;
+            if (!(Boolean) page.get("hasNext")) {
+                assertThat(page.get("nextAfterId")).isNull();
+                break;
+            }
+            assertThat(items).hasSize(2);
+            assertThat(page.get("nextAfterId")).isEqualTo(items.get(items.size() - 1).get("visitId"));
+            afterId = (Long) page.get("nextAfterId");
+        }
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(seen).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void exactlyFullLastPageHasNoNext() {
+        Patient sunita = newPatient("Sunita Jadhav", "9822222222");
+        newVisit(sunita, wakad(), nikhil(), today, VisitStatus.COMPLETED, VisitType.OPD, 500, 0);
+        newVisit(sunita, wakad(), nikhil(), today, VisitStatus.COMPLETED, VisitType.OPD, 300, 0);
+        Visit other = newVisit(sunita, wakad(), priyanka(), today, VisitStatus.COMPLETED, VisitType.FOLLOW_UP, 200, 0);
+
+        Map<String, Object> page = analyticsService.getVisitList(wakad().getId(), nikhil().getId(), today, today, null, 2);
+        assertThat((List<Map<String, Object>>) page.get("items")).hasSize(2)
+                .allSatisfy(item -> assertThat(item.get("doctorName")).isEqualTo(nikhil().getName()));
+        assertThat(page.get("hasNext")).isEqualTo(false);
+        assertThat(page.get("nextAfterId")).isNull();
+
+        Map<String, Object> priyankaPage = analyticsService.getVisitList(wakad().getId(), priyanka().getId(), today, today, null, 2);
+        assertThat((List<Map<String, Object>>) priyankaPage.get("items"))
+                .extracting(item -> item.get("visitId")).containsExactly(other.getId());
+    }
+}
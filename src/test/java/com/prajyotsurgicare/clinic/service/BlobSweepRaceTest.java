@@ -0,0 +1,67 @@
+package com.prajyotsurgicare.clinic.service;
+
+import com.prajyotsurgicare.clinic.scheduler.StoredBlobSweepJob;
+import com.prajyotsurgicare.clinic.storage.BlobRef;
+import com.prajyotsurgicare.clinic.storage.BlobStore;
+import com.prajyotsurgicare.clinic.support.IntegrationTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+// 🧹 Upload आणि रात्रीचा sweep एकाच content वर: blob.put नंतर पण refCount acquire आधी sweep
+// row + blob काढून टाकतो. Upload ने blob परत लिहिला पाहिजे.
+class BlobSweepRaceTest extends IntegrationTestSupport {
+
+    @MockitoSpyBean
+    private BlobStore blobStore;
+
+    @Autowired
+    private PrescriptionStorageService storageService;
+
+    @Autowired
+    private StoredBlobSweepJob sweepJob;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void blobSweptBetweenPutAndAcquireIsRestored() throws Exception {
+        byte[] content = ("scan " + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8);
+        BlobRef first = storageService.store(new ByteArrayInputStream(content), "image/jpeg");
+        // आता कोणीच वापरत नाही, grace period पण संपला
+        jdbcTemplate.update("UPDATE stored_blobs SET ref_count = 0, last_used_at = ? WHERE content_hash = ?",
+                LocalDateTime.now().minusDays(2), first.getContentHash());
+
+        AtomicBoolean sweepOnNextPut = new AtomicBoolean(true);
+        doAnswer(invocation -> {
+            Object ref = invocation.callRealMethod();
+            if (sweepOnNextPut.getAndSet(false)) {
+                sweepJob.sweep();
+            }
+            return ref;
+        }).when(blobStore).put(any(InputStream.class));
+
+        BlobRef second = storageService.store(new ByteArrayInputStream(content), "image/jpeg");
+
+        assertThat(sweepOnNextPut).isFalse();
+        assertThat(second.getKey()).isEqualTo(first.getKey());
+        assertThat(blobStore.exists(second.getKey())).isTrue();
+        try (InputStream in = storageService.open(second.getKey(), second.getContentEncoding())) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        }
+        assertThat(jdbcTemplate.queryForObject("SELECT ref_count FROM stored_blobs WHERE content_hash = ?",
+                Integer.class, second.getContentHash())).isEqualTo(1);
+    }
+}
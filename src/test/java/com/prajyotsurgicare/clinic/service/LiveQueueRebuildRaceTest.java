@@ -0,0 +1,129 @@
+package com.prajyotsurgicare.clinic.service;
+
+import com.prajyotsurgicare.clinic.dto.QueueEntry;
+import com.prajyotsurgicare.clinic.entity.Clinic;
+import com.prajyotsurgicare.clinic.entity.Doctor;
+import com.prajyotsurgicare.clinic.entity.Patient;
+import com.prajyotsurgicare.clinic.entity.Visit;
+import com.prajyotsurgicare.clinic.enums.VisitStatus;
+import com.prajyotsurgicare.clinic.enums.VisitType;
+import com.prajyotsurgicare.clinic.repository.VisitRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// 🔀 Rebuild (DB मधून नवी रांग) आणि commit नंतरचा apply एकाच वेळी: rebuild ची जुनी रांग apply चा update पुसू नये.
+// Rebuild ने DB वाचल्यानंतर, रांग install करण्याच्या अगदी आधी apply घुसवतो (सर्वात वाईट interleaving).
+class LiveQueueRebuildRaceTest {
+
+    private static final Long CLINIC_ID = 1L;
+
+    private final LocalDate today = LocalDate.now();
+    // "DB" मधले patient नाव: commit होताच बदलते, मग apply
+    private final AtomicReference<String> committedName = new AtomicReference<>("before");
+    private final InterceptingMap queues = new InterceptingMap();
+    private LiveQueueService liveQueueService;
+
+    @BeforeEach
+    void setUp() {
+        VisitRepository visitRepository = mock(VisitRepository.class);
+        when(visitRepository.findQueueWithDetails(any(), any(), any()))
+                .thenAnswer(invocation -> List.of(visit(committedName.get())));
+        liveQueueService = new LiveQueueService(visitRepository, mock(QueueEventService.class),
+                mock(TodayStatsService.class));
+        ReflectionTestUtils.setField(liveQueueService, "reconcileInterval", Duration.ofHours(1));
+        ReflectionTestUtils.setField(liveQueueService, "queues", queues);
+    }
+
+    @Test
+    void applyLandingBeforeFirstBuildInstallsIsNotLost() {
+        queues.beforeNextWrite(this::commitRename);
+
+        liveQueueService.getQueue(CLINIC_ID, null, null);
+
+        assertThat(namesInQueue()).containsExactly("after");
+    }
+
+    @Test
+    void applyLandingBeforeReconcileInstallsIsNotLost() {
+        assertThat(namesInQueue()).containsExactly("before");
+        queues.beforeNextWrite(this::commitRename);
+
+        // Reconcile (stale झाल्यावर getQueue हेच करते)
+        ReflectionTestUtils.invokeMethod(liveQueueService, "rebuild", CLINIC_ID, today);
+
+        assertThat(namesInQueue()).containsExactly("after");
+    }
+
+    private void commitRename() {
+        committedName.set("after");
+        liveQueueService.apply(QueueEntry.from(visit("after")));
+    }
+
+    private List<Object> namesInQueue() {
+        return liveQueueService.getQueue(CLINIC_ID, null, null).stream()
+                .map(row -> row.get("patientName"))
+                .toList();
+    }
+
+    private Visit visit(String patientName) {
+        Clinic clinic = new Clinic();
+        clinic.setId(CLINIC_ID);
+        Patient patient = new Patient();
+        patient.setId(1L);
+        patient.setName(patientName);
+        Doctor doctor = new Doctor();
+        doctor.setId(1L);
+        doctor.setName("Dr. Nikhil (Ortho)");
+        return Visit.builder()
+                .id(1L)
+                .clinic(clinic)
+                .patient(patient)
+                .doctor(doctor)
+                .visitDate(today)
+                .status(VisitStatus.ARRIVED)
+                .visitType(VisitType.OPD)
+                .tokenNumber(1)
+                .build();
+    }
+
+    // पुढच्या write (put/compute) च्या आधी एकदाच hook चालवणारा map
+    static class InterceptingMap extends ConcurrentHashMap<Long, Object> {
+        private final AtomicReference<Runnable> hook = new AtomicReference<>();
+
+        void beforeNextWrite(Runnable action) {
+            hook.set(action);
+        }
+
+        private void fireHook() {
+            Runnable action = hook.getAndSet(null);
+            if (action != null) {
+                action.run();
+            }
+        }
+
+        @Override
+        public Object put(Long key, Object value) {
+            fireHook();
+            return super.put(key, value);
+        }
+
+        @Override
+        public Object compute(Long key, BiFunction<? super Long, ? super Object, ?> remapping) {
+            fireHook();
+            return super.compute(key, remapping);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.prajyotsurgicare.clinic.service;
+
+import com.prajyotsurgicare.clinic.dto.QueueEvent;
+import com.prajyotsurgicare.clinic.dto.UpdatePatientRequest;
+import com.prajyotsurgicare.clinic.entity.Clinic;
+import com.prajyotsurgicare.clinic.entity.Patient;
+import com.prajyotsurgicare.clinic.enums.QueueEventType;
+import com.prajyotsurgicare.clinic.enums.VisitStatus;
+import com.prajyotsurgicare.clinic.enums.VisitType;
+import com.prajyotsurgicare.clinic.support.IntegrationTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 🔁 Delta ने सांगता न येणारे बदल (rename / delete) नंतर subscribers ना RESYNC मिळतो
+class LiveQueueResyncTest extends IntegrationTestSupport {
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private QueueEventService queueEventService;
+
+    @Test
+    void patientRenamePublishesResyncAndQueueShowsNewName() {
+        Clinic clinic = wakad();
+        Patient patient = newPatient("Old Name", "9700000001");
+        newVisit(patient, clinic, nikhil(), LocalDate.now(), VisitStatus.ARRIVED, VisitType.OPD, 500, 0);
+        assertThat(liveQueueService.getQueue(clinic.getId(), null, null))
+                .extracting(row -> row.get("patientName"))
+                .containsExactly("Old Name");
+        long since = queueEventService.currentSequence(clinic.getId());
+
+        UpdatePatientRequest request = new UpdatePatientRequest();
+        request.setName("New Name");
+        patientService.updatePatient(patient.getId(), request);
+
+        assertThat(eventTypesSince(clinic.getId(), since)).contains(QueueEventType.RESYNC);
+        assertThat(liveQueueService.getQueue(clinic.getId(), null, null))
+                .extracting(row -> row.get("patientName"))
+                .containsExactly("New Name");
+    }
+
+    @Test
+    void patientDeletePublishesResyncAndRemovesVisits() {
+        Clinic clinic = wakad();
+        Patient patient = newPatient("Deleted", "9700000002");
+        newVisit(patient, clinic, nikhil(), LocalDate.now(), VisitStatus.ARRIVED, VisitType.OPD, 500, 0);
+        liveQueueService.getQueue(clinic.getId(), null, null);
+        long since = queueEventService.currentSequence(clinic.getId());
+
+        patientService.deletePatient(patient.getId());
+
+        assertThat(eventTypesSince(clinic.getId(), since)).contains(QueueEventType.RESYNC);
+        List<Map<String, Object>> queue = liveQueueService.getQueue(clinic.getId(), null, null);
+        assertThat(queue).isEmpty();
+    }
+
+    private List<QueueEventType> eventTypesSince(Long clinicId, long since) {
+        return queueEventService.eventsSince(clinicId, since, queueEventService.getStreamId())
+                .getEvents().stream()
+                .map(QueueEvent::getType)
+                .toList();
+    }
+}
@@ -0,0 +1,91 @@
+package com.prajyotsurgicare.clinic.service;
+
+import com.prajyotsurgicare.clinic.dto.PatientResponse;
+import com.prajyotsurgicare.clinic.entity.Patient;
+import com.prajyotsurgicare.clinic.enums.VisitStatus;
+import com.prajyotsurgicare.clinic.enums.VisitType;
+import com.prajyotsurgicare.clinic.support.IntegrationTestSupport;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 📋 GET /api/patients: page size कितीही असला तरी data + count अशा दोनच queries, आणि pages stable
+class PatientListQueryTest extends IntegrationTestSupport {
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void pageIsServedByOneDataQueryAndOneCountQuery() {
+        List<Patient> patients = createPatientsWithVisits(25);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        Page<PatientResponse> page = patientService.getAllPatients(PageRequest.of(0, 20));
+
+        assertThat(page.getContent()).hasSize(20);
+        assertThat(page.getTotalElements()).isEqualTo(patients.size());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void pagesAreOrderedNewestFirstWithoutRepeats() {
+        List<Patient> patients = createPatientsWithVisits(12);
+
+        List<Long> seen = new ArrayList<>();
+        for (int pageNumber = 0; pageNumber < 3; pageNumber++) {
+            patientService.getAllPatients(PageRequest.of(pageNumber, 5))
+                    .forEach(row -> seen.add(row.getId()));
+        }
+
+        List<Long> expected = patients.stream()
+                .map(Patient::getId)
+                .sorted(Comparator.reverseOrder())
+                .toList();
+        assertThat(seen).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void rowCarriesVisitCountAndNextFollowUp() {
+        LocalDate today = LocalDate.now();
+        Patient patient = newPatient("Follow Up", "9000000001");
+        newVisit(patient, wakad(), nikhil(), today.minusDays(10), VisitStatus.COMPLETED, VisitType.OPD, 500, 0);
+        var second = newVisit(patient, wakad(), nikhil(), today.minusDays(2), VisitStatus.COMPLETED, VisitType.FOLLOW_UP, 300, 0);
+        second.setFollowUpDate(today.plusDays(7));
+        visitRepository.save(second);
+
+        PatientResponse row = patientService.getAllPatients(PageRequest.of(0, 10)).getContent().get(0);
+
+        assertThat(row.getId()).isEqualTo(patient.getId());
+        assertThat(row.getTotalVisits()).isEqualTo(2);
+        assertThat(row.getFollowUpDate()).isEqualTo(today.plusDays(7));
+    }
+
+    private List<Patient> createPatientsWithVisits(int count) {
+        List<Patient> patients = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Patient patient = newPatient("Patient " + i, String.format("98%08d", i));
+            for (int v = 0; v < i % 3; v++) {
+                newVisit(patient, wakad(), nikhil(), LocalDate.now().minusDays(v), VisitStatus.COMPLETED,
+                        VisitType.OPD, 500, 0);
+            }
+            patients.add(patient);
+        }
+        return patients;
+    }
+}
@@ -0,0 +1,165 @@
+package com.prajyotsurgicare.clinic.service;
+
+import com.prajyotsurgicare.clinic.entity.Patient;
+import com.prajyotsurgicare.clinic.support.PostgresIntegrationTestSupport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 🔍 Reception search: ranking, typo tolerance आणि indexes खरंच वापरले जातात का (pg_trgm लागतो)
+class PatientSearchPostgresTest extends PostgresIntegrationTestSupport {
+
+    private static final String SEED_SQL = """
+        INSERT INTO patients (name, mobile, age, created_at)
+        SELECT (ARRAY['Ramesh','Suresh','Mahesh','Ganesh','Sunita','Anita','Kavita','Pooja','Rahul','Amit',
+                      'Sachin','Vijay','Sneha','Priya','Nikhil','Rohit','Swati','Deepak','Manisha','Akash'])[1 + g % 20]
+               || ' ' ||
+               (ARRAY['Patil','Pawar','Jadhav','Shinde','Kulkarni','Deshmukh','More','Gaikwad','Joshi','Chavan',
+                      'Kale','Bhosale','Salunkhe','Mane','Kadam','Waghmare','Sawant','Thorat','Lokhande','Gore'])[1 + (g / 20) % 20]
+               || ' ' || g,
+               '9' || lpad(((g::bigint * 7919) % 1000000000)::text, 9, '0'),
+               20 + g % 60,
+               now()
+        FROM generate_series(1, ?) AS g
+    """;
+
+    @Autowired
+    private PatientSearchService patientSearchService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void nameSearchRanksPrefixFirstAndToleratesTypos() {
+        Patient prefix = newPatient("Ramesh Patil", "9811111111");
+        Patient inside = newPatient("Suresh Ramesh Jadhav", "9822222222");
+        newPatient("Kavita More", "9833333333");
+
+        List<Patient> results = patientSearchService.search("ramesh", 0, 10);
+        assertThat(results).extracting(Patient::getId).containsExactly(prefix.getId(), inside.getId());
+
+        // एक अक्षर चुकले तरी सापडला पाहिजे
+        assertThat(patientSearchService.search("rameshh patil", 0, 10))
+                .extracting(Patient::getId)
+                .contains(prefix.getId());
+    }
+
+    @Test
+    void namePagesContinueFromPrefixBlockIntoTrigramMatches() {
+        Patient first = newPatient("Ramesh Gore", "9811111111");
+        Patient second = newPatient("Ramesh Kale", "9811111112");
+        Patient third = newPatient("Ramesh More", "9811111113");
+        Patient inside = newPatient("Suresh Ramesh Jadhav", "9822222222");
+        Patient typo = newPatient("Sunil Rameshh", "9822222223");
+        newPatient("Kavita More", "9833333333");
+
+        // Page 1 मध्ये prefix block संपतो आणि trigram matches सुरू होतात, page 2 फक्त trigram
+        List<Long> ids = new ArrayList<>();
+        for (int page = 0; page < 3; page++) {
+            patientSearchService.search("ramesh", page, 2).forEach(p -> ids.add(p.getId()));
+        }
+        assertThat(ids.subList(0, 3)).containsExactly(first.getId(), second.getId(), third.getId());
+        assertThat(ids.subList(3, ids.size())).containsExactlyInAnyOrder(inside.getId(), typo.getId());
+    }
+
+    @Test
+    void mobileSearchRanksPrefixThenSuffixThenContains() {
+        Patient contains = newPatient("Contains", "9112345009");
+        Patient suffix = newPatient("Suffix", "9800001234");
+        Patient prefix = newPatient("Prefix", "1234500000");
+
+        assertThat(patientSearchService.search("1234", 0, 10))
+                .extracting(Patient::getId)
+                .containsExactly(prefix.getId(), suffix.getId(), contains.getId());
+
+        // 1-2 अंक: फक्त prefix
+        assertThat(patientSearchService.search("98", 0, 10))
+                .extracting(Patient::getId)
+                .containsExactly(suffix.getId());
+    }
+
+    @Test
+    void searchPredicatesUseIndexes() {
+        jdbcTemplate.update(SEED_SQL, 5_000);
+        jdbcTemplate.execute("ANALYZE patients");
+
+        assertThat(plan("SELECT * FROM patients p WHERE p.mobile LIKE '98' || '%'"))
+                .contains("idx_patients_mobile_prefix");
+        assertThat(plan("SELECT * FROM patients p WHERE p.mobile LIKE '%' || '4321' || '%'"))
+                .contains("idx_patients_mobile_trgm");
+        // Name prefix: range आणि क्रम index मधून (Sort node नाही)
+        assertThat(plan("SELECT * FROM patients p WHERE lower(p.name) COLLATE \"C\" LIKE 'ra' || '%' "
+                + "ORDER BY lower(p.name) COLLATE \"C\", p.id DESC LIMIT 20"))
+                .contains("idx_patients_name_sorted")
+                .doesNotContain("Sort");
+        // Typo-tolerant name matches: KNN, म्हणजे सर्व matches sort न करता index मधूनच क्रमाने
+        assertThat(plan("SELECT * FROM patients p WHERE 'ramesh p' <% lower(p.name) AND lower(p.name) NOT LIKE 'ramesh p%' "
+                + "ORDER BY 'ramesh p' <<-> lower(p.name) LIMIT 20"))
+                .contains("Index Scan using idx_patients_name_trgm_gist")
+                .doesNotContain("Sort");
+    }
+
+    // 📈 1M synthetic patients वर p50/p99. फक्त -Dbenchmark=true दिल्यावर चालतो (seed ला वेळ लागतो)
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkSearchLatencyOnOneMillionPatients() {
+        jdbcTemplate.update(SEED_SQL, 1_000_000);
+        jdbcTemplate.execute("ANALYZE patients");
+
+        Random random = new Random(42);
+        String[] names = {"ramesh", "sunita pa", "kavita jadh", "rahul shinde", "sneha kul", "nikhl", "deepak mor"};
+        report("name", measure(() -> patientSearchService.search(names[random.nextInt(names.length)], 0, 20)));
+        report("mobile prefix", measure(() -> patientSearchService.search("9" + random.nextInt(100), 0, 20)));
+        report("mobile 4+ digits", measure(() -> patientSearchService.search(String.valueOf(1000 + random.nextInt(9000)), 0, 20)));
+    }
+
+    // Seq scan बंद करून plan: लहान table वर planner seq scan निवडतो, इथे फक्त index वापरता येतो का ते पाहायचे
+    private String plan(String sql) {
+        return jdbcTemplate.execute((Connection connection) -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET enable_seqscan = off");
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet rs = statement.executeQuery("EXPLAIN " + sql)) {
+                    while (rs.next()) {
+                        plan.append(rs.getString(1)).append('\n');
+                    }
+                } finally {
+                    statement.execute("RESET enable_seqscan");
+                }
+                return plan.toString();
+            }
+        });
+    }
+
+    private List<Long> measure(Runnable search) {
+        for (int i = 0; i < 50; i++) {
+            search.run();
+        }
+        List<Long> micros = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            long start = System.nanoTime();
+            search.run();
+            micros.add((System.nanoTime() - start) / 1_000);
+        }
+        Collections.sort(micros);
+        return micros;
+    }
+
+    private void report(String label, List<Long> micros) {
+        long p50 = micros.get(micros.size() / 2);
+        long p99 = micros.get((int) Math.ceil(micros.size() * 0.99) - 1);
+        System.out.printf("🔍 %-18s p50=%6.2f ms  p99=%6.2f ms%n", label, p50 / 1000.0, p99 / 1000.0);
+        assertThat(p99).isPositive();
+    }
+}
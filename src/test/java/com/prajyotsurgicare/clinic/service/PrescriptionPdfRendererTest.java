@@ -0,0 +1,94 @@
+package com.prajyotsurgicare.clinic.service;
+
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.parser.PdfTextExtractor;
+import com.prajyotsurgicare.clinic.dto.PrescriptionPdfContent;
+import com.prajyotsurgicare.clinic.repository.ClinicRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+// 🏥 Letterhead cache: clinic चे नाव/पत्ता बदलला की नवीन PDF मध्ये नवीनच दिसला पाहिजे
+class PrescriptionPdfRendererTest {
+
+    private final PrescriptionPdfRenderer renderer = new PrescriptionPdfRenderer(mock(ClinicRepository.class));
+
+    @Test
+    void letterheadFollowsClinicDetails() throws Exception {
+        String before = text(renderer.render(content("Wakad", "Datta Mandir Road")));
+        assertThat(before).contains("Wakad, Datta Mandir Road");
+
+        String after = text(renderer.render(content("Wakad Branch", "Bhumkar Chowk")));
+        assertThat(after).contains("Wakad Branch, Bhumkar Chowk").doesNotContain("Datta Mandir Road");
+    }
+
+    // 📈 प्रति PDF CPU आणि allocation, letterhead cache सह आणि शिवाय. फक्त -Dbenchmark=true दिल्यावर चालतो
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkLetterheadCache() throws Exception {
+        PrescriptionPdfContent content = content("Wakad", "Datta Mandir Road");
+        Map<?, ?> letterheads = (Map<?, ?>) ReflectionTestUtils.getField(renderer, "letterheads");
+
+        // Cache रिकामा करून render = प्रत्येक PDF सोबत letterhead पुन्हा बनतो
+        report("without cache", measure(() -> {
+            letterheads.clear();
+            renderer.render(content);
+        }));
+        report("with cache", measure(() -> renderer.render(content)));
+    }
+
+    private long[] measure(RenderCall render) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < 500; i++) {
+            render.run();
+        }
+        int iterations = 5_000;
+        long cpuStart = threads.getCurrentThreadCpuTime();
+        long bytesStart = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            render.run();
+        }
+        long cpu = threads.getCurrentThreadCpuTime() - cpuStart;
+        long bytes = threads.getThreadAllocatedBytes(threadId) - bytesStart;
+        return new long[]{cpu / iterations, bytes / iterations};
+    }
+
+    private void report(String label, long[] perPdf) {
+        System.out.printf("📄 %-14s cpu=%7.1f µs/pdf  alloc=%7.1f KB/pdf%n", label, perPdf[0] / 1000.0, perPdf[1] / 1024.0);
+        assertThat(perPdf[0]).isPositive();
+    }
+
+    private interface RenderCall {
+        void run() throws Exception;
+    }
+
+    private PrescriptionPdfContent content(String clinicName, String clinicAddress) {
+        return PrescriptionPdfContent.builder()
+                .visitId(1L)
+                .clinicId(5L)
+                .clinicName(clinicName)
+                .clinicAddress(clinicAddress)
+                .visitDate(LocalDate.now())
+                .doctorName("Dr. Nikhil (Ortho)")
+                .patientName("Ramesh Patil")
+                .textNote("Tab. Paracetamol")
+                .build();
+    }
+
+    private String text(byte[] pdf) throws Exception {
+        PdfReader reader = new PdfReader(pdf);
+        try {
+            return new PdfTextExtractor(reader).getTextFromPage(1);
+        } finally {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.prajyotsurgicare.clinic.service;
+
+import com.prajyotsurgicare.clinic.dto.PrescriptionPdfContent;
+import com.prajyotsurgicare.clinic.entity.Clinic;
+import com.prajyotsurgicare.clinic.entity.Doctor;
+import com.prajyotsurgicare.clinic.entity.Patient;
+import com.prajyotsurgicare.clinic.entity.Visit;
+import com.prajyotsurgicare.clinic.exception.BadRequestException;
+import com.prajyotsurgicare.clinic.repository.VisitRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+// 📄 Render queue मध्ये मूळ base64 drawing नाही, फक्त लहान 1-bit raster जातो
+class PrescriptionRenderServiceTest {
+
+    private VisitRepository visitRepository;
+    private PrescriptionPdfRenderer pdfRenderer;
+    private PrescriptionRenderService renderService;
+
+    @BeforeEach
+    void setUp() {
+        visitRepository = mock(VisitRepository.class);
+        pdfRenderer = mock(PrescriptionPdfRenderer.class);
+        renderService = new PrescriptionRenderService(visitRepository, mock(PrescriptionService.class), pdfRenderer,
+                mock(PrescriptionStorageService.class), mock(WebSocketService.class),
+                new StylusImageProcessor(8_000_000, 25_000_000, 300), mock(PlatformTransactionManager.class),
+                1, 10, Duration.ofHours(1));
+        when(visitRepository.findById(1L)).thenReturn(Optional.of(visit()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        renderService.shutdown();
+    }
+
+    @Test
+    void drawingIsNormalizedBeforeQueueing() throws Exception {
+        // Tablet वरचे 4000x3000 RGBA drawing
+        String drawing = "data:image/png;base64," + pngBase64(4000, 3000);
+
+        renderService.submit(1L, "Tab. Paracetamol", drawing);
+
+        ArgumentCaptor<PrescriptionPdfContent> content = ArgumentCaptor.forClass(PrescriptionPdfContent.class);
+        verify(pdfRenderer, timeout(5000)).render(content.capture());
+        BufferedImage queued = content.getValue().getStylusImage();
+        assertThat(queued.getType()).isEqualTo(BufferedImage.TYPE_BYTE_BINARY);
+        // 300 DPI print box (500x400 pt) पेक्षा मोठी नाही
+        assertThat(queued.getWidth()).isLessThanOrEqualTo(2084);
+        assertThat(queued.getHeight()).isLessThanOrEqualTo(1667);
+    }
+
+    @Test
+    void noDrawingQueuesNoImage() throws Exception {
+        renderService.submit(1L, "Tab. Paracetamol", null);
+
+        ArgumentCaptor<PrescriptionPdfContent> content = ArgumentCaptor.forClass(PrescriptionPdfContent.class);
+        verify(pdfRenderer, timeout(5000)).render(content.capture());
+        assertThat(content.getValue().getStylusImage()).isNull();
+    }
+
+    @Test
+    void unreadableDrawingIsRejectedOnSubmit() {
+        String garbage = Base64.getEncoder().encodeToString("not an image".getBytes());
+
+        assertThatThrownBy(() -> renderService.submit(1L, "note", garbage))
+                .isInstanceOf(BadRequestException.class);
+        verifyNoInteractions(pdfRenderer);
+    }
+
+    private Visit visit() {
+        Clinic clinic = new Clinic();
+        clinic.setId(5L);
+        clinic.setName("Wakad");
+        Doctor doctor = new Doctor();
+        doctor.setName("Dr. Nikhil (Ortho)");
+        Patient patient = new Patient();
+        patient.setName("Ramesh Patil");
+        return Visit.builder()
+                .id(1L)
+                .clinic(clinic)
+                .doctor(doctor)
+                .patient(patient)
+                .visitDate(LocalDate.now())
+                .build();
+    }
+
+    private String pngBase64(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.BLUE);
+        g.drawLine(0, 0, width - 1, height - 1);
+        g.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return Base64.getEncoder().encodeToString(out.toByteArray());
+    }
+}
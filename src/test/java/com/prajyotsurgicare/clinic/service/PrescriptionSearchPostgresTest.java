@@ -0,0 +1,144 @@
+package com.prajyotsurgicare.clinic.service;
+
+import com.prajyotsurgicare.clinic.entity.Patient;
+import com.prajyotsurgicare.clinic.entity.Visit;
+import com.prajyotsurgicare.clinic.enums.VisitStatus;
+import com.prajyotsurgicare.clinic.enums.VisitType;
+import com.prajyotsurgicare.clinic.repository.VisitRepository;
+import com.prajyotsurgicare.clinic.support.PostgresIntegrationTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 💊 Prescription full-text search: prefix, अनेक शब्द (AND), tsquery operators असलेले input आणि LIMIT+1 paging
+class PrescriptionSearchPostgresTest extends PostgresIntegrationTestSupport {
+
+    @Autowired
+    private PrescriptionSearchService prescriptionSearchService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final LocalDate today = LocalDate.now();
+
+    @Test
+    void eachTermMatchesAsPrefixAcrossNoteDiagnosisAndProcedures() {
+        Patient ramesh = newPatient("Ramesh Patil", "9811111111");
+        Visit paracetamol = visit(ramesh, today, "Tab. Paracetamol 650 BD", null, null);
+        Visit fracture = visit(ramesh, today.minusDays(1), null, "Hairline fracture", "POP cast");
+        visit(ramesh, today.minusDays(2), "Tab. Crocin", "Viral fever", null);
+
+        assertThat(visitIds(search("parac", 0, 10))).containsExactly(paracetamol.getId());
+        assertThat(visitIds(search("FRACT", 0, 10))).containsExactly(fracture.getId());
+        assertThat(visitIds(search("cast", 0, 10))).containsExactly(fracture.getId());
+    }
+
+    @Test
+    void everyTermMustMatch() {
+        Patient sunita = newPatient("Sunita Jadhav", "9822222222");
+        Visit both = visit(sunita, today, "Tab. Paracetamol 650 BD", null, null);
+        visit(sunita, today.minusDays(1), "Tab. Paracetamol 500", null, null);
+        visit(sunita, today.minusDays(2), "Syp. Crocin 650", null, null);
+
+        assertThat(visitIds(search("paracetamol 650", 0, 10))).containsExactly(both.getId());
+        assertThat(visitIds(search("para 6", 0, 10))).containsExactly(both.getId());
+    }
+
+    @Test
+    void tsqueryOperatorsInInputAreOnlySeparators() {
+        Patient amit = newPatient("Amit More", "9833333333");
+        Visit both = visit(amit, today, "Tab. Paracetamol, Crocin", null, null);
+        visit(amit, today.minusDays(1), "Tab. Paracetamol", null, null);
+
+        // Operators चालले असते तर "!crocin" मुळे उलटा result किंवा syntax error आला असता
+        assertThat(visitIds(search("(parac) & !crocin:*", 0, 10))).containsExactly(both.getId());
+        assertThat(visitIds(search("parac|crocin", 0, 10))).containsExactly(both.getId());
+        assertThat(visitIds(search("'crocin' <-> parac", 0, 10))).containsExactly(both.getId());
+
+        for (String onlyOperators : List.of("&|!():*'", "  &  ", "'':*", "!!")) {
+            // to_tsquery syntax error नको: शब्दच नाहीत तर DB query च नाही
+            Map<String, Object> result = search(onlyOperators, 0, 10);
+            assertThat(visitIds(result)).isEmpty();
+            assertThat(result.get("hasNext")).isEqualTo(false);
+        }
+    }
+
+    @Test
+    void pagesFetchOneExtraRowToKnowIfMoreExist() {
+        Patient priya = newPatient("Priya Shinde", "9844444444");
+        Visit[] visits = new Visit[5];
+        for (int i = 0; i < 5; i++) {
+            visits[i] = visit(priya, today.minusDays(i), "Cap. Amoxicillin 500 TDS", null, null);
+        }
+
+        // नवीन visit आधी; शेवटचे page अर्धे
+        Map<String, Object> first = search("amox", 0, 2);
+        assertThat(visitIds(first)).containsExactly(visits[0].getId(), visits[1].getId());
+        assertThat(first.get("hasNext")).isEqualTo(true);
+        Map<String, Object> second = search("amox", 1, 2);
+        assertThat(visitIds(second)).containsExactly(visits[2].getId(), visits[3].getId());
+        assertThat(second.get("hasNext")).isEqualTo(true);
+        Map<String, Object> last = search("amox", 2, 2);
+        assertThat(visitIds(last)).containsExactly(visits[4].getId());
+        assertThat(last.get("hasNext")).isEqualTo(false);
+
+        // बरोबर भरलेले शेवटचे page: पुढे काही नाही
+        Map<String, Object> exact = search("amox", 0, 5);
+        assertThat(visitIds(exact)).hasSize(5);
+        assertThat(exact.get("hasNext")).isEqualTo(false);
+    }
+
+    @Test
+    void searchUsesFullTextIndex() {
+        String plan = plan("SELECT v.id FROM visits v WHERE v.clinic_id = 1 AND " +
+                VisitRepository.PRESCRIPTION_TSVECTOR +
+                " @@ to_tsquery('simple', 'parac:*')");
+        assertThat(plan).contains("idx_visits_prescription_fts");
+    }
+
+    private Map<String, Object> search(String query, int page, int size) {
+        return prescriptionSearchService.search(wakad().getId(), null, query, null, null, page, size);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object> visitIds(Map<String, Object> result) {
+        return ((List<Map<String, Object>>) result.get("items")).stream()
+                .map(item -> item.get("visitId"))
+                .toList();
+    }
+
+    private Visit visit(Patient patient, LocalDate date, String note, String diagnosis, String procedures) {
+        Visit visit = newVisit(patient, wakad(), nikhil(), date, VisitStatus.COMPLETED, VisitType.OPD, 500, 0);
+        visit.setPrescriptionNote(note);
+        visit.setDiagnosis(diagnosis);
+        visit.setProcedures(procedures);
+        return visitRepository.save(visit);
+    }
+
+    // Seq scan बंद करून plan: लहान table वर planner seq scan निवडतो, इथे फक्त index वापरता येतो का ते पाहायचे
+    private String plan(String sql) {
+        return jdbcTemplate.execute((Connection connection) -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET enable_seqscan = off");
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet rs = statement.executeQuery("EXPLAIN " + sql)) {
+                    while (rs.next()) {
+                        plan.append(rs.getString(1)).append('\n');
+                    }
+                } finally {
+                    statement.execute("RESET enable_seqscan");
+                }
+                return plan.toString();
+            }
+        });
+    }
+}
@@ -0,0 +1,80 @@
+package com.prajyotsurgicare.clinic.service;
+
+import com.prajyotsurgicare.clinic.dto.QueueReorderRequest;
+import com.prajyotsurgicare.clinic.entity.Patient;
+import com.prajyotsurgicare.clinic.entity.Visit;
+import com.prajyotsurgicare.clinic.enums.VisitStatus;
+import com.prajyotsurgicare.clinic.enums.VisitType;
+import com.prajyotsurgicare.clinic.exception.ConflictException;
+import com.prajyotsurgicare.clinic.support.IntegrationTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 🔀 Batch reorder: जुना क्रम पाहून केलेला reorder 409 देतो आणि काहीच बदलत नाही
+class QueueReorderTest extends IntegrationTestSupport {
+
+    @Autowired
+    private DashboardService dashboardService;
+
+    @Test
+    void reorderWithCurrentOrdersIsApplied() {
+        List<Visit> visits = queueOfThree();
+
+        dashboardService.reorderQueue(request(
+                item(visits.get(2), 3), item(visits.get(0), 1), item(visits.get(1), 2)));
+
+        assertThat(orderOf(visits.get(2))).isEqualTo(1);
+        assertThat(orderOf(visits.get(0))).isEqualTo(2);
+        assertThat(orderOf(visits.get(1))).isEqualTo(3);
+    }
+
+    @Test
+    void staleExpectedOrderIsRejectedBeforeAnyUpdate() {
+        List<Visit> visits = queueOfThree();
+
+        // visits[1] ची order आता 2 आहे, client ला 5 वाटते
+        assertThatThrownBy(() -> dashboardService.reorderQueue(request(
+                item(visits.get(2), 3), item(visits.get(0), 1), item(visits.get(1), 5))))
+                .isInstanceOf(ConflictException.class)
+                .hasMessageContaining(String.valueOf(visits.get(1).getId()));
+
+        assertThat(orderOf(visits.get(0))).isEqualTo(1);
+        assertThat(orderOf(visits.get(1))).isEqualTo(2);
+        assertThat(orderOf(visits.get(2))).isEqualTo(3);
+    }
+
+    private List<Visit> queueOfThree() {
+        List<Visit> visits = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            Patient patient = newPatient("Queue " + i, "96000000" + i + "0");
+            Visit visit = newVisit(patient, wakad(), nikhil(), LocalDate.now(), VisitStatus.ARRIVED, VisitType.OPD, 500, 0);
+            visit.setQueueOrder(i);
+            visits.add(visitRepository.save(visit));
+        }
+        return visits;
+    }
+
+    private Integer orderOf(Visit visit) {
+        return visitRepository.findById(visit.getId()).orElseThrow().getQueueOrder();
+    }
+
+    private QueueReorderRequest.Item item(Visit visit, Integer expectedOrder) {
+        QueueReorderRequest.Item item = new QueueReorderRequest.Item();
+        item.setVisitId(visit.getId());
+        item.setExpectedQueueOrder(expectedOrder);
+        return item;
+    }
+
+    private QueueReorderRequest request(QueueReorderRequest.Item... items) {
+        QueueReorderRequest request = new QueueReorderRequest();
+        request.setItems(List.of(items));
+        return request;
+    }
+}
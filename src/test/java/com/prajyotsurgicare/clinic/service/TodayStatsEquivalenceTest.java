@@ -0,0 +1,137 @@
+package com.prajyotsurgicare.clinic.service;
+
+import com.prajyotsurgicare.clinic.dto.BillingRequest;
+import com.prajyotsurgicare.clinic.dto.DirectCheckupRequest;
+import com.prajyotsurgicare.clinic.dto.MedicalInfoRequest;
+import com.prajyotsurgicare.clinic.dto.TodayStatsRow;
+import com.prajyotsurgicare.clinic.entity.Patient;
+import com.prajyotsurgicare.clinic.entity.Visit;
+import com.prajyotsurgicare.clinic.enums.VisitStatus;
+import com.prajyotsurgicare.clinic.enums.VisitType;
+import com.prajyotsurgicare.clinic.support.IntegrationTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 📊 Dashboard header: TodayStatsService (एक aggregate query + snapshot) = जुन्या वेगवेगळ्या count/sum queries,
+// प्रत्येक tracked state change नंतर. Doctor चा waitingCount: जुनी @Query COMPLETED मोजायची (bug), म्हणून ARRIVED थेट मोजतो.
+class TodayStatsEquivalenceTest extends IntegrationTestSupport {
+
+    @Autowired private TodayStatsService todayStatsService;
+    @Autowired private DashboardService dashboardService;
+    @Autowired private DoctorDashboardService doctorDashboardService;
+    @Autowired private VisitService visitService;
+    @Autowired private PatientService patientService;
+
+    private final LocalDate today = LocalDate.now();
+    private final LocalDate yesterday = today.minusDays(1);
+
+    @Test
+    void snapshotMatchesOldQueriesThroughEveryChange() {
+        Patient ramesh = newPatient("Ramesh Patil", "9811111111");
+        Patient sunita = newPatient("Sunita Jadhav", "9822222222");
+        Patient amit = newPatient("Amit More", "9833333333");
+
+        Visit booked = newVisit(ramesh, wakad(), nikhil(), today, VisitStatus.BOOKED, VisitType.OPD, 500, 0);
+        Visit arrived = newVisit(sunita, wakad(), priyanka(), today, VisitStatus.ARRIVED, VisitType.FOLLOW_UP, 300, 0);
+        Visit inProgress = newVisit(amit, wakad(), nikhil(), today, VisitStatus.IN_PROGRESS, VisitType.OPD, 400, 0);
+        newVisit(amit, wakad(), nikhil(), today, VisitStatus.COMPLETED, VisitType.ON_CALL, 700, 100);
+        newVisit(ramesh, wakad(), priyanka(), yesterday, VisitStatus.COMPLETED, VisitType.OPD, 600, 0);
+        newVisit(sunita, wakad(), nikhil(), yesterday, VisitStatus.ARRIVED, VisitType.OPD, 500, 0);
+        todayStatsService.invalidate(wakad().getId());
+        assertEquivalent();
+
+        // BOOKED → ARRIVED
+        dashboardService.markArrived(booked.getId());
+        assertEquivalent();
+
+        // Reception billing: ARRIVED → COMPLETED
+        BillingRequest billing = new BillingRequest();
+        billing.setConsultationFee(300.0);
+        billing.setOtherCharges(200.0);
+        dashboardService.markVisitAsCompleted(arrived.getId(), billing);
+        assertEquivalent();
+
+        // Doctor checkup: IN_PROGRESS → COMPLETED
+        MedicalInfoRequest medical = new MedicalInfoRequest();
+        medical.setDiagnosis("Checked");
+        medical.setOtherCharges(150.0);
+        medical.setPaymentCollected(true);
+        doctorDashboardService.completeCheckup(inProgress.getId(), medical);
+        assertEquivalent();
+
+        // Direct checkup (registration + completion एकाच वेळी)
+        DirectCheckupRequest direct = new DirectCheckupRequest();
+        direct.setPatientId(sunita.getId());
+        direct.setDoctorId(priyanka().getId());
+        direct.setClinicId(wakad().getId());
+        direct.setConsultationFee(500.0);
+        direct.setOtherCharges(0.0);
+        direct.setTotalAmount(500.0);
+        visitService.processDirectCheckup(direct);
+        assertEquivalent();
+
+        // Patient delete: त्याचे आजचे visits header मधून जातात
+        patientService.deletePatient(amit.getId());
+        assertEquivalent();
+
+        // दोन्ही बाजू रिकाम्या नाहीत: ramesh (ARRIVED) + sunita (COMPLETED 500 + direct 500)
+        TodayStatsRow clinicWide = todayStatsService.getStats(wakad().getId(), null, null);
+        assertThat(clinicWide.getTotalPatients()).isEqualTo(3);
+        assertThat(clinicWide.getWaitingCount()).isEqualTo(1);
+        assertThat(clinicWide.getCompletedCount()).isEqualTo(2);
+        assertThat(clinicWide.getTotalCollection()).isEqualTo(1000.0);
+    }
+
+    @Test
+    void untrackedChangeIsPickedUpAfterInvalidate() {
+        Patient ramesh = newPatient("Ramesh Patil", "9811111111");
+        Visit visit = newVisit(ramesh, wakad(), nikhil(), today, VisitStatus.ARRIVED, VisitType.OPD, 500, 0);
+        todayStatsService.invalidate(wakad().getId());
+        assertEquivalent();
+
+        // DB मध्ये थेट बदल (LiveQueueService ला माहीत नाही): snapshot जुनाच राहतो
+        visit.setStatus(VisitStatus.COMPLETED);
+        visitRepository.save(visit);
+        assertThat(todayStatsService.getStats(wakad().getId(), null, null).getWaitingCount()).isEqualTo(1);
+
+        todayStatsService.invalidate(wakad().getId());
+        assertEquivalent();
+        assertThat(todayStatsService.getStats(wakad().getId(), null, null).getCompletedCount()).isEqualTo(1);
+    }
+
+    private void assertEquivalent() {
+        for (LocalDate date : new LocalDate[]{today, yesterday}) {
+            Long clinicId = wakad().getId();
+            TodayStatsRow clinicWide = todayStatsService.getStats(clinicId, date, null);
+            assertThat(clinicWide.getTotalPatients()).as("total %s", date)
+                    .isEqualTo(visitRepository.countByVisitDateAndClinicId(date, clinicId));
+            assertThat(clinicWide.getWaitingCount()).as("waiting %s", date)
+                    .isEqualTo(visitRepository.countByVisitDateAndClinicIdAndStatus(date, clinicId, VisitStatus.ARRIVED));
+            assertThat(clinicWide.getCompletedCount()).as("completed %s", date)
+                    .isEqualTo(visitRepository.countByVisitDateAndClinicIdAndStatus(date, clinicId, VisitStatus.COMPLETED));
+            assertThat(clinicWide.getTotalCollection()).as("collection %s", date)
+                    .isEqualTo(visitRepository.getDailyCollection(date, clinicId));
+
+            for (Long doctorId : new Long[]{nikhil().getId(), priyanka().getId()}) {
+                TodayStatsRow doctor = todayStatsService.getStats(clinicId, date, doctorId);
+                Double collection = visitRepository.getDailyCollectionByDoctor(date, clinicId, doctorId);
+                long waiting = visitRepository.findAll().stream()
+                        .filter(v -> v.getVisitDate().equals(date) && v.getClinic().getId().equals(clinicId)
+                                && v.getDoctor().getId().equals(doctorId) && v.getStatus() == VisitStatus.ARRIVED)
+                        .count();
+                assertThat(doctor.getTotalPatients()).as("doctor %s total %s", doctorId, date)
+                        .isEqualTo(visitRepository.countByVisitDateAndClinicIdAndDoctorId(date, clinicId, doctorId));
+                assertThat(doctor.getCompletedCount()).as("doctor %s completed %s", doctorId, date)
+                        .isEqualTo(visitRepository.countByVisitDateAndClinicIdAndDoctorIdAndStatus(
+                                date, clinicId, doctorId, VisitStatus.COMPLETED));
+                assertThat(doctor.getTotalCollection()).as("doctor %s collection %s", doctorId, date)
+                        .isEqualTo(collection != null ? collection : 0.0);
+                assertThat(doctor.getWaitingCount()).as("doctor %s waiting %s", doctorId, date).isEqualTo(waiting);
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.prajyotsurgicare.clinic.service;
+
+import com.prajyotsurgicare.clinic.dto.TodayStatsRow;
+import com.prajyotsurgicare.clinic.repository.VisitRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// 📊 Snapshot rebuild आणि commit नंतरचा invalidate एकाच वेळी: जुना snapshot cache मध्ये राहू नये.
+// Rebuild ने DB वाचल्यानंतर, snapshot install करण्याच्या अगदी आधी invalidate घुसवतो.
+class TodayStatsRebuildRaceTest {
+
+    private static final Long CLINIC_ID = 1L;
+
+    // "DB" मधले आजचे visits: commit होताच बदलते, मग invalidate
+    private final AtomicLong committedVisits = new AtomicLong(1);
+    private final LiveQueueRebuildRaceTest.InterceptingMap snapshots = new LiveQueueRebuildRaceTest.InterceptingMap();
+    private TodayStatsService todayStatsService;
+
+    @BeforeEach
+    void setUp() {
+        VisitRepository visitRepository = mock(VisitRepository.class);
+        when(visitRepository.findDayStatsByDoctor(any(), any())).thenAnswer(invocation ->
+                List.of(new TodayStatsRow(1L, committedVisits.get(), 0L, 0L, 0.0)));
+        todayStatsService = new TodayStatsService(visitRepository);
+        ReflectionTestUtils.setField(todayStatsService, "maxAge", Duration.ofHours(1));
+        ReflectionTestUtils.setField(todayStatsService, "snapshots", snapshots);
+    }
+
+    @Test
+    void invalidateLandingBeforeInstallIsNotLost() {
+        snapshots.beforeNextWrite(() -> {
+            committedVisits.set(2);
+            todayStatsService.invalidate(CLINIC_ID);
+        });
+
+        // हे उत्तर build सुरू झाले तेव्हाचे, पण ते cache मध्ये राहू नये
+        assertThat(todayStatsService.getStats(CLINIC_ID, null, null).getTotalPatients()).isEqualTo(1);
+
+        assertThat(todayStatsService.getStats(CLINIC_ID, null, null).getTotalPatients()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,98 @@
+package com.prajyotsurgicare.clinic.service;
+
+import com.prajyotsurgicare.clinic.entity.Clinic;
+import com.prajyotsurgicare.clinic.entity.Doctor;
+import com.prajyotsurgicare.clinic.entity.Patient;
+import com.prajyotsurgicare.clinic.entity.Visit;
+import com.prajyotsurgicare.clinic.enums.VisitStatus;
+import com.prajyotsurgicare.clinic.enums.VisitType;
+import com.prajyotsurgicare.clinic.support.PostgresIntegrationTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 🔢 अनेक desks एकाच वेळी registration करतात: counter row lock मुळे token duplicate होत नाही आणि gap पण नाही
+class TokenServicePostgresTest extends PostgresIntegrationTestSupport {
+
+    private static final int THREADS = 16;
+    private static final int TOKENS_PER_THREAD = 25;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void parallelAllocationGivesUniqueConsecutiveTokens() throws Exception {
+        Clinic clinic = wakad();
+        Doctor doctor = nikhil();
+        LocalDate today = LocalDate.now();
+
+        List<Integer> tokens = allocateInParallel(clinic.getId(), doctor.getId(), today);
+
+        int total = THREADS * TOKENS_PER_THREAD;
+        assertThat(tokens).hasSize(total).doesNotHaveDuplicates();
+        assertThat(tokens).containsExactlyInAnyOrderElementsOf(IntStream.rangeClosed(1, total).boxed().toList());
+    }
+
+    @Test
+    void firstAllocationSeedsFromExistingVisits() throws Exception {
+        Clinic clinic = wakad();
+        Doctor doctor = priyanka();
+        LocalDate today = LocalDate.now();
+        // Counter table येण्याआधीचे visits: आज token 7 पर्यंत दिले गेले आहेत
+        Patient patient = newPatient("Seed Patient", "9700000001");
+        Visit visit = newVisit(patient, clinic, doctor, today, VisitStatus.COMPLETED, VisitType.OPD, 500, 0);
+        visit.setTokenNumber(7);
+        visitRepository.save(visit);
+
+        List<Integer> tokens = allocateInParallel(clinic.getId(), doctor.getId(), today);
+
+        int total = THREADS * TOKENS_PER_THREAD;
+        assertThat(tokens).containsExactlyInAnyOrderElementsOf(IntStream.rangeClosed(8, 7 + total).boxed().toList());
+    }
+
+    private List<Integer> allocateInParallel(Long clinicId, Long doctorId, LocalDate date) throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<List<Integer>>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                Callable<List<Integer>> desk = () -> {
+                    start.await();
+                    List<Integer> mine = new ArrayList<>();
+                    for (int i = 0; i < TOKENS_PER_THREAD; i++) {
+                        mine.add(tx.execute(status -> tokenService.nextToken(clinicId, doctorId, date)));
+                    }
+                    return mine;
+                };
+                futures.add(pool.submit(desk));
+            }
+            start.countDown();
+
+            List<Integer> all = new ArrayList<>();
+            for (Future<List<Integer>> future : futures) {
+                all.addAll(future.get(60, TimeUnit.SECONDS));
+            }
+            return all;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.prajyotsurgicare.clinic.service;
+
+import com.prajyotsurgicare.clinic.entity.Patient;
+import com.prajyotsurgicare.clinic.entity.Visit;
+import com.prajyotsurgicare.clinic.enums.VisitStatus;
+import com.prajyotsurgicare.clinic.enums.VisitType;
+import com.prajyotsurgicare.clinic.exception.ServiceUnavailableException;
+import com.prajyotsurgicare.clinic.support.IntegrationTestSupport;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 📥 CSV export: Excel साठी BOM + header, RFC 4180 quoting, formula guard, doctor filter,
+// download तुटला तर query थांबते, आणि एकाच वेळी फक्त max-concurrent exports
+class VisitExportServiceTest extends IntegrationTestSupport {
+
+    private static final String HEADER =
+            "\uFEFFDate,Token,Patient,Doctor,Visit Type,Consultation,Other Charges,Total,Payment Mode\r\n";
+
+    @Autowired
+    private VisitExportService visitExportService;
+
+    @Autowired
+    private HikariDataSource dataSource;
+
+    private final LocalDate today = LocalDate.now();
+
+    @Test
+    void writesBomHeaderAndQuotesFields() throws IOException {
+        visit(newPatient("Patil, Ramesh", "9811111111"), today.minusDays(3), "UPI");
+        visit(newPatient("Ramesh \"Bapu\" Patil", "9822222222"), today.minusDays(2), null);
+        visit(newPatient("Sunita\nJadhav", "9833333333"), today.minusDays(1), "Cash");
+        visit(newPatient("Kavita More", "9844444444"), today, "Cash");
+
+        assertThat(csv(null)).isEqualTo(HEADER
+                + today.minusDays(3) + ",,\"Patil, Ramesh\",Dr. Nikhil (Ortho),OPD,500.0,100.0,600.0,UPI\r\n"
+                + today.minusDays(2) + ",,\"Ramesh \"\"Bapu\"\" Patil\",Dr. Nikhil (Ortho),OPD,500.0,100.0,600.0,\r\n"
+                + today.minusDays(1) + ",,\"Sunita\nJadhav\",Dr. Nikhil (Ortho),OPD,500.0,100.0,600.0,Cash\r\n"
+                + today + ",,Kavita More,Dr. Nikhil (Ortho),OPD,500.0,100.0,600.0,Cash\r\n");
+    }
+
+    @Test
+    void formulaLikeValuesAreNotExecutedByExcel() {
+        assertThat(VisitExportService.text("=HYPERLINK(\"x\")")).isEqualTo("\"'=HYPERLINK(\"\"x\"\")\"");
+        assertThat(VisitExportService.text("+919811111111")).isEqualTo("'+919811111111");
+        assertThat(VisitExportService.text("-2+3")).isEqualTo("'-2+3");
+        assertThat(VisitExportService.text("@SUM(A1)")).isEqualTo("'@SUM(A1)");
+        assertThat(VisitExportService.text("Ramesh=Patil")).isEqualTo("Ramesh=Patil");
+        assertThat(VisitExportService.text(null)).isEmpty();
+    }
+
+    @Test
+    void doctorFilterKeepsOnlyThatDoctorsRows() throws IOException {
+        Patient ramesh = newPatient("Ramesh Patil", "9811111111");
+        newVisit(ramesh, wakad(), nikhil(), today, VisitStatus.COMPLETED, VisitType.OPD, 500, 0);
+        newVisit(ramesh, wakad(), priyanka(), today, VisitStatus.COMPLETED, VisitType.FOLLOW_UP, 300, 0);
+        newVisit(ramesh, wakad(), priyanka(), today, VisitStatus.CANCELLED, VisitType.OPD, 300, 0);
+
+        String[] lines = csv(priyanka().getId()).split("\r\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[1]).contains("Dr. Priyanka (ENT),FOLLOW_UP");
+        assertThat(csv(null).split("\r\n")).hasSize(3);
+    }
+
+    @Test
+    void disconnectedDownloadStopsQueryAndFreesConnectionAndSlot() throws IOException {
+        Patient ramesh = newPatient("Ramesh Patil", "9811111111");
+        List<Visit> visits = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            visits.add(Visit.builder().patient(ramesh).clinic(wakad()).doctor(nikhil()).visitDate(today)
+                    .createdAt(LocalDateTime.now()).status(VisitStatus.COMPLETED).visitType(VisitType.OPD)
+                    .consultationFee(500.0).otherCharges(0.0).totalAmount(500.0).tokenNumber(i + 1).build());
+        }
+        visitRepository.saveAll(visits);
+
+        // पहिल्या flush (64 KB buffer) लाच client गेलेला
+        DisconnectedClient client = new DisconnectedClient();
+        StreamingResponseBody body = visitExportService.csvBody(wakad().getId(), null, today, today);
+        assertThatThrownBy(() -> body.writeTo(client)).isInstanceOf(IOException.class);
+
+        assertThat(client.writesAfterDisconnect).isZero();
+        assertThat(dataSource.getHikariPoolMXBean().getActiveConnections()).isZero();
+        releaseAll(List.of(visitExportService.csvBody(wakad().getId(), null, today, today),
+                visitExportService.csvBody(wakad().getId(), null, today, today)));
+    }
+
+    @Test
+    void exportsBeyondTheLimitGet503UntilOneFinishes() throws IOException {
+        // analytics.export.max-concurrent default 2
+        StreamingResponseBody first = visitExportService.csvBody(wakad().getId(), null, today, today);
+        StreamingResponseBody second = visitExportService.csvBody(wakad().getId(), null, today, today);
+        assertThatThrownBy(() -> visitExportService.csvBody(wakad().getId(), null, today, today))
+                .isInstanceOf(ServiceUnavailableException.class);
+
+        first.writeTo(new ByteArrayOutputStream());
+        StreamingResponseBody third = visitExportService.csvBody(wakad().getId(), null, today, today);
+        releaseAll(List.of(second, third));
+    }
+
+    private String csv(Long doctorId) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        visitExportService.writeCsv(wakad().getId(), doctorId, today.minusDays(30), today, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private void visit(Patient patient, LocalDate date, String paymentMode) {
+        Visit visit = newVisit(patient, wakad(), nikhil(), date, VisitStatus.COMPLETED, VisitType.OPD, 500, 100);
+        visit.setPaymentMode(paymentMode);
+        visitRepository.save(visit);
+    }
+
+    // घेतलेले slots परत (service singleton आहे, पुढच्या tests ना पूर्ण limit हवी)
+    private void releaseAll(List<StreamingResponseBody> bodies) throws IOException {
+        for (StreamingResponseBody body : bodies) {
+            body.writeTo(new ByteArrayOutputStream());
+        }
+    }
+
+    private static class DisconnectedClient extends OutputStream {
+        private boolean disconnected;
+        private int writesAfterDisconnect;
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (disconnected) {
+                writesAfterDisconnect++;
+            }
+            disconnected = true;
+            throw new IOException("Broken pipe");
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.prajyotsurgicare.clinic.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 💾 Dedup hit ने blob "नुकताच वापरला" दिसला पाहिजे, नाहीतर orphan sweep तो काढू शकतो
+class LocalFileBlobStoreTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void dedupHitRefreshesLastModified() throws Exception {
+        LocalFileBlobStore store = new LocalFileBlobStore(root.toString());
+        byte[] content = "same scan uploaded twice".getBytes(StandardCharsets.UTF_8);
+        BlobRef first = store.put(new ByteArrayInputStream(content));
+        Instant old = Instant.now().minus(Duration.ofDays(3));
+        setLastModified(store, first.getKey(), old);
+
+        BlobRef second = store.put(new ByteArrayInputStream(content));
+
+        assertThat(second.isDeduplicated()).isTrue();
+        assertThat(lastModified(store, first.getKey())).isAfter(Instant.now().minus(Duration.ofMinutes(1)));
+    }
+
+    private void setLastModified(LocalFileBlobStore store, String key, Instant time) throws Exception {
+        try (var files = Files.walk(root)) {
+            Path path = files.filter(p -> p.getFileName().toString().equals(key)).findFirst().orElseThrow();
+            Files.setLastModifiedTime(path, FileTime.from(time));
+        }
+        assertThat(lastModified(store, key)).isBefore(Instant.now().minus(Duration.ofDays(2)));
+    }
+
+    private Instant lastModified(LocalFileBlobStore store, String key) throws Exception {
+        Map<String, Instant> listed = new HashMap<>();
+        store.forEachBlob(listed::put);
+        return listed.get(key);
+    }
+}
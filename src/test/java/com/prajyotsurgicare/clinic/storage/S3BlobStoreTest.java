@@ -0,0 +1,147 @@
+package com.prajyotsurgicare.clinic.storage;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ConditionEvaluationResult;
+import org.junit.jupiter.api.extension.ExecutionCondition;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.core.io.Resource;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.MinIOContainer;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// ☁️ S3BlobStore खऱ्या S3 API विरुद्ध: put, dedup, open, list, delete.
+// TEST_S3_ENDPOINT (+ TEST_S3_ACCESS_KEY / TEST_S3_SECRET_KEY) दिला असेल तर तो, नाहीतर Docker मध्ये MinIO.
+// दोन्ही नसतील तर skip.
+@ExtendWith(S3BlobStoreTest.S3Available.class)
+class S3BlobStoreTest {
+
+    private static final String EXTERNAL_ENDPOINT = System.getenv("TEST_S3_ENDPOINT");
+
+    private static MinIOContainer minio;
+    private static S3BlobStore store;
+
+    static class S3Available implements ExecutionCondition {
+        @Override
+        public ConditionEvaluationResult evaluateExecutionCondition(ExtensionContext context) {
+            if (EXTERNAL_ENDPOINT != null || DockerClientFactory.instance().isDockerAvailable()) {
+                return ConditionEvaluationResult.enabled("S3 available");
+            }
+            return ConditionEvaluationResult.disabled("No Docker and no TEST_S3_ENDPOINT");
+        }
+    }
+
+    @BeforeAll
+    static void startS3() {
+        String endpoint;
+        String accessKey;
+        String secretKey;
+        if (EXTERNAL_ENDPOINT != null) {
+            endpoint = EXTERNAL_ENDPOINT;
+            accessKey = envOrDefault("TEST_S3_ACCESS_KEY", "minioadmin");
+            secretKey = envOrDefault("TEST_S3_SECRET_KEY", "minioadmin");
+        } else {
+            minio = new MinIOContainer("minio/minio:RELEASE.2023-09-04T19-57-37Z");
+            minio.start();
+            endpoint = minio.getS3URL();
+            accessKey = minio.getUserName();
+            secretKey = minio.getPassword();
+        }
+
+        // प्रत्येक run ला नवा bucket, म्हणजे जुन्या run चे objects list मध्ये येत नाहीत
+        String bucket = "clinic-test-" + UUID.randomUUID().toString().substring(0, 8);
+        try (S3Client admin = S3Client.builder()
+                .endpointOverride(URI.create(endpoint))
+                .region(Region.AP_SOUTH_1)
+                .forcePathStyle(true)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)))
+                .build()) {
+            admin.createBucket(b -> b.bucket(bucket));
+        }
+
+        store = new S3BlobStore(bucket, "prescriptions/", "ap-south-1", endpoint, true, accessKey, secretKey);
+    }
+
+    @AfterAll
+    static void stopS3() {
+        if (store != null) {
+            store.close();
+        }
+        if (minio != null) {
+            minio.stop();
+        }
+    }
+
+    @Test
+    void putThenOpenReturnsSameBytes() throws IOException {
+        byte[] content = "%PDF-1.4 prescription for Ramesh".getBytes(StandardCharsets.UTF_8);
+
+        BlobRef ref = store.put(new ByteArrayInputStream(content));
+
+        assertThat(ref.getKey()).matches("[0-9a-f]{64}");
+        assertThat(ref.getSizeBytes()).isEqualTo(content.length);
+        assertThat(ref.isDeduplicated()).isFalse();
+        assertThat(store.exists(ref.getKey())).isTrue();
+        try (InputStream in = store.open(ref.getKey())) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        }
+
+        // Size माहीत नसेल तर HEAD वरून
+        Resource resource = store.asResource(ref.getKey(), -1);
+        assertThat(resource.contentLength()).isEqualTo(content.length);
+        try (InputStream in = resource.getInputStream()) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        }
+    }
+
+    @Test
+    void sameContentIsDeduplicated() throws IOException {
+        byte[] content = "same scan uploaded twice".getBytes(StandardCharsets.UTF_8);
+
+        BlobRef first = store.put(new ByteArrayInputStream(content));
+        BlobRef second = store.put(new ByteArrayInputStream(content));
+
+        assertThat(second.getKey()).isEqualTo(first.getKey());
+        assertThat(second.isDeduplicated()).isTrue();
+
+        Map<String, Instant> listed = new HashMap<>();
+        store.forEachBlob(listed::put);
+        assertThat(listed).containsKey(first.getKey());
+    }
+
+    @Test
+    void deleteRemovesObject() throws IOException {
+        BlobRef ref = store.put(new ByteArrayInputStream("to be swept".getBytes(StandardCharsets.UTF_8)));
+
+        store.delete(ref.getKey());
+
+        assertThat(store.exists(ref.getKey())).isFalse();
+        assertThatThrownBy(() -> store.open(ref.getKey()).close()).isInstanceOf(IOException.class);
+        Map<String, Instant> listed = new HashMap<>();
+        store.forEachBlob(listed::put);
+        assertThat(listed).doesNotContainKey(ref.getKey());
+    }
+
+    private static String envOrDefault(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null ? value : defaultValue;
+    }
+}
@@ -0,0 +1,104 @@
+package com.prajyotsurgicare.clinic.support;
+
+import com.prajyotsurgicare.clinic.entity.Clinic;
+import com.prajyotsurgicare.clinic.entity.Doctor;
+import com.prajyotsurgicare.clinic.entity.Patient;
+import com.prajyotsurgicare.clinic.entity.Visit;
+import com.prajyotsurgicare.clinic.enums.VisitStatus;
+import com.prajyotsurgicare.clinic.enums.VisitType;
+import com.prajyotsurgicare.clinic.repository.*;
+import com.prajyotsurgicare.clinic.service.AnalyticsCache;
+import com.prajyotsurgicare.clinic.service.LiveQueueService;
+import com.prajyotsurgicare.clinic.service.NotificationService;
+import org.junit.jupiter.api.AfterEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// 🧪 H2 (profile "test") वरचे integration tests: DataSeeder चे clinics/doctors वापरतात,
+// प्रत्येक test नंतर patients/visits आणि in-memory caches साफ होतात. SMS पाठवले जात नाहीत.
+@SpringBootTest
+@ActiveProfiles("test")
+public abstract class IntegrationTestSupport {
+
+    @MockitoBean
+    protected NotificationService notificationService;
+
+    @Autowired protected PatientRepository patientRepository;
+    @Autowired protected VisitRepository visitRepository;
+    @Autowired protected ClinicRepository clinicRepository;
+    @Autowired protected DoctorRepository doctorRepository;
+    @Autowired protected PrescriptionFileRepository prescriptionFileRepository;
+    @Autowired protected StoredBlobRepository storedBlobRepository;
+    @Autowired protected TokenCounterRepository tokenCounterRepository;
+    @Autowired protected DailyClinicDoctorStatsRepository dailyStatsRepository;
+    @Autowired protected LiveQueueService liveQueueService;
+    @Autowired protected AnalyticsCache analyticsCache;
+
+    @AfterEach
+    void cleanDatabase() {
+        prescriptionFileRepository.deleteAllInBatch();
+        storedBlobRepository.deleteAllInBatch();
+        visitRepository.deleteAllInBatch();
+        patientRepository.deleteAllInBatch();
+        tokenCounterRepository.deleteAllInBatch();
+        dailyStatsRepository.deleteAllInBatch();
+        liveQueueService.invalidateAll();
+        analyticsCache.invalidateAll();
+    }
+
+    protected Clinic clinic(String name) {
+        return clinicRepository.findAll().stream()
+                .filter(c -> c.getName().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    protected Doctor doctor(String name) {
+        return doctorRepository.findAll().stream()
+                .filter(d -> d.getName().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    protected Clinic wakad() {
+        return clinic("Wakad");
+    }
+
+    protected Doctor nikhil() {
+        return doctor("Dr. Nikhil (Ortho)");
+    }
+
+    protected Doctor priyanka() {
+        return doctor("Dr. Priyanka (ENT)");
+    }
+
+    protected Patient newPatient(String name, String mobile) {
+        Patient patient = new Patient();
+        patient.setName(name);
+        patient.setMobile(mobile);
+        patient.setAge(30);
+        patient.setCreatedAt(LocalDateTime.now());
+        return patientRepository.save(patient);
+    }
+
+    protected Visit newVisit(Patient patient, Clinic clinic, Doctor doctor, LocalDate date, VisitStatus status,
+                             VisitType type, double consultation, double otherCharges) {
+        return visitRepository.save(Visit.builder()
+                .patient(patient)
+                .clinic(clinic)
+                .doctor(doctor)
+                .visitDate(date)
+                .createdAt(LocalDateTime.now())
+                .status(status)
+                .visitType(type)
+                .consultationFee(consultation)
+                .otherCharges(otherCharges)
+                .totalAmount(consultation + otherCharges)
+                .build());
+    }
+}
@@ -0,0 +1,62 @@
+package com.prajyotsurgicare.clinic.support;
+
+import org.junit.jupiter.api.extension.ConditionEvaluationResult;
+import org.junit.jupiter.api.extension.ExecutionCondition;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+// 🐘 Postgres-only features (pg_trgm, ON CONFLICT, row locks) साठी tests.
+// TEST_POSTGRES_URL (+ TEST_POSTGRES_USER / TEST_POSTGRES_PASSWORD) दिला असेल तर तो DB, नाहीतर Docker मध्ये container.
+// दोन्ही नसतील तर हे tests skip होतात.
+@ExtendWith(PostgresIntegrationTestSupport.PostgresAvailable.class)
+public abstract class PostgresIntegrationTestSupport extends IntegrationTestSupport {
+
+    private static final String EXTERNAL_URL = System.getenv("TEST_POSTGRES_URL");
+
+    private static PostgreSQLContainer<?> container;
+
+    // Spring context load होण्याआधीच तपासले जाते (subclasses ना पण लागू)
+    static class PostgresAvailable implements ExecutionCondition {
+        @Override
+        public ConditionEvaluationResult evaluateExecutionCondition(ExtensionContext context) {
+            if (EXTERNAL_URL != null || DockerClientFactory.instance().isDockerAvailable()) {
+                return ConditionEvaluationResult.enabled("Postgres available");
+            }
+            return ConditionEvaluationResult.disabled("No Docker and no TEST_POSTGRES_URL");
+        }
+    }
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        if (EXTERNAL_URL != null) {
+            registry.add("spring.datasource.url", () -> EXTERNAL_URL);
+            registry.add("spring.datasource.username", () -> envOrDefault("TEST_POSTGRES_USER", "postgres"));
+            registry.add("spring.datasource.password", () -> envOrDefault("TEST_POSTGRES_PASSWORD", ""));
+        } else {
+            PostgreSQLContainer<?> postgres = startContainer();
+            registry.add("spring.datasource.url", postgres::getJdbcUrl);
+            registry.add("spring.datasource.username", postgres::getUsername);
+            registry.add("spring.datasource.password", postgres::getPassword);
+        }
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.jpa.database-platform", () -> "org.hibernate.dialect.PostgreSQLDialect");
+    }
+
+    // सर्व Postgres test classes साठी एकच container (JVM संपल्यावर Ryuk काढून टाकतो)
+    private static synchronized PostgreSQLContainer<?> startContainer() {
+        if (container == null) {
+            container = new PostgreSQLContainer<>("postgres:16-alpine");
+            container.start();
+        }
+        return container;
+    }
+
+    private static String envOrDefault(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null ? value : defaultValue;
+    }
+}